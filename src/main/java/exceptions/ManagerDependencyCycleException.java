@@ -0,0 +1,8 @@
+package exceptions;
+
+public class ManagerDependencyCycleException extends RuntimeException {
+    public ManagerDependencyCycleException(final long id, final long blockerId) {
+        super("The item with id = " + id + " can't be blocked by the item with id = " + blockerId +
+                " because that one already waits for it");
+    }
+}
@@ -3,14 +3,31 @@ package exceptions;
 import models.tasks.AbstractTask;
 
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class ManagerIntersectionTaskIntervalsException extends RuntimeException {
+    private final List<AbstractTask> intersectedTasks;
+
     public ManagerIntersectionTaskIntervalsException(AbstractTask task1, AbstractTask task2) {
-        super("The " + task1.getTypeTask() + " with id = " + task1.getId() + " has " +
-                "startTime - " + task1.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) +
-                ", endTime - " + task1.getEndTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) +
-                " intersects with the " + task2.getTypeTask() + " with id = " + task2.getId() + " has " +
-                "startTime - " + task2.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) +
-                ", endTime - " + task2.getEndTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        this(task1, List.of(task2));
+    }
+
+    public ManagerIntersectionTaskIntervalsException(AbstractTask task, Collection<? extends AbstractTask> intersectedTasks) {
+        super("The " + describe(task) + " intersects with the " + intersectedTasks.stream()
+                .map(ManagerIntersectionTaskIntervalsException::describe)
+                .collect(Collectors.joining(", the ")));
+        this.intersectedTasks = List.copyOf(intersectedTasks);
+    }
+
+    public List<AbstractTask> getIntersectedTasks() {
+        return intersectedTasks;
+    }
+
+    private static String describe(AbstractTask task) {
+        return task.getTypeTask() + " with id = " + task.getId() + " has " +
+                "startTime - " + task.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) +
+                ", endTime - " + task.getEndTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
     }
 }
@@ -10,4 +10,9 @@ public class ManagerTaskNotFoundException extends RuntimeException {
     public ManagerTaskNotFoundException(final TypeTask typeTask, final long id) {
         this(typeTask + " was not found by id = " + id);
     }
+
+    // For an id that may belong to a task, an epic or a story.
+    public ManagerTaskNotFoundException(final long id) {
+        this("Nothing was found by id = " + id);
+    }
 }
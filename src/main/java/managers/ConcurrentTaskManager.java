@@ -0,0 +1,293 @@
+package managers;
+
+import managers.history.PartitionedHistoryManager;
+import managers.query.TaskQuery;
+import managers.stats.BoardAnalytics;
+import managers.stats.TaskCounts;
+import models.enums.StateTask;
+import models.repositories.tasks.AbstractTasksRepository;
+import models.repositories.tasks.DependencyGraph;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.RecurringTask;
+import models.tasks.Story;
+import models.tasks.Task;
+import utils.IdAllocator;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Every mutation runs under the write lock, so it is atomic and sees the repositories, the schedule
+// and the counters in step; reads run under the read lock and go in parallel with each other.
+// Finds also record the view under the read lock, so no delete can drop the item from the history in
+// between. The partitioned history takes concurrent views without locking, each in the partition of its client.
+// Collections are returned as copies taken under the lock, but the tasks in them are the live objects
+// and must not be mutated by callers.
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ConcurrentTaskManager() {
+        this(AbstractTasksRepository.TASK_COUNTER);
+    }
+
+    public ConcurrentTaskManager(IdAllocator idAllocator) {
+        super(idAllocator, new PartitionedHistoryManager());
+    }
+
+    @Override
+    public Collection<Task> findAllTasks() {
+        return read(() -> new ArrayList<>(super.findAllTasks()));
+    }
+
+    @Override
+    public Collection<Task> findAllTasks(StateTask stateTask) {
+        return read(() -> super.findAllTasks(stateTask));
+    }
+
+    @Override
+    public Task findTask(long id) {
+        return read(() -> super.findTask(id));
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        return write(() -> super.addTask(task));
+    }
+
+    @Override
+    public List<Task> addTasks(Collection<Task> tasks) {
+        return write(() -> super.addTasks(tasks));
+    }
+
+    @Override
+    public Task updateTask(long id, Task task) {
+        return write(() -> super.updateTask(id, task));
+    }
+
+    @Override
+    public Task deleteTask(long id) {
+        return write(() -> super.deleteTask(id));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        write(super::deleteAllTasks);
+    }
+
+    @Override
+    public Collection<Epic> findAllEpics() {
+        return read(() -> new ArrayList<>(super.findAllEpics()));
+    }
+
+    @Override
+    public Collection<Epic> findAllEpics(StateTask stateTask) {
+        return read(() -> super.findAllEpics(stateTask));
+    }
+
+    @Override
+    public Epic findEpic(long id) {
+        return read(() -> super.findEpic(id));
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        return write(() -> super.addEpic(epic));
+    }
+
+    @Override
+    public Epic updateEpic(long id, Epic epic) {
+        return write(() -> super.updateEpic(id, epic));
+    }
+
+    @Override
+    public Epic deleteEpic(long id) {
+        return write(() -> super.deleteEpic(id));
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        write(super::deleteAllEpics);
+    }
+
+    @Override
+    public Collection<Story> findAllStories(long epicId) {
+        return read(() -> new ArrayList<>(super.findAllStories(epicId)));
+    }
+
+    @Override
+    public Collection<Story> findAllStories() {
+        return read(super::findAllStories);
+    }
+
+    @Override
+    public Collection<Story> findAllStories(StateTask stateTask) {
+        return read(() -> super.findAllStories(stateTask));
+    }
+
+    @Override
+    public Story findStory(long id) {
+        return read(() -> super.findStory(id));
+    }
+
+    @Override
+    public Story addStory(Story story) {
+        return write(() -> super.addStory(story));
+    }
+
+    @Override
+    public List<Story> addStories(Collection<Story> stories) {
+        return write(() -> super.addStories(stories));
+    }
+
+    @Override
+    public Story updateStory(long id, Story story) {
+        return write(() -> super.updateStory(id, story));
+    }
+
+    @Override
+    public Story deleteStory(long id) {
+        return write(() -> super.deleteStory(id));
+    }
+
+    @Override
+    public void deleteAllStories(Epic epic) {
+        write(() -> super.deleteAllStories(epic));
+    }
+
+    @Override
+    public <T extends AbstractTask> void createRepository(Collection<T> abstractTasks,
+                                                          Class<? extends AbstractTasksRepository<T>> tasksRepositoryClass) {
+        write(() -> super.createRepository(abstractTasks, tasksRepositoryClass));
+    }
+
+    @Override
+    public List<AbstractTask> search(String query, int offset, int limit) {
+        return read(() -> super.search(query, offset, limit));
+    }
+
+    @Override
+    public List<AbstractTask> query(TaskQuery query) {
+        return read(() -> super.query(query));
+    }
+
+    @Override
+    public List<AbstractTask> findByDay(LocalDate day) {
+        return read(() -> super.findByDay(day));
+    }
+
+    @Override
+    public RecurringTask addRecurringTask(RecurringTask recurringTask) {
+        return write(() -> super.addRecurringTask(recurringTask));
+    }
+
+    @Override
+    public RecurringTask findRecurringTask(long id) {
+        return read(() -> super.findRecurringTask(id));
+    }
+
+    @Override
+    public List<RecurringTask> findAllRecurringTasks() {
+        return read(super::findAllRecurringTasks);
+    }
+
+    @Override
+    public RecurringTask deleteRecurringTask(long id) {
+        return write(() -> super.deleteRecurringTask(id));
+    }
+
+    @Override
+    public BoardAnalytics analytics() {
+        return read(super::analytics);
+    }
+
+    @Override
+    public boolean addDependency(long id, long blockerId) {
+        return write(() -> super.addDependency(id, blockerId));
+    }
+
+    @Override
+    public boolean removeDependency(long id, long blockerId) {
+        return write(() -> super.removeDependency(id, blockerId));
+    }
+
+    @Override
+    public List<Long> findBlockers(long id) {
+        return read(() -> super.findBlockers(id));
+    }
+
+    @Override
+    public long getEarliestStart(long id) {
+        return read(() -> super.getEarliestStart(id));
+    }
+
+    @Override
+    public DependencyGraph.CriticalPath getCriticalPath() {
+        return read(super::getCriticalPath);
+    }
+
+    @Override
+    public <R> R inTransaction(Supplier<R> work) {
+        return write(() -> super.inTransaction(work));
+    }
+
+    @Override
+    public long size() {
+        return read(super::size);
+    }
+
+    @Override
+    public TaskCounts counts() {
+        return read(super::counts);
+    }
+
+    @Override
+    public List<AbstractTask> getPrioritizedTasks() {
+        return read(() -> super.getPrioritizedTasks());
+    }
+
+    @Override
+    public List<AbstractTask> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return read(() -> super.getPrioritizedTasks(from, to, limit));
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        return read(() -> super.findFreeSlot(duration, notBefore));
+    }
+
+    // Whether the calling thread is inside a write, e.g. a transaction.
+    protected boolean isWriting() {
+        return lock.isWriteLockedByCurrentThread();
+    }
+
+    protected <R> R read(Supplier<R> action) {
+        return locked(lock.readLock(), action);
+    }
+
+    protected <R> R write(Supplier<R> action) {
+        return locked(lock.writeLock(), action);
+    }
+
+    private void write(Runnable action) {
+        write(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private static <R> R locked(Lock lock, Supplier<R> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
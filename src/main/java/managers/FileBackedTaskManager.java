@@ -1,14 +1,17 @@
 package managers;
 
 import managers.history.HistoryManager;
+import managers.history.PartitionedHistoryManager;
 import models.enums.StateTask;
 import models.enums.TypeTask;
 import models.repositories.tasks.AbstractTasksRepository;
 import models.repositories.tasks.CombinedTasksRepository;
 import models.tasks.AbstractTask;
 import models.tasks.Epic;
+import models.tasks.RecurringTask;
 import models.tasks.Story;
 import models.tasks.Task;
+import utils.IdAllocator;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
@@ -18,26 +21,41 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
+// The file holds a header, a line per task, epic and story, a blank line and the ids of the history.
+// The recurring tasks follow as id,RECURRING,name,description,duration,startTime,period,until
+// and the dependencies as id,DEPENDENCY,blockerId, a line each.
+// Views go to the history of the calling client, as the boards served over HTTP are shared; the file holds
+// the history of calls made without a client. The histories of clients are not saved and start empty after
+// a load: saving them would write every client's key to the file.
 public class FileBackedTaskManager extends InMemoryTaskManager {
+    private static final String RECURRING = "RECURRING";
+    private static final String DEPENDENCY = "DEPENDENCY";
     private Path path;
     protected CombinedTasksRepository combinedTasksRepository;
 
-    private FileBackedTaskManager(Path path) {
-        super();
+    private FileBackedTaskManager(Path path, IdAllocator idAllocator) {
+        this(idAllocator);
         this.path = path;
     }
 
     protected FileBackedTaskManager() {
-        super();
+        this(AbstractTasksRepository.TASK_COUNTER);
+    }
+
+    protected FileBackedTaskManager(IdAllocator idAllocator) {
+        super(idAllocator, new PartitionedHistoryManager());
     }
 
     public static FileBackedTaskManager getInstance(Path path) {
-        final FileBackedTaskManager fileBackedAppManager = new FileBackedTaskManager(path);
-        fileBackedAppManager.load();
-        return fileBackedAppManager;
+        return getInstance(path, AbstractTasksRepository.TASK_COUNTER);
+    }
+
+    public static FileBackedTaskManager getInstance(Path path, IdAllocator idAllocator) {
+        return new FileBackedTaskManager(path, idAllocator).load();
     }
 
     public void save() {
@@ -51,14 +69,25 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                 fileWriter.write(taskToString(task.getValue()));
             }
             fileWriter.write(System.lineSeparator());
-            fileWriter.write(toString(super.historyManager));
+            fileWriter.write(PartitionedHistoryManager.withoutClient(() -> toString(historyManager)));
+            for (RecurringTask recurringTask : recurrenceSchedule.findAll()) {
+                fileWriter.write(System.lineSeparator());
+                fileWriter.write(recurringTaskToString(recurringTask));
+            }
+            for (long id : tasks.keySet()) {
+                for (long blockerId : dependencyGraph.getBlockers(id)) {
+                    fileWriter.write(System.lineSeparator());
+                    fileWriter.write(id + "," + DEPENDENCY + "," + blockerId);
+                }
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    // Reads the file into a new manager, keeping the ids the items were saved with.
     public FileBackedTaskManager load() {
-        FileBackedTaskManager appManager = new FileBackedTaskManager(this.path);
+        FileBackedTaskManager appManager = new FileBackedTaskManager(this.path, idAllocator);
         List<String> lines;
         try {
             if (Files.notExists(path)) Files.createFile(path);
@@ -68,33 +97,61 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
 
         if (lines.size() > 1) {
-            HashMap<Long, AbstractTask> newAbstractTasksByOldIds = new HashMap<>();
-            for (int i = 1; i < lines.size() - 1; i++) {
-                final String line = lines.get(i);
-                if (line.isBlank()) break;
-                final AbstractTask abstractTask = taskFromString(line, newAbstractTasksByOldIds);
-                final Long abstractTaskId = abstractTask.getId();
-                newAbstractTasksByOldIds.put(abstractTaskId, abstractTask);
+            final HashMap<Long, AbstractTask> abstractTasksById = new HashMap<>();
+            final List<Task> tasks = new ArrayList<>();
+            final List<Epic> epics = new ArrayList<>();
+            int i = 1;
+            for (; i < lines.size() && !lines.get(i).isBlank(); i++) {
+                final AbstractTask abstractTask = taskFromString(lines.get(i));
+                abstractTasksById.put(abstractTask.getId(), abstractTask);
                 final TypeTask typeTask = abstractTask.getTypeTask();
                 if (typeTask.isEpic()) {
-                    newAbstractTasksByOldIds.put(abstractTaskId, appManager.addEpic((Epic) abstractTask));
+                    epics.add((Epic) abstractTask);
                 } else if (typeTask.isStory()) {
-                    newAbstractTasksByOldIds.put(abstractTaskId, appManager.addStory((Story) abstractTask));
+                    final Story story = (Story) abstractTask;
+                    ((Epic) abstractTasksById.get(story.getEpicId())).addStory(story);
                 } else {
-                    newAbstractTasksByOldIds.put(abstractTaskId, appManager.addTask((Task) abstractTask));
+                    tasks.add((Task) abstractTask);
                 }
             }
+            final List<RecurringTask> recurringTasks = new ArrayList<>();
+            final Map<Long, List<Long>> blockers = new LinkedHashMap<>();
+            for (int j = i + 2; j < lines.size(); j++) {
+                final String[] split = lines.get(j).split(",", 8);
+                if (split.length < 3) continue;
+                if (RECURRING.equals(split[1])) {
+                    recurringTasks.add(recurringTaskFromString(split));
+                } else if (DEPENDENCY.equals(split[1])) {
+                    blockers.computeIfAbsent(Long.parseLong(split[0]), id -> new ArrayList<>())
+                            .add(Long.parseLong(split[2]));
+                }
+            }
+            appManager.restore(tasks, epics, recurringTasks, blockers);
+            appManager.combinedTasksRepository = CombinedTasksRepository.getInstance(
+                    appManager.getEpicsRepository(), appManager.getTasksRepository());
 
-            appManager.combinedTasksRepository = CombinedTasksRepository.getInstance(getEpicsRepository(), getTasksRepository());
-
-            String historyLine = lines.get(lines.size() - 1);
+            final String historyLine = i + 1 < lines.size() ? lines.get(i + 1) : "";
             if (!historyLine.isBlank()) {
-                historyFromString(appManager, historyLine, newAbstractTasksByOldIds);
+                PartitionedHistoryManager.withoutClient(
+                        () -> historyFromString(appManager, historyLine, abstractTasksById));
             }
         }
         return appManager;
     }
 
+    // A transaction saves once, when it commits; one rolled back leaves the board as it was last saved.
+    @Override
+    public <R> R inTransaction(Supplier<R> work) {
+        final boolean outermost = !isInTransaction();
+        final R result = super.inTransaction(work);
+        if (outermost) save();
+        return result;
+    }
+
+    private void saveOutsideTransaction() {
+        if (!isInTransaction()) save();
+    }
+
     private void clearHistory() {
         getHistoryManager().clear();
     }
@@ -103,109 +160,151 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public <T extends AbstractTask> void createRepository(Collection<T> abstractTasks,
                                                           Class<? extends AbstractTasksRepository<T>> tasksRepositoryClass) {
         super.createRepository(abstractTasks, tasksRepositoryClass);
-        save();
+        saveOutsideTransaction();
     }
 
     @Override
     public Task findTask(long id) {
         Task task = super.findTask(id);
-        save();
+        saveOutsideTransaction();
         return task;
     }
 
     @Override
     public Task addTask(Task task) {
         Task result = super.addTask(task);
-        save();
+        saveOutsideTransaction();
+        return result;
+    }
+
+    @Override
+    public List<Task> addTasks(Collection<Task> tasks) {
+        List<Task> result = super.addTasks(tasks);
+        saveOutsideTransaction();
         return result;
     }
 
     @Override
     public Task updateTask(long id, Task task) {
         Task result = super.updateTask(id, task);
-        save();
+        saveOutsideTransaction();
         return result;
     }
 
     @Override
     public Task deleteTask(long id) {
         Task task = super.deleteTask(id);
-        save();
+        saveOutsideTransaction();
         return task;
     }
 
     @Override
     public void deleteAllTasks() {
         super.deleteAllTasks();
-        save();
+        saveOutsideTransaction();
     }
 
     @Override
     public Epic findEpic(long id) {
         Epic epic = super.findEpic(id);
-        save();
+        saveOutsideTransaction();
         return epic;
     }
 
     @Override
     public Epic addEpic(Epic epic) {
         Epic result = super.addEpic(epic);
-        save();
+        saveOutsideTransaction();
         return result;
     }
 
     @Override
     public Epic updateEpic(long id, Epic epic) {
         Epic result = super.updateEpic(id, epic);
-        save();
+        saveOutsideTransaction();
         return result;
     }
 
     @Override
     public Epic deleteEpic(long id) {
         Epic result = super.deleteEpic(id);
-        save();
+        saveOutsideTransaction();
         return result;
     }
 
     @Override
     public void deleteAllEpics() {
         super.deleteAllEpics();
-        save();
+        saveOutsideTransaction();
+    }
+
+    @Override
+    public RecurringTask addRecurringTask(RecurringTask recurringTask) {
+        RecurringTask result = super.addRecurringTask(recurringTask);
+        saveOutsideTransaction();
+        return result;
+    }
+
+    @Override
+    public RecurringTask deleteRecurringTask(long id) {
+        RecurringTask result = super.deleteRecurringTask(id);
+        saveOutsideTransaction();
+        return result;
+    }
+
+    @Override
+    public boolean addDependency(long id, long blockerId) {
+        boolean result = super.addDependency(id, blockerId);
+        saveOutsideTransaction();
+        return result;
+    }
+
+    @Override
+    public boolean removeDependency(long id, long blockerId) {
+        boolean result = super.removeDependency(id, blockerId);
+        saveOutsideTransaction();
+        return result;
     }
 
     @Override
     public Story findStory(long id) {
         Story story = super.findStory(id);
-        save();
+        saveOutsideTransaction();
         return story;
     }
 
     @Override
     public Story addStory(Story story) {
         Story result = super.addStory(story);
-        save();
+        saveOutsideTransaction();
+        return result;
+    }
+
+    @Override
+    public List<Story> addStories(Collection<Story> stories) {
+        List<Story> result = super.addStories(stories);
+        saveOutsideTransaction();
         return result;
     }
 
     @Override
     public Story updateStory(long id, Story story) {
         Story result = super.updateStory(id, story);
-        save();
+        saveOutsideTransaction();
         return result;
     }
 
     @Override
     public Story deleteStory(long id) {
         Story result = super.deleteStory(id);
-        save();
+        saveOutsideTransaction();
         return result;
     }
 
     @Override
     public void deleteAllStories(Epic epic) {
         super.deleteAllStories(epic);
-        save();
+        saveOutsideTransaction();
     }
 
     private String toString(HistoryManager historyManager) {
@@ -221,11 +320,11 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     private List<AbstractTask> historyFromString(FileBackedTaskManager fileBackedAppManager, String value,
-                                                 HashMap<Long, AbstractTask> newAbstractTasksByOldIds) {
+                                                 HashMap<Long, AbstractTask> abstractTasksById) {
         String[] ids = value.split(",");
         if (ids.length != 0) {
             for (String id : ids) {
-                fileBackedAppManager.historyManager.add(newAbstractTasksByOldIds.get(Long.parseLong(id)));
+                fileBackedAppManager.historyManager.add(abstractTasksById.get(Long.parseLong(id)));
             }
         }
 
@@ -262,7 +361,29 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return sb.append(System.lineSeparator()).toString();
     }
 
-    private AbstractTask taskFromString(String value, HashMap<Long, AbstractTask> newAbstractTasksByOldIds) {
+    private String recurringTaskToString(RecurringTask recurringTask) {
+        return recurringTask.getId() + "," + RECURRING + "," + recurringTask.getName() + ","
+                + Optional.ofNullable(recurringTask.getDescription()).orElse("") + ","
+                + recurringTask.getDuration() + ","
+                + recurringTask.getStartTime().format(ISO_LOCAL_DATE_TIME) + ","
+                + recurringTask.getPeriod() + ","
+                + Optional.ofNullable(recurringTask.getUntil())
+                .map(until -> until.format(ISO_LOCAL_DATE_TIME))
+                .orElse("");
+    }
+
+    private RecurringTask recurringTaskFromString(String[] split) {
+        if (split.length != 8) throw new IllegalArgumentException();
+        final RecurringTask.Builder builder = RecurringTask.builder(split[2])
+                .description(split[3])
+                .duration(Duration.parse(split[4]))
+                .startTime(LocalDateTime.parse(split[5], ISO_LOCAL_DATE_TIME))
+                .period(Duration.parse(split[6]));
+        if (!split[7].isEmpty()) builder.until(LocalDateTime.parse(split[7], ISO_LOCAL_DATE_TIME));
+        return RecurringTask.createRecurringTask(Long.parseLong(split[0]), builder.build());
+    }
+
+    private AbstractTask taskFromString(String value) {
         String[] split = value.trim().split(",", 8);
 
         if (split.length > 8 || split.length < 4) throw new IllegalArgumentException();
@@ -283,8 +404,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
 
         if (typeTask.isStory()) {
             long epicId = Long.parseLong(split[7]);
-            return Story.createStory(id, name, description,
-                    newAbstractTasksByOldIds.get(epicId).getId(),
+            return Story.createStory(id, name, description, epicId,
                     stateTask,
                     duration.isEmpty() ? null : Duration.parse(duration),
                     startTime.isEmpty() ? null : LocalDateTime.parse(startTime, ISO_LOCAL_DATE_TIME));
@@ -3,20 +3,27 @@ package managers;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import managers.history.PartitionedHistoryManager;
 import models.enums.TypeTask;
+import models.repositories.tasks.AbstractTasksRepository;
 import models.repositories.tasks.CombinedTasksRepository;
 import models.taskSerializers.AbstractTaskDeserializer;
 import models.tasks.AbstractTask;
 import models.tasks.Epic;
+import models.tasks.RecurringTask;
 import models.tasks.Story;
 import models.tasks.Task;
+import utils.IdAllocator;
 import web.clients.KVTaskClient;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+// Like the file, the KVServer only gets the history of calls made without a client.
 public class HTTPTaskManager extends FileBackedTaskManager {
     private final KVTaskClient client;
     private final String storageKey = "storage";
@@ -24,18 +31,38 @@ public class HTTPTaskManager extends FileBackedTaskManager {
     private final String epicsKey = "epics";
     private final String storiesKey = "stories";
     private final String historyKey = "history";
+    private final String recurringKey = "recurring";
+    private final String dependenciesKey = "dependencies";
     private final Gson gson = new Gson();
+    // What was last put under the recurring and dependencies keys, since most saves don't change them;
+    // null until this manager has put anything there
+    private String savedRecurringTasks;
+    private String savedBlockers;
 
     public HTTPTaskManager(URI uriKVServer) {
-        client = new KVTaskClient(uriKVServer);
+        this(uriKVServer, AbstractTasksRepository.TASK_COUNTER);
+    }
+
+    // Writers sharing one KVServer should each get a LeasedIdAllocator, so their ids never collide.
+    public HTTPTaskManager(URI uriKVServer, IdAllocator idAllocator) {
+        this(new KVTaskClient(uriKVServer), idAllocator);
         String emptyArray = "[]";
         client.put(storageKey, emptyArray);
         client.put(tasksKey, emptyArray);
         client.put(epicsKey, emptyArray);
         client.put(storiesKey, emptyArray);
         client.put(historyKey, emptyArray);
+        savedRecurringTasks = emptyArray;
+        client.put(recurringKey, savedRecurringTasks);
+        savedBlockers = "{}";
+        client.put(dependenciesKey, savedBlockers);
     }
 
+    // Leaves the KVServer as it is, for load().
+    private HTTPTaskManager(KVTaskClient client, IdAllocator idAllocator) {
+        super(idAllocator);
+        this.client = client;
+    }
 
     @Override
     public void save() {
@@ -47,22 +74,40 @@ public class HTTPTaskManager extends FileBackedTaskManager {
             client.put(epicsKey, gson.toJson(findAllEpics()));
             client.put(storiesKey, gson.toJson(findAllStories()));
         }
-        if (!historyManager.getHistory().isEmpty()) {
-            client.put(historyKey, gson.toJson(super.historyManager.getHistory().stream().map(AbstractTask::getId).collect(Collectors.toList())));
+        List<AbstractTask> history = PartitionedHistoryManager.withoutClient(historyManager::getHistory);
+        if (!history.isEmpty()) {
+            client.put(historyKey, gson.toJson(history.stream().map(AbstractTask::getId).collect(Collectors.toList())));
+        }
+        String recurringTasks = gson.toJson(findAllRecurringTasks());
+        if (!recurringTasks.equals(savedRecurringTasks)) {
+            client.put(recurringKey, recurringTasks);
+            savedRecurringTasks = recurringTasks;
+        }
+        Map<Long, List<Long>> blockers = new HashMap<>();
+        for (AbstractTask task : CombinedTasksRepository.getInstance(epicsRepository, tasksRepository).getAbstractTasks()) {
+            List<Long> blockerIds = dependencyGraph.getBlockers(task.getId());
+            if (!blockerIds.isEmpty()) blockers.put(task.getId(), blockerIds);
+        }
+        String blockersJson = gson.toJson(blockers);
+        if (!blockersJson.equals(savedBlockers)) {
+            client.put(dependenciesKey, blockersJson);
+            savedBlockers = blockersJson;
         }
     }
 
+    // Keeps the ids the tasks, epics, stories and recurring tasks were saved with.
     @Override
     public HTTPTaskManager load() {
-        HTTPTaskManager taskManager = new HTTPTaskManager(client.getUrl());
-        HashMap<Long, AbstractTask> newAbstractTasksByOldIds = new HashMap<>();
-        loadStorage(taskManager, newAbstractTasksByOldIds);
-        taskManager.combinedTasksRepository = CombinedTasksRepository.getInstance(getEpicsRepository(), getTasksRepository());
-        loadHistory(taskManager, newAbstractTasksByOldIds);
+        HTTPTaskManager taskManager = new HTTPTaskManager(client, idAllocator);
+        HashMap<Long, AbstractTask> abstractTasksById = new HashMap<>();
+        loadStorage(taskManager, abstractTasksById);
+        taskManager.combinedTasksRepository = CombinedTasksRepository.getInstance(
+                taskManager.getEpicsRepository(), taskManager.getTasksRepository());
+        loadHistory(taskManager, abstractTasksById);
         return taskManager;
     }
 
-    private void loadStorage(HTTPTaskManager taskManager, HashMap<Long, AbstractTask> newAbstractTasksByOldIds) {
+    private void loadStorage(HTTPTaskManager taskManager, HashMap<Long, AbstractTask> abstractTasksById) {
         AbstractTaskDeserializer deserializer = new AbstractTaskDeserializer("typeTask");
         deserializer.registerBarnType("EPIC", Epic.class);
         deserializer.registerBarnType("TASK", Task.class);
@@ -70,29 +115,49 @@ public class HTTPTaskManager extends FileBackedTaskManager {
         Gson gson = new GsonBuilder()
                 .registerTypeAdapter(AbstractTask.class, deserializer)
                 .create();
-        List<AbstractTask> tasks = gson.fromJson(client.load(storageKey), new TypeToken<List<AbstractTask>>(){}.getType());
-        if (tasks != null && !tasks.isEmpty()) {
-            for (AbstractTask t : tasks) {
-                Long abstractTaskId = t.getId();
+        List<AbstractTask> abstractTasks = gson.fromJson(client.load(storageKey), new TypeToken<List<AbstractTask>>(){}.getType());
+        List<RecurringTask> recurringTasks = gson.fromJson(client.load(recurringKey), new TypeToken<List<RecurringTask>>(){}.getType());
+        Map<Long, List<Long>> blockers = gson.fromJson(client.load(dependenciesKey), new TypeToken<Map<Long, List<Long>>>(){}.getType());
+        List<Task> tasks = new ArrayList<>();
+        List<Epic> epics = new ArrayList<>();
+        List<Story> stories = new ArrayList<>();
+        if (abstractTasks != null) {
+            for (AbstractTask t : abstractTasks) {
                 TypeTask typeTask = t.getTypeTask();
-                newAbstractTasksByOldIds.put(abstractTaskId, t);
                 if (typeTask.isEpic()) {
-                    newAbstractTasksByOldIds.put(abstractTaskId, taskManager.addEpic((Epic) t));
+                    // The counters of an epic aren't serialized, so the epic is built again and gets its stories below
+                    Epic epic = Epic.createEpic(t.getId(), t.getName(), t.getStateTask(), t.getDescription(), null, null);
+                    epics.add(epic);
+                    abstractTasksById.put(epic.getId(), epic);
                 } else if (typeTask.isStory()) {
-                    Story story = (Story) t;
-                    story.setEpicId(newAbstractTasksByOldIds.get(((Story) t).getEpicId()).getId());
-                    newAbstractTasksByOldIds.put(abstractTaskId, taskManager.addStory((Story) t));
+                    stories.add(Story.createStory(t.getId(), (Story) t));
                 } else {
-                    newAbstractTasksByOldIds.put(abstractTaskId, taskManager.addTask((Task) t));
+                    Task task = Task.createTask(t.getId(), (Task) t);
+                    tasks.add(task);
+                    abstractTasksById.put(task.getId(), task);
                 }
             }
         }
+        for (Story story : stories) {
+            ((Epic) abstractTasksById.get(story.getEpicId())).addStory(story);
+            abstractTasksById.put(story.getId(), story);
+        }
+        List<RecurringTask> recurringTaskCopies = new ArrayList<>();
+        if (recurringTasks != null) {
+            for (RecurringTask recurringTask : recurringTasks) {
+                recurringTaskCopies.add(RecurringTask.createRecurringTask(recurringTask.getId(), recurringTask));
+            }
+        }
+        taskManager.restore(tasks, epics, recurringTaskCopies, blockers == null ? Map.of() : blockers);
     }
 
-    private void loadHistory(HTTPTaskManager taskManager, HashMap<Long, AbstractTask> newAbstractTasksByOldIds) {
+    private void loadHistory(HTTPTaskManager taskManager, HashMap<Long, AbstractTask> abstractTasksById) {
         List<Long> history = gson.fromJson(client.load(historyKey), new TypeToken<List<Long>>(){}.getType());
         if (history != null && !history.isEmpty()) {
-            history.forEach(id -> taskManager.historyManager.add(newAbstractTasksByOldIds.get(id)));
+            PartitionedHistoryManager.withoutClient(() -> {
+                history.forEach(id -> taskManager.historyManager.add(abstractTasksById.get(id)));
+                return null;
+            });
         }
     }
 }
@@ -2,80 +2,175 @@ package managers;
 
 import exceptions.ManagerIntersectionTaskIntervalsException;
 import exceptions.ManagerTaskNotFoundException;
+import managers.events.EventBus;
+import managers.events.TaskEvent;
+import managers.events.TaskEventListener;
+import managers.history.HistoryManager;
 import managers.history.InMemoryHistoryManager;
+import managers.query.TaskQuery;
+import managers.schedule.CalendarIndex;
+import managers.schedule.IntervalTree;
+import managers.schedule.RecurrenceSchedule;
+import managers.search.SearchIndex;
+import managers.stats.BoardAnalytics;
+import managers.stats.TaskCounts;
+import models.enums.StateTask;
 import models.enums.TypeTask;
 import models.repositories.tasks.AbstractTasksRepository;
+import models.repositories.tasks.DependencyGraph;
 import models.repositories.tasks.EpicsRepository;
 import models.repositories.tasks.TasksRepository;
 import models.tasks.AbstractTask;
 import models.tasks.Epic;
+import models.tasks.RecurringTask;
 import models.tasks.Story;
 import models.tasks.Task;
+import utils.IdAllocator;
+import utils.collections.LongBitmap;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class InMemoryTaskManager implements TaskManager {
+    private static final int PARALLEL_BATCH_THRESHOLD = 8192;
+    protected static final Comparator<AbstractTask> START_TIME_ORDER =
+            Comparator.comparing(AbstractTask::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparingLong(AbstractTask::getId);
 
     protected TasksRepository tasksRepository;
     protected EpicsRepository epicsRepository;
-    protected InMemoryHistoryManager historyManager;
+    protected HistoryManager historyManager;
     protected TreeSet<AbstractTask> tasksSortedByStartTime;
+    protected IntervalTree intervalTree;
+    protected CalendarIndex calendarIndex;
+    protected RecurrenceSchedule recurrenceSchedule;
+    protected long[][] typeStateCounters;
+    // Ids of the tasks, epics and stories of every type and in every state, kept in step with the counters.
+    protected EnumMap<TypeTask, LongBitmap> typeIndex;
+    // The ids of every type in every state, indexed like typeStateCounters.
+    protected LongBitmap[][] typeStateIndex;
+    protected SearchIndex searchIndex;
+    protected DependencyGraph dependencyGraph;
+    protected final EventBus eventBus;
+    protected final IdAllocator idAllocator;
+    private Transaction transaction;
 
     public InMemoryTaskManager() {
-        tasksRepository = new TasksRepository();
-        epicsRepository = new EpicsRepository();
-        historyManager = new InMemoryHistoryManager();
-        tasksSortedByStartTime = new TreeSet<>(
-                Comparator.comparing(AbstractTask::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
-                        .thenComparingLong(AbstractTask::getId)
-        );
+        this(AbstractTasksRepository.TASK_COUNTER);
+    }
+
+    public InMemoryTaskManager(IdAllocator idAllocator) {
+        this(idAllocator, new InMemoryHistoryManager());
+    }
+
+    public InMemoryTaskManager(IdAllocator idAllocator, HistoryManager historyManager) {
+        this.idAllocator = idAllocator;
+        tasksRepository = new TasksRepository(idAllocator);
+        epicsRepository = new EpicsRepository(idAllocator);
+        this.historyManager = historyManager;
+        recurrenceSchedule = new RecurrenceSchedule();
+        eventBus = new EventBus();
+        createIndexes();
+    }
+
+    private void createIndexes() {
+        tasksSortedByStartTime = new TreeSet<>(START_TIME_ORDER);
+        intervalTree = new IntervalTree();
+        calendarIndex = new CalendarIndex();
+        typeStateCounters = new long[TypeTask.values().length][StateTask.values().length];
+        typeIndex = new EnumMap<>(TypeTask.class);
+        for (TypeTask typeTask : TypeTask.values()) typeIndex.put(typeTask, new LongBitmap());
+        typeStateIndex = new LongBitmap[TypeTask.values().length][StateTask.values().length];
+        for (LongBitmap[] stateIds : typeStateIndex) Arrays.setAll(stateIds, state -> new LongBitmap());
+        searchIndex = new SearchIndex();
+        dependencyGraph = new DependencyGraph();
     }
 
     public Collection<Task> findAllTasks() {
         return tasksRepository.findAll();
     }
 
+    @Override
+    public Collection<Task> findAllTasks(StateTask stateTask) {
+        return findIndexed(TypeTask.TASK, stateTask, tasksRepository::find);
+    }
+
     @Override
     public Task findTask(long id) {
+        final Task task = peekTask(id);
+        addToHistory(task);
+        return task;
+    }
+
+    // Finds the task like findTask, but without recording the view.
+    protected Task peekTask(long id) {
         final Task task = tasksRepository.find(id);
         if (task == null) throw new ManagerTaskNotFoundException(TypeTask.TASK, id);
-        historyManager.add(task);
         return task;
     }
 
     @Override
     public Task addTask(Task task) {
-        AbstractTask intersectTask = checkIntersection(task);
-        if (intersectTask != null) throw new ManagerIntersectionTaskIntervalsException(task, intersectTask);
+        checkIntersection(task, null);
         final Task result = tasksRepository.add(task);
-        addToPrioritizedListTasks(result);
+        touchCreated(result);
+        index(result);
+        emit(TaskEvent.Type.CREATED, result);
+        return result;
+    }
+
+    @Override
+    public List<Task> addTasks(Collection<Task> tasks) {
+        checkIntersections(tasks);
+        final List<Task> result = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            final Task newTask = tasksRepository.add(task);
+            touchCreated(newTask);
+            index(newTask);
+            emit(TaskEvent.Type.CREATED, newTask);
+            result.add(newTask);
+        }
         return result;
     }
 
     @Override
     public Task updateTask(long id, Task task) {
-        AbstractTask intersectTask = checkIntersection(task);
-        if (intersectTask != null) throw new ManagerIntersectionTaskIntervalsException(task, intersectTask);
+        checkIntersection(task, id);
+        final Task currentTask = tasksRepository.find(id);
+        if (currentTask == null) throw new ManagerTaskNotFoundException(TypeTask.TASK, id);
+        touchTask(id);
+        final StateTask stateBefore = currentTask.getStateTask();
+        unindex(currentTask);
         final Task result = tasksRepository.update(id, task);
-        if (result == null) throw new ManagerTaskNotFoundException(TypeTask.TASK, id);
+        index(result);
+        updated(result, stateBefore);
         return result;
     }
 
     @Override
     public Task deleteTask(long id) {
+        touchTask(id);
         final Task task = tasksRepository.delete(id);
         if (task == null) throw new ManagerTaskNotFoundException(TypeTask.TASK, id);
         historyManager.remove(id);
-        tasksSortedByStartTime.remove(task);
+        forget(task);
         return task;
     }
 
     @Override
     public void deleteAllTasks() {
         for (Task task : tasksRepository.findAll()) {
+            touchTask(task.getId());
             historyManager.remove(task.getId());
-            tasksSortedByStartTime.remove(task);
+            forget(task);
         }
         tasksRepository.clear();
     }
@@ -85,48 +180,98 @@ public class InMemoryTaskManager implements TaskManager {
         return epicsRepository.findAll();
     }
 
+    @Override
+    public Collection<Epic> findAllEpics(StateTask stateTask) {
+        return findIndexed(TypeTask.EPIC, stateTask, epicsRepository::find);
+    }
+
     @Override
     public Epic findEpic(long id) {
+        final Epic epic = peekEpic(id);
+        addToHistory(epic);
+        return epic;
+    }
+
+    protected Epic peekEpic(long id) {
         Epic epic = epicsRepository.find(id);
         if (epic == null) throw new ManagerTaskNotFoundException(TypeTask.EPIC, id);
-        historyManager.add(epic);
         return epic;
     }
 
     @Override
     public Epic addEpic(Epic epic) {
-        return epicsRepository.add(epic);
+        final Epic result = epicsRepository.add(epic);
+        touchCreated(result);
+        count(result, 1);
+        emit(TaskEvent.Type.CREATED, result);
+        for (Story story : result.getStories()) {
+            index(story);
+            emit(TaskEvent.Type.CREATED, story);
+        }
+        return result;
     }
 
     @Override
     public Epic updateEpic(long id, Epic epic) {
-        AbstractTask intersectEpic = checkIntersection(epic);
-        if (intersectEpic != null) throw new ManagerIntersectionTaskIntervalsException(epic, intersectEpic);
+        checkIntersection(epic, null);
+        final Epic currentEpic = epicsRepository.find(id);
+        if (currentEpic == null) throw new ManagerTaskNotFoundException(TypeTask.EPIC, id);
+        touchEpic(id);
+        final StateTask stateBefore = currentEpic.getStateTask();
+        final List<Story> storiesBefore = new ArrayList<>(currentEpic.getStories());
+        final Map<Long, StateTask> storyStatesBefore = new HashMap<>();
+        for (Story story : storiesBefore) {
+            storyStatesBefore.put(story.getId(), story.getStateTask());
+            unindex(story);
+        }
         final Epic result = epicsRepository.update(id, epic);
-        if (result == null) throw new ManagerTaskNotFoundException(TypeTask.EPIC, id);
+        for (Story story : storiesBefore) {
+            if (result.getStory(story.getId()) != null) continue;
+            dependencyGraph.remove(story.getId());
+            emit(TaskEvent.Type.DELETED, story);
+        }
+        // The stories the epic keeps are updated and the new ones created, the same way updateStory and addStory do
+        for (Story story : result.getStories()) {
+            index(story);
+            if (storyStatesBefore.containsKey(story.getId())) {
+                updated(story, storyStatesBefore.get(story.getId()));
+            } else {
+                idAllocator.advancePast(story.getId());
+                emit(TaskEvent.Type.CREATED, story);
+            }
+        }
+        searchIndex.add(result);
+        emit(TaskEvent.Type.UPDATED, result);
+        recountEpicState(result, stateBefore);
         return result;
     }
 
     @Override
     public Epic deleteEpic(long id) {
+        touchEpic(id);
         final Epic epic = epicsRepository.delete(id);
         if (epic == null) throw new ManagerTaskNotFoundException(TypeTask.EPIC, id);
         for (Story story : epic.getStories()) {
-            tasksSortedByStartTime.remove(story);
+            forget(story);
             historyManager.remove(id);
         }
         historyManager.remove(id);
+        count(epic, -1);
+        emit(TaskEvent.Type.DELETED, epic);
         return epic;
     }
 
     @Override
     public void deleteAllEpics() {
         for (Epic epic : epicsRepository.findAll()) {
+            touchEpic(epic.getId());
             for (Story story : epic.getStories()) {
                 historyManager.remove(story.getId());
-                tasksSortedByStartTime.remove(story);
+                forget(story);
             }
             historyManager.remove(epic.getId());
+            count(epic, -1);
+            emit(TaskEvent.Type.DELETED, epic);
         }
         epicsRepository.clear();
     }
@@ -143,110 +288,747 @@ public class InMemoryTaskManager implements TaskManager {
         }
         return stories;
     }
+
+    @Override
+    public Collection<Story> findAllStories(StateTask stateTask) {
+        return findIndexed(TypeTask.STORY, stateTask, epicsRepository::findStory);
+    }
+
     @Override
     public Story findStory(long id) {
+        final Story story = peekStory(id);
+        addToHistory(story);
+        return story;
+    }
+
+    protected Story peekStory(long id) {
         Story story = epicsRepository.findStory(id);
         if (story == null) throw new ManagerTaskNotFoundException(TypeTask.STORY, id);
-        historyManager.add(story);
         return story;
     }
 
     @Override
     public Story addStory(Story story) {
-        AbstractTask intersectStory = checkIntersection(story);
-        if (intersectStory != null) throw new ManagerIntersectionTaskIntervalsException(story, intersectStory);
-        final Story result = epicsRepository.addStory(story, epicsRepository.find(story.getEpicId()));
-        addToPrioritizedListStories(result);
+        checkIntersection(story, null);
+        touchEpic(story.getEpicId());
+        final Epic epic = epicsRepository.find(story.getEpicId());
+        final StateTask epicStateBefore = epic.getStateTask();
+        final Story result = epicsRepository.addStory(story, epic);
+        index(result);
+        emit(TaskEvent.Type.CREATED, result);
+        recountEpicState(epic, epicStateBefore);
+        return result;
+    }
+
+    @Override
+    public List<Story> addStories(Collection<Story> stories) {
+        for (Story story : stories) {
+            if (epicsRepository.find(story.getEpicId()) == null) {
+                throw new ManagerTaskNotFoundException(TypeTask.EPIC, story.getEpicId());
+            }
+        }
+        checkIntersections(stories);
+        final List<Story> result = new ArrayList<>(stories.size());
+        for (Story story : stories) {
+            touchEpic(story.getEpicId());
+            final Epic epic = epicsRepository.find(story.getEpicId());
+            final StateTask epicStateBefore = epic.getStateTask();
+            final Story newStory = epicsRepository.addStory(story, epic);
+            index(newStory);
+            emit(TaskEvent.Type.CREATED, newStory);
+            recountEpicState(epic, epicStateBefore);
+            result.add(newStory);
+        }
         return result;
     }
 
     @Override
     public Story updateStory(long id, Story story) {
-        AbstractTask intersectStory = checkIntersection(story);
-        if (intersectStory != null) throw new ManagerIntersectionTaskIntervalsException(story, intersectStory);
+        checkIntersection(story, id);
+        final Story currentStory = epicsRepository.findStory(id);
+        if (currentStory == null) throw new ManagerTaskNotFoundException(TypeTask.STORY, id);
+        final Epic currentEpic = epicsRepository.find(currentStory.getEpicId());
+        final Epic newEpic = epicsRepository.find(story.getEpicId());
+        if (newEpic == null) throw new ManagerTaskNotFoundException(TypeTask.EPIC, story.getEpicId());
+        touchEpic(currentEpic.getId());
+        touchEpic(newEpic.getId());
+        final StateTask currentEpicStateBefore = currentEpic.getStateTask();
+        final StateTask newEpicStateBefore = newEpic.getStateTask();
+        final StateTask stateBefore = currentStory.getStateTask();
+        unindex(currentStory);
         final Story result = epicsRepository.updateStory(id, story);
-        if (result == null) throw new ManagerTaskNotFoundException(TypeTask.STORY, id);
+        recountEpicState(currentEpic, currentEpicStateBefore);
+        if (newEpic != currentEpic) recountEpicState(newEpic, newEpicStateBefore);
+        index(result);
+        updated(result, stateBefore);
         return result;
     }
 
     @Override
     public Story deleteStory(long id) {
+        final Story currentStory = epicsRepository.findStory(id);
+        if (currentStory == null) throw new ManagerTaskNotFoundException(TypeTask.STORY, id);
+        touchEpic(currentStory.getEpicId());
+        final Epic epic = epicsRepository.find(currentStory.getEpicId());
+        final StateTask epicStateBefore = epic.getStateTask();
         final Story story = epicsRepository.deleteStory(id);
-        if (story == null) throw new ManagerTaskNotFoundException(TypeTask.STORY, id);
-        tasksSortedByStartTime.remove(story);
+        forget(story);
+        recountEpicState(epic, epicStateBefore);
         historyManager.remove(id);
         return story;
     }
 
     @Override
     public void deleteAllStories(Epic epic) {
-        for (Story story : epic.getStories()) {
+        touchEpic(epic.getId());
+        final Epic mapEpic = epicsRepository.find(epic.getId());
+        final StateTask epicStateBefore = mapEpic.getStateTask();
+        for (Story story : mapEpic.getStories()) {
             historyManager.remove(story.getId());
-            tasksSortedByStartTime.remove(story);
+            forget(story);
         }
-        epicsRepository.clearStories(epic);
+        epicsRepository.clearStories(mapEpic);
+        recountEpicState(mapEpic, epicStateBefore);
     }
 
     @Override
     public <T extends AbstractTask> void createRepository(Collection<T> abstractTasks,
                                                           Class<? extends AbstractTasksRepository<T>> tasksRepositoryClass) {
         if (EpicsRepository.class.equals(tasksRepositoryClass)) {
-            epicsRepository = new EpicsRepository();
+            for (Epic epic : epicsRepository.findAll()) {
+                touchEpic(epic.getId());
+                for (Story story : epic.getStories()) forget(story);
+                count(epic, -1);
+                emit(TaskEvent.Type.DELETED, epic);
+            }
+            epicsRepository = new EpicsRepository(idAllocator);
             for (T epic : abstractTasks) addEpic((Epic) epic);
         } else if (TasksRepository.class.equals(tasksRepositoryClass)) {
-            tasksRepository = new TasksRepository();
-            for (T task : abstractTasks) addTask((Task) task);
+            for (Task task : tasksRepository.findAll()) {
+                touchTask(task.getId());
+                forget(task);
+            }
+            tasksRepository = new TasksRepository(idAllocator);
+            final List<Task> tasks = new ArrayList<>(abstractTasks.size());
+            for (T task : abstractTasks) tasks.add((Task) task);
+            addTasks(tasks);
         } else {
             throw new IllegalArgumentException("Репозиотрия с таким именем класса " + tasksRepositoryClass + " не существует");
         }
     }
 
+    // The work runs against the manager as usual, but everything it changed is put back when it throws,
+    // and its events are only sent once it returns. A transaction begun inside another one joins it.
+    @Override
+    public <R> R inTransaction(Supplier<R> work) {
+        Objects.requireNonNull(work, "work must not be null");
+        if (isInTransaction()) return work.get();
+        final Transaction transaction = new Transaction();
+        this.transaction = transaction;
+        boolean committed = false;
+        try {
+            final R result = work.get();
+            committed = true;
+            return result;
+        } finally {
+            this.transaction = null;
+            if (committed) {
+                for (Runnable event : transaction.events) event.run();
+            } else {
+                rollBack(transaction);
+            }
+        }
+    }
+
+    protected boolean isInTransaction() {
+        final Transaction transaction = this.transaction;
+        return transaction != null && transaction.owner == Thread.currentThread();
+    }
+
+    // What a transaction puts back when its work fails. Every task and epic the work changes is copied the first
+    // time it does, an epic together with its stories, with the dependencies of all of them; one the work creates
+    // is kept as null. Recurring tasks are kept the same way and the history is copied once the work changes
+    // anything. It also holds the events until the work returns.
+    private final class Transaction {
+        final Thread owner = Thread.currentThread();
+        final Map<Long, Task> tasks = new HashMap<>();
+        final Map<Long, Epic> epics = new HashMap<>();
+        final Map<Long, List<Long>> blockers = new HashMap<>();
+        final Map<Long, RecurringTask> recurringTasks = new HashMap<>();
+        HistoryManager.Snapshot history;
+        final List<Runnable> events = new ArrayList<>();
+
+        void keepHistory() {
+            if (history == null) history = historyManager.snapshot();
+        }
+
+        // Edges of the item both ways, since removing it on rollback takes those to items nobody touched too.
+        void keepDependencies(long id) {
+            for (long blockerId : dependencyGraph.getBlockers(id)) {
+                blockers.computeIfAbsent(id, key -> new ArrayList<>()).add(blockerId);
+            }
+            for (long blockedId : dependencyGraph.getBlocked(id)) {
+                blockers.computeIfAbsent(blockedId, key -> new ArrayList<>()).add(id);
+            }
+        }
+    }
+
+    // Before the work of a transaction changes the task the first time.
+    private void touchTask(long id) {
+        if (!isInTransaction() || transaction.tasks.containsKey(id)) return;
+        transaction.keepHistory();
+        final Task task = tasksRepository.find(id);
+        transaction.tasks.put(id, task == null ? null : Task.createTask(id, task));
+        transaction.keepDependencies(id);
+    }
+
+    // Before the work of a transaction changes the epic or any of its stories the first time.
+    private void touchEpic(long id) {
+        if (!isInTransaction() || transaction.epics.containsKey(id)) return;
+        transaction.keepHistory();
+        final Epic epic = epicsRepository.find(id);
+        if (epic == null) {
+            transaction.epics.put(id, null);
+            return;
+        }
+        final List<Story> stories = new ArrayList<>();
+        for (Story story : epic.getStories()) {
+            stories.add(Story.createStory(story.getId(), story));
+            transaction.keepDependencies(story.getId());
+        }
+        transaction.epics.put(id, Epic.createEpic(id, epic.getName(), epic.getDescription(), stories,
+                epic.getDuration(), epic.getStartTime()));
+    }
+
+    private void touchById(long id) {
+        if (!isInTransaction()) return;
+        final Story story = epicsRepository.findStory(id);
+        if (story != null) {
+            touchEpic(story.getEpicId());
+        } else if (epicsRepository.find(id) != null) {
+            touchEpic(id);
+        } else {
+            touchTask(id);
+        }
+    }
+
+    // After the work of a transaction added the task or the epic.
+    private void touchCreated(AbstractTask task) {
+        if (!isInTransaction()) return;
+        transaction.keepHistory();
+        if (task.getTypeTask() == TypeTask.EPIC) {
+            transaction.epics.putIfAbsent(task.getId(), null);
+        } else {
+            transaction.tasks.putIfAbsent(task.getId(), null);
+        }
+    }
+
+    private void touchRecurringTask(long id, RecurringTask recurringTask) {
+        if (isInTransaction()) transaction.recurringTasks.putIfAbsent(id, recurringTask);
+    }
+
+    // Takes out what the work left of every item it touched and puts the copies back under their ids.
+    private void rollBack(Transaction transaction) {
+        for (long id : transaction.tasks.keySet()) {
+            final Task task = tasksRepository.delete(id);
+            if (task == null) continue;
+            unindex(task);
+            dependencyGraph.remove(id);
+        }
+        for (long id : transaction.epics.keySet()) {
+            final Epic epic = epicsRepository.delete(id);
+            if (epic == null) continue;
+            for (Story story : epic.getStories()) {
+                unindex(story);
+                dependencyGraph.remove(story.getId());
+            }
+            count(epic, -1);
+        }
+        for (long id : transaction.recurringTasks.keySet()) recurrenceSchedule.remove(id);
+        restore(withoutNulls(transaction.tasks.values()), withoutNulls(transaction.epics.values()),
+                withoutNulls(transaction.recurringTasks.values()), transaction.blockers);
+        if (transaction.history != null) transaction.history.restore(this::findById);
+    }
+
+    private static <T> List<T> withoutNulls(Collection<T> items) {
+        final List<T> result = new ArrayList<>(items.size());
+        for (T item : items) if (item != null) result.add(item);
+        return result;
+    }
+
+    // Puts tasks, epics with their stories and recurring tasks in place under their own ids, together with
+    // the blockers of the items, without events or history, and keeps the allocator from handing the ids out again.
+    protected void restore(Collection<Task> tasks, Collection<Epic> epics, Collection<RecurringTask> recurringTasks,
+                           Map<Long, List<Long>> blockers) {
+        for (Task task : tasks) {
+            index(tasksRepository.put(task));
+            idAllocator.advancePast(task.getId());
+        }
+        for (Epic epic : epics) {
+            count(epicsRepository.put(epic), 1);
+            idAllocator.advancePast(epic.getId());
+            for (Story story : epic.getStories()) {
+                index(story);
+                idAllocator.advancePast(story.getId());
+            }
+        }
+        for (RecurringTask recurringTask : recurringTasks) {
+            recurrenceSchedule.add(recurringTask);
+            idAllocator.advancePast(recurringTask.getId());
+        }
+        blockers.forEach((id, blockerIds) -> {
+            for (long blockerId : blockerIds) dependencyGraph.addDependency(id, blockerId);
+        });
+    }
+
+    // Listeners get the events on a thread of the event bus, in the order of the changes. An event holds the
+    // task, epic or story the manager keeps rather than a copy, so the bus never allocates; a listener that needs
+    // the fields as they were at the change has to reckon with later changes, only the id, the type and the states
+    // of a state change are fixed.
+    @Override
+    public void subscribe(TaskEventListener listener) {
+        eventBus.subscribe(listener);
+    }
+
+    @Override
+    public void unsubscribe(TaskEventListener listener) {
+        eventBus.unsubscribe(listener);
+    }
+
     @Override
     public long size() {
-        long numberAllStories = 0;
-        for (Epic epic : epicsRepository.findAll()) {
-            numberAllStories += epic.getStories().size();
+        return epicsRepository.size() + epicsRepository.storiesSize() + tasksRepository.size();
+    }
+
+    @Override
+    public TaskCounts counts() {
+        return new TaskCounts(typeStateCounters);
+    }
+
+    @Override
+    public boolean addDependency(long id, long blockerId) {
+        touchById(id);
+        touchById(blockerId);
+        return dependencyGraph.addDependency(id, blockerId);
+    }
+
+    @Override
+    public boolean removeDependency(long id, long blockerId) {
+        touchById(id);
+        touchById(blockerId);
+        return dependencyGraph.removeDependency(id, blockerId);
+    }
+
+    @Override
+    public List<Long> findBlockers(long id) {
+        return dependencyGraph.getBlockers(id);
+    }
+
+    @Override
+    public long getEarliestStart(long id) {
+        return dependencyGraph.getEarliestStart(id);
+    }
+
+    @Override
+    public DependencyGraph.CriticalPath getCriticalPath() {
+        return dependencyGraph.getCriticalPath();
+    }
+
+    @Override
+    public BoardAnalytics analytics() {
+        return BoardAnalytics.compute(tasksRepository.findAll(), epicsRepository.findAll(), counts());
+    }
+
+    @Override
+    public List<AbstractTask> search(String query, int offset, int limit) {
+        final List<AbstractTask> tasks = new ArrayList<>();
+        for (long id : searchIndex.search(query, offset, limit)) tasks.add(findById(id));
+        return tasks;
+    }
+
+    // Tasks and stories running at some moment of the day, by start time.
+    @Override
+    public List<AbstractTask> findByDay(LocalDate day) {
+        Objects.requireNonNull(day, "day must not be null");
+        final List<AbstractTask> tasks = new ArrayList<>();
+        for (long id : calendarIndex.onDay(day)) tasks.add(findById(id));
+        return withOccurrencesOn(day, tasks);
+    }
+
+    // Adds the occurrences of the recurring tasks running on the day and sorts the lot by start time.
+    protected List<AbstractTask> withOccurrencesOn(LocalDate day, List<AbstractTask> tasks) {
+        tasks.addAll(recurrenceSchedule.findOccurrences(day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+        tasks.sort(TaskQuery.Order.START_TIME.getComparator());
+        return tasks;
+    }
+
+    // The occurrences are checked against the tasks and the other recurring tasks without being expanded,
+    // and a task colliding with one is refused the same way as one colliding with another task.
+    @Override
+    public RecurringTask addRecurringTask(RecurringTask recurringTask) {
+        // The rule is checked under id 0, which no rule has, so a rejected one doesn't use up an id.
+        final RecurringTask checked = RecurringTask.createRecurringTask(0, recurringTask);
+        // No task ends after the latest end in the tree, so an endless rule is probed only up to there.
+        final LocalDateTime lastTaskEndTime = intervalTree.getMaxEndTime();
+        if (lastTaskEndTime != null) {
+            final LocalDateTime lastEndTime = checked.getUntil() == null
+                    || checked.getUntil().plus(checked.getDuration()).isAfter(lastTaskEndTime)
+                    ? lastTaskEndTime
+                    : checked.getUntil().plus(checked.getDuration());
+            for (AbstractTask task : intervalTree.findIntersections(checked.getStartTime(), lastEndTime)) {
+                final Task occurrence = RecurrenceSchedule.findIntersection(checked, task);
+                if (occurrence != null) throw new ManagerIntersectionTaskIntervalsException(occurrence, task);
+            }
+        }
+        final Map.Entry<Task, Task> occurrences = recurrenceSchedule.findIntersection(checked);
+        if (occurrences != null) {
+            throw new ManagerIntersectionTaskIntervalsException(occurrences.getKey(), occurrences.getValue());
+        }
+        final RecurringTask result = RecurringTask.createRecurringTask(idAllocator.next(), recurringTask);
+        touchRecurringTask(result.getId(), null);
+        recurrenceSchedule.add(result);
+        return result;
+    }
+
+    @Override
+    public RecurringTask findRecurringTask(long id) {
+        final RecurringTask recurringTask = recurrenceSchedule.find(id);
+        if (recurringTask == null) throw new ManagerTaskNotFoundException(TypeTask.TASK, id);
+        return recurringTask;
+    }
+
+    @Override
+    public List<RecurringTask> findAllRecurringTasks() {
+        return recurrenceSchedule.findAll();
+    }
+
+    @Override
+    public RecurringTask deleteRecurringTask(long id) {
+        final RecurringTask recurringTask = recurrenceSchedule.remove(id);
+        if (recurringTask == null) throw new ManagerTaskNotFoundException(TypeTask.TASK, id);
+        touchRecurringTask(id, recurringTask);
+        return recurringTask;
+    }
+
+    // The type, state, text and epic filters are answered by intersecting their bitmaps, smallest first.
+    // The candidates are then pulled lazily in the requested order until the page is full: by id straight
+    // from the bitmap, by start time either from the prioritized set or by sorting the candidates, whichever
+    // visits fewer items, and by name by sorting the candidates.
+    @Override
+    public List<AbstractTask> query(TaskQuery query) {
+        final LongBitmap candidates = candidates(query);
+        final Stream<AbstractTask> tasks;
+        switch (query.getOrder()) {
+            case ID:
+                final long from = query.getAfter() == null ? 0 : query.getAfter() + 1;
+                tasks = stream(candidates == null ? allIds(from) : candidates.iterator(from))
+                        .filter(query::matchesEpicAndTime);
+                break;
+            case START_TIME:
+                if (candidates == null || scanCost(query, candidates) < sortCost(candidates)) {
+                    tasks = scanPrioritized(query, candidates);
+                } else {
+                    tasks = sortCandidates(query, candidates.iterator());
+                }
+                break;
+            default:
+                tasks = sortCandidates(query, candidates == null ? allIds(0) : candidates.iterator());
+        }
+        return tasks.limit(query.getLimit()).collect(Collectors.toList());
+    }
+
+    // Null when no filter narrows down the items.
+    private LongBitmap candidates(TaskQuery query) {
+        final List<LongBitmap> bitmaps = new ArrayList<>();
+        if (query.getStateTask() != null) {
+            bitmaps.add(union(query.getTypes(), typeTask -> indexed(typeTask, query.getStateTask())));
+        } else if (query.getTypes().size() < TypeTask.values().length) {
+            bitmaps.add(union(query.getTypes(), typeIndex::get));
+        }
+        if (query.getText() != null) bitmaps.add(searchIndex.matches(query.getText()));
+        if (query.getEpicId() != null) {
+            final LongBitmap stories = new LongBitmap();
+            final Epic epic = epicsRepository.find(query.getEpicId());
+            if (epic != null) for (Story story : epic.getStories()) stories.add(story.getId());
+            bitmaps.add(stories);
+        }
+        if (bitmaps.isEmpty()) return null;
+        bitmaps.sort(Comparator.comparingLong(LongBitmap::cardinality));
+        LongBitmap result = bitmaps.get(0);
+        for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) result = LongBitmap.and(result, bitmaps.get(i));
+        return result;
+    }
+
+    // A single bitmap is returned as it is, without copying it.
+    private static LongBitmap union(Set<TypeTask> typeTasks, Function<TypeTask, LongBitmap> bitmapOfType) {
+        LongBitmap result = null;
+        for (TypeTask typeTask : typeTasks) {
+            final LongBitmap bitmap = bitmapOfType.apply(typeTask);
+            result = result == null ? bitmap : LongBitmap.or(result, bitmap);
+        }
+        return result == null ? new LongBitmap() : result;
+    }
+
+    // Every id from the given one on, merged from the type bitmaps as they are iterated.
+    private PrimitiveIterator.OfLong allIds(long from) {
+        return LongBitmap.unionIterator(typeIndex.values(), from);
+    }
+
+    // The prioritized set visits about limit * n / k items to find limit of k candidates spread over its n items.
+    private double scanCost(TaskQuery query, LongBitmap candidates) {
+        final double size = tasksSortedByStartTime.size();
+        return Math.min(size, (double) query.getLimit() * size / Math.max(1, candidates.cardinality()));
+    }
+
+    private static double sortCost(LongBitmap candidates) {
+        final long count = candidates.cardinality();
+        return (double) count * (Long.SIZE - Long.numberOfLeadingZeros(count));
+    }
+
+    // Epics are not in the prioritized set, so the matching ones are merged into the first page of the scan.
+    private Stream<AbstractTask> scanPrioritized(TaskQuery query, LongBitmap candidates) {
+        final AbstractTask after = cursor(query);
+        NavigableSet<AbstractTask> view = prioritizedTasksView(query.getFrom(), query.getTo());
+        if (after != null && !view.isEmpty()) {
+            // A subset view refuses a cursor outside of its range, so one beyond either end is resolved here.
+            if (START_TIME_ORDER.compare(after, view.last()) >= 0) view = Collections.emptyNavigableSet();
+            else if (START_TIME_ORDER.compare(after, view.first()) >= 0) view = view.tailSet(after, false);
+        }
+        final Stream<AbstractTask> tasks = view.stream()
+                .filter(task -> candidates == null || candidates.contains(task.getId()))
+                .filter(query::matchesEpicAndTime);
+        if (!query.getTypes().contains(TypeTask.EPIC)) return tasks;
+        final Stream<AbstractTask> epics = epicsRepository.findAll().stream()
+                .map(AbstractTask.class::cast)
+                .filter(epic -> candidates == null || candidates.contains(epic.getId()))
+                .filter(query::matchesEpicAndTime)
+                .filter(epic -> after == null || START_TIME_ORDER.compare(epic, after) > 0);
+        return Stream.concat(tasks.limit(query.getLimit()), epics).sorted(START_TIME_ORDER);
+    }
+
+    private Stream<AbstractTask> sortCandidates(TaskQuery query, PrimitiveIterator.OfLong candidates) {
+        final Comparator<AbstractTask> order = query.getOrder().getComparator();
+        final AbstractTask after = cursor(query);
+        return stream(candidates)
+                .filter(query::matchesEpicAndTime)
+                .filter(task -> after == null || order.compare(task, after) > 0)
+                .sorted(order);
+    }
+
+    private AbstractTask cursor(TaskQuery query) {
+        if (query.getAfter() == null) return null;
+        final AbstractTask after = findById(query.getAfter());
+        if (after == null) throw new ManagerTaskNotFoundException(query.getAfter());
+        return after;
+    }
+
+    private Stream<AbstractTask> stream(PrimitiveIterator.OfLong ids) {
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(ids,
+                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false)
+                .mapToObj(this::findById);
+    }
+
+    private AbstractTask findById(long id) {
+        final Task task = tasksRepository.find(id);
+        if (task != null) return task;
+        final Epic epic = epicsRepository.find(id);
+        return epic != null ? epic : epicsRepository.findStory(id);
+    }
+
+    // Ids of the items of the type in the state, in ascending order. This is the index itself, so it must
+    // not be changed and only be read while the manager doesn't change.
+    protected LongBitmap indexed(TypeTask typeTask, StateTask stateTask) {
+        Objects.requireNonNull(stateTask, "stateTask must not be null");
+        return typeStateIndex[typeTask.ordinal()][stateTask.ordinal()];
+    }
+
+    private <T extends AbstractTask> List<T> findIndexed(TypeTask typeTask, StateTask stateTask, LongFunction<T> find) {
+        final LongBitmap ids = indexed(typeTask, stateTask);
+        final List<T> tasks = new ArrayList<>((int) ids.cardinality());
+        for (PrimitiveIterator.OfLong iterator = ids.iterator(); iterator.hasNext(); ) {
+            tasks.add(find.apply(iterator.nextLong()));
         }
-        return epicsRepository.size() + numberAllStories + tasksRepository.size();
+        return tasks;
     }
 
     public List<AbstractTask> getPrioritizedTasks() {
         return new ArrayList<>(tasksSortedByStartTime);
     }
 
+    // Occurrences of the recurring tasks starting in the window are merged in when it has a bound.
+    @Override
+    public List<AbstractTask> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        if (limit < 0) throw new IllegalArgumentException("limit must not be negative");
+        return recurrenceSchedule.merge(prioritizedTasksView(from, to), from, to, limit);
+    }
+
+    // A view over the tasks starting in [from, to); a missing bound leaves that side open,
+    // but tasks without a startTime only show up when both bounds are missing.
+    protected NavigableSet<AbstractTask> prioritizedTasksView(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) return Collections.unmodifiableNavigableSet(tasksSortedByStartTime);
+        NavigableSet<AbstractTask> view = tasksSortedByStartTime.headSet(boundaryTask(to), false);
+        if (from != null) view = view.tailSet(boundaryTask(from), true);
+        return Collections.unmodifiableNavigableSet(view);
+    }
+
+    protected static Task boundaryTask(LocalDateTime startTime) {
+        return Task.createTask(Long.MIN_VALUE, "", "", null, null, startTime);
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        Objects.requireNonNull(duration, "duration must not be null");
+        Objects.requireNonNull(notBefore, "notBefore must not be null");
+        if (duration.isNegative()) throw new IllegalArgumentException("duration must not be negative");
+        return intervalTree.findFreeSlot(duration, notBefore);
+    }
 
-    private void addToPrioritizedListTasks(Task task) {
+    // Keeps the prioritized list, the interval tree, the counters and the indexes in step with the repositories.
+    private void index(AbstractTask task) {
         tasksSortedByStartTime.add(task);
+        intervalTree.add(task);
+        calendarIndex.add(task);
+        count(task, 1);
+        dependencyGraph.put(task.getId(), task.getDuration() == null ? 0 : task.getDuration().toMinutes());
     }
 
-    private void addToPrioritizedListStories(Story story) {
-        tasksSortedByStartTime.add(story);
+    // Unlike unindex, which an update follows with index, this is for good and drops the dependencies too.
+    private void forget(AbstractTask task) {
+        unindex(task);
+        dependencyGraph.remove(task.getId());
+        emit(TaskEvent.Type.DELETED, task);
     }
 
-    private AbstractTask checkIntersection(AbstractTask checkedTask) {
-        final TreeSet<AbstractTask> prioritizedTasks = tasksSortedByStartTime;
-        if (prioritizedTasks.size() > 0) {
-            final LocalDateTime startTimeCheckedTask = checkedTask.getStartTime();
-            final LocalDateTime endTimeCheckedTask = checkedTask.getEndTime();
-            if (startTimeCheckedTask != null) {
-                for (AbstractTask prioritizedTask : prioritizedTasks) {
-                    final LocalDateTime startTimePrioritizedTask = prioritizedTask.getStartTime();
-                    final LocalDateTime endTimePrioritizedTask = prioritizedTask.getEndTime();
-                    if (startTimePrioritizedTask != null && intersected(startTimeCheckedTask, endTimeCheckedTask,
-                            startTimePrioritizedTask, endTimePrioritizedTask)) {
-                        return prioritizedTask;
-                    }
-                }
-            }
+    private void unindex(AbstractTask task) {
+        tasksSortedByStartTime.remove(task);
+        intervalTree.remove(task.getId());
+        calendarIndex.remove(task.getId());
+        count(task, -1);
+    }
+
+    private void count(AbstractTask task, int delta) {
+        changed(task);
+        final StateTask stateTask = stateOf(task.getStateTask());
+        typeStateCounters[task.getTypeTask().ordinal()][stateTask.ordinal()] += delta;
+        if (delta > 0) {
+            typeIndex.get(task.getTypeTask()).add(task.getId());
+            typeStateIndex[task.getTypeTask().ordinal()][stateTask.ordinal()].add(task.getId());
+            searchIndex.add(task);
+        } else {
+            typeIndex.get(task.getTypeTask()).remove(task.getId());
+            typeStateIndex[task.getTypeTask().ordinal()][stateTask.ordinal()].remove(task.getId());
+            searchIndex.remove(task.getId());
         }
-        return null;
     }
 
-    private boolean intersected(LocalDateTime start1, LocalDateTime end1, LocalDateTime start2, LocalDateTime end2) {
-        if (start1.isAfter(start2) && start1.isBefore(end2)) {
-            return true;
+    private void recountEpicState(Epic epic, StateTask stateBefore) {
+        if (epic == null) return;
+        changed(epic);
+        if (stateOf(epic.getStateTask()) == stateOf(stateBefore)) return;
+        emit(TaskEvent.Type.STATE_CHANGED, epic, stateOf(stateBefore), stateOf(epic.getStateTask()));
+        typeStateCounters[TypeTask.EPIC.ordinal()][stateOf(stateBefore).ordinal()]--;
+        typeStateCounters[TypeTask.EPIC.ordinal()][stateOf(epic.getStateTask()).ordinal()]++;
+        typeStateIndex[TypeTask.EPIC.ordinal()][stateOf(stateBefore).ordinal()].remove(epic.getId());
+        typeStateIndex[TypeTask.EPIC.ordinal()][stateOf(epic.getStateTask()).ordinal()].add(epic.getId());
+    }
+
+    // Called for every task, epic and story that was added, changed or removed.
+    protected void changed(AbstractTask task) {
+    }
+
+    private void emit(TaskEvent.Type type, AbstractTask task) {
+        emit(type, task, null, null);
+    }
+
+    // Events of a transaction wait for it to commit and are dropped when it rolls back.
+    private void emit(TaskEvent.Type type, AbstractTask task, StateTask stateBefore, StateTask stateAfter) {
+        if (isInTransaction()) {
+            transaction.events.add(() -> eventBus.publish(type, task, stateBefore, stateAfter));
+        } else {
+            eventBus.publish(type, task, stateBefore, stateAfter);
         }
-        return start2.isAfter(start1) && start2.isBefore(end1);
+    }
+
+    private void updated(AbstractTask task, StateTask stateBefore) {
+        emit(TaskEvent.Type.UPDATED, task);
+        if (stateOf(task.getStateTask()) != stateOf(stateBefore)) {
+            emit(TaskEvent.Type.STATE_CHANGED, task, stateOf(stateBefore), stateOf(task.getStateTask()));
+        }
+    }
+
+    protected void addToHistory(AbstractTask task) {
+        if (isInTransaction()) transaction.keepHistory();
+        historyManager.add(task);
+        emit(TaskEvent.Type.HISTORY_TOUCHED, task);
+    }
+
+    // A task without a state is treated as a new one, the same way the constructors of the models do.
+    private static StateTask stateOf(StateTask stateTask) {
+        return stateTask == null ? StateTask.NEW : stateTask;
+    }
+
+    private void checkIntersection(AbstractTask checkedTask, Long ownId) {
+        final List<AbstractTask> intersectedTasks = findIntersections(checkedTask, ownId);
+        if (!intersectedTasks.isEmpty()) {
+            throw new ManagerIntersectionTaskIntervalsException(checkedTask, intersectedTasks);
+        }
+    }
+
+    // Sorts the batch once and sweeps it: a task intersects an earlier-starting one of the batch
+    // iff the latest endTime among strictly earlier starts is after its startTime.
+    // Every task is then probed against the interval tree, in parallel for big batches.
+    private void checkIntersections(Collection<? extends AbstractTask> batch) {
+        final AbstractTask[] scheduledTasks = batch.stream()
+                .filter(task -> task.getStartTime() != null)
+                .toArray(AbstractTask[]::new);
+        final boolean parallel = scheduledTasks.length >= PARALLEL_BATCH_THRESHOLD;
+        final Comparator<AbstractTask> byStartTime = Comparator.comparing(AbstractTask::getStartTime);
+        if (parallel) {
+            Arrays.parallelSort(scheduledTasks, byStartTime);
+        } else {
+            Arrays.sort(scheduledTasks, byStartTime);
+        }
+
+        AbstractTask latestEndingTask = null;
+        AbstractTask latestEndingTaskOfGroup = null;
+        LocalDateTime groupStartTime = null;
+        for (AbstractTask task : scheduledTasks) {
+            final LocalDateTime startTime = task.getStartTime();
+            if (!startTime.equals(groupStartTime)) {
+                latestEndingTask = latestEnding(latestEndingTask, latestEndingTaskOfGroup);
+                latestEndingTaskOfGroup = null;
+                groupStartTime = startTime;
+            }
+            if (latestEndingTask != null && latestEndingTask.getEndTime().isAfter(startTime)) {
+                throw new ManagerIntersectionTaskIntervalsException(task, latestEndingTask);
+            }
+            latestEndingTaskOfGroup = latestEnding(latestEndingTaskOfGroup, task);
+        }
+
+        final Stream<AbstractTask> stream = parallel
+                ? Arrays.stream(scheduledTasks).parallel()
+                : Arrays.stream(scheduledTasks);
+        stream.map(task -> Map.entry(task, findIntersections(task, null)))
+                .filter(entry -> !entry.getValue().isEmpty())
+                .findFirst()
+                .ifPresent(entry -> {
+                    throw new ManagerIntersectionTaskIntervalsException(entry.getKey(), entry.getValue());
+                });
+    }
+
+    // The tasks from the interval tree and an occurrence of a recurring task, found arithmetically.
+    private List<AbstractTask> findIntersections(AbstractTask task, Long ownId) {
+        final List<AbstractTask> intersections =
+                intervalTree.findIntersections(task.getStartTime(), task.getEndTime(), ownId);
+        final Task occurrence = recurrenceSchedule.findIntersection(task.getStartTime(), task.getEndTime());
+        if (occurrence != null) intersections.add(occurrence);
+        return intersections;
+    }
+
+    private static AbstractTask latestEnding(AbstractTask task1, AbstractTask task2) {
+        if (task1 == null) return task2;
+        if (task2 == null) return task1;
+        return task2.getEndTime().isAfter(task1.getEndTime()) ? task2 : task1;
     }
 
     public TasksRepository getTasksRepository() {
@@ -257,7 +1039,17 @@ public class InMemoryTaskManager implements TaskManager {
         return epicsRepository;
     }
 
-    public InMemoryHistoryManager getHistoryManager() {
+    @Override
+    public HistoryManager getHistoryManager() {
         return historyManager;
     }
+
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    @Override
+    public void close() {
+        eventBus.close();
+    }
 }
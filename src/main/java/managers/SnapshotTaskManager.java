@@ -0,0 +1,315 @@
+package managers;
+
+import exceptions.ManagerTaskNotFoundException;
+import managers.snapshot.PersistentTreeMap;
+import managers.snapshot.TaskSnapshot;
+import managers.query.TaskQuery;
+import managers.stats.BoardAnalytics;
+import managers.stats.TaskCounts;
+import models.enums.StateTask;
+import models.enums.TypeTask;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import utils.IdAllocator;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Writers still go through the write lock of ConcurrentTaskManager, but before releasing it they publish
+// a new TaskSnapshot built from the previous one by replacing only what the write changed.
+// Reads are served from the latest published snapshot without any lock, so they never wait for writers
+// nor see a transaction before it commits.
+// A thread inside a write, e.g. a transaction, reads the live state instead, so it sees its own writes
+// before they are published.
+// Reads hand out the snapshot's own tasks without copying them. They are frozen, so changing one throws
+// UnsupportedOperationException instead of changing the manager or what other readers see.
+// Only the state filters, search and queries take the read lock, to read ids from the live indexes while they match the snapshot,
+// and the finds take it to record the view.
+public class SnapshotTaskManager extends ConcurrentTaskManager {
+    // Replaced rather than cleared after publishing, since a cleared set still walks its grown table.
+    private Set<Long> changedTasks = new HashSet<>();
+    private Set<Long> changedEpics = new HashSet<>();
+    private Set<Long> changedStories = new HashSet<>();
+    // Writes nested in a transaction leave publishing to the outermost one.
+    private int writeDepth;
+    private volatile TaskSnapshot snapshot = new TaskSnapshot(
+            PersistentTreeMap.empty(Comparator.naturalOrder()),
+            PersistentTreeMap.empty(Comparator.naturalOrder()),
+            PersistentTreeMap.empty(Comparator.naturalOrder()),
+            PersistentTreeMap.empty(Comparator.naturalOrder()),
+            PersistentTreeMap.empty(START_TIME_ORDER),
+            new TaskCounts(typeStateCounters));
+
+    public SnapshotTaskManager() {
+        super();
+    }
+
+    public SnapshotTaskManager(IdAllocator idAllocator) {
+        super(idAllocator);
+    }
+
+    public TaskSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public Collection<Task> findAllTasks() {
+        if (isWriting()) return super.findAllTasks();
+        return Collections.unmodifiableCollection(snapshot.getTasks().values());
+    }
+
+    @Override
+    public Collection<Task> findAllTasks(StateTask stateTask) {
+        if (isWriting()) return super.findAllTasks(stateTask);
+        return findIndexed(TypeTask.TASK, stateTask, Task.class);
+    }
+
+    @Override
+    public Task findTask(long id) {
+        if (isWriting()) return super.findTask(id);
+        final Task task = snapshot.getTasks().get(id);
+        if (task == null) throw new ManagerTaskNotFoundException(TypeTask.TASK, id);
+        recordView(id);
+        return task;
+    }
+
+    @Override
+    public Collection<Epic> findAllEpics() {
+        if (isWriting()) return super.findAllEpics();
+        final TaskSnapshot snapshot = this.snapshot;
+        final List<Epic> epics = new ArrayList<>();
+        for (Epic epic : snapshot.getEpics().values()) epics.add(snapshot.findEpic(epic.getId()));
+        return epics;
+    }
+
+    @Override
+    public Collection<Epic> findAllEpics(StateTask stateTask) {
+        if (isWriting()) return super.findAllEpics(stateTask);
+        return findIndexed(TypeTask.EPIC, stateTask, Epic.class);
+    }
+
+    @Override
+    public Epic findEpic(long id) {
+        if (isWriting()) return super.findEpic(id);
+        final Epic epic = snapshot.findEpic(id);
+        if (epic == null) throw new ManagerTaskNotFoundException(TypeTask.EPIC, id);
+        recordView(id);
+        return epic;
+    }
+
+    @Override
+    public Collection<Story> findAllStories(long epicId) {
+        if (isWriting()) return super.findAllStories(epicId);
+        final TaskSnapshot snapshot = this.snapshot;
+        if (snapshot.getEpics().get(epicId) == null) throw new ManagerTaskNotFoundException(TypeTask.EPIC, epicId);
+        final PersistentTreeMap<Long, Story> epicStories = snapshot.getStories().get(epicId);
+        return epicStories == null ? List.of() : Collections.unmodifiableCollection(epicStories.values());
+    }
+
+    @Override
+    public Collection<Story> findAllStories() {
+        if (isWriting()) return super.findAllStories();
+        final List<Story> stories = new ArrayList<>();
+        for (PersistentTreeMap<Long, Story> epicStories : snapshot.getStories().values()) {
+            stories.addAll(epicStories.values());
+        }
+        return stories;
+    }
+
+    @Override
+    public Collection<Story> findAllStories(StateTask stateTask) {
+        if (isWriting()) return super.findAllStories(stateTask);
+        return findIndexed(TypeTask.STORY, stateTask, Story.class);
+    }
+
+    @Override
+    public Story findStory(long id) {
+        if (isWriting()) return super.findStory(id);
+        final AbstractTask story = snapshot.getById().get(id);
+        if (story == null || story.getTypeTask() != TypeTask.STORY) {
+            throw new ManagerTaskNotFoundException(TypeTask.STORY, id);
+        }
+        recordView(id);
+        return (Story) story;
+    }
+
+    @Override
+    public List<AbstractTask> search(String query, int offset, int limit) {
+        if (isWriting()) return super.search(query, offset, limit);
+        return read(() -> searchIndex.search(query, offset, limit).stream()
+                .map(snapshot::find)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<AbstractTask> query(TaskQuery query) {
+        if (isWriting()) return super.query(query);
+        return read(() -> super.query(query).stream()
+                .map(task -> snapshot.find(task.getId()))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<AbstractTask> findByDay(LocalDate day) {
+        if (isWriting()) return super.findByDay(day);
+        Objects.requireNonNull(day, "day must not be null");
+        return withOccurrencesOn(day, read(() -> {
+            final List<AbstractTask> tasks = new ArrayList<>();
+            for (long id : calendarIndex.onDay(day)) tasks.add(snapshot.find(id));
+            return tasks;
+        }));
+    }
+
+    @Override
+    public BoardAnalytics analytics() {
+        if (isWriting()) return super.analytics();
+        final TaskSnapshot snapshot = this.snapshot;
+        final List<Epic> epics = new ArrayList<>();
+        for (Epic epic : snapshot.getEpics().values()) epics.add(snapshot.findEpic(epic.getId()));
+        return BoardAnalytics.compute(snapshot.getTasks().values(), epics, snapshot.getCounts());
+    }
+
+    @Override
+    public long size() {
+        if (isWriting()) return super.size();
+        return snapshot.size();
+    }
+
+    @Override
+    public TaskCounts counts() {
+        if (isWriting()) return super.counts();
+        return snapshot.getCounts();
+    }
+
+    @Override
+    public List<AbstractTask> getPrioritizedTasks() {
+        if (isWriting()) return super.getPrioritizedTasks();
+        return new ArrayList<>(snapshot.getPrioritized().values());
+    }
+
+    @Override
+    public List<AbstractTask> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        if (isWriting()) return super.getPrioritizedTasks(from, to, limit);
+        if (limit < 0) throw new IllegalArgumentException("limit must not be negative");
+        final Collection<AbstractTask> view = from == null && to == null
+                ? snapshot.getPrioritized().values()
+                : snapshot.getPrioritized().values(from == null ? null : boundaryTask(from), boundaryTask(to));
+        return recurrenceSchedule.merge(view, from, to, limit);
+    }
+
+    // The view is recorded under the read lock, where no delete runs and the latest snapshot is the board,
+    // and only while the item is still on it.
+    private void recordView(long id) {
+        read(() -> {
+            final AbstractTask current = snapshot.find(id);
+            if (current != null) addToHistory(current);
+            return null;
+        });
+    }
+
+    private <T extends AbstractTask> List<T> findIndexed(TypeTask typeTask, StateTask stateTask, Class<T> type) {
+        return read(() -> {
+            final TaskSnapshot snapshot = this.snapshot;
+            final List<T> tasks = new ArrayList<>();
+            for (PrimitiveIterator.OfLong ids = indexed(typeTask, stateTask).iterator(); ids.hasNext(); ) {
+                tasks.add(type.cast(snapshot.find(ids.nextLong())));
+            }
+            return tasks;
+        });
+    }
+
+    @Override
+    protected <R> R write(Supplier<R> action) {
+        return super.write(() -> {
+            writeDepth++;
+            try {
+                return action.get();
+            } finally {
+                if (--writeDepth == 0) publish();
+            }
+        });
+    }
+
+    @Override
+    protected void changed(AbstractTask task) {
+        switch (task.getTypeTask()) {
+            case TASK:
+                changedTasks.add(task.getId());
+                break;
+            case EPIC:
+                changedEpics.add(task.getId());
+                break;
+            case STORY:
+                changedStories.add(task.getId());
+                changedEpics.add(((Story) task).getEpicId());
+                break;
+        }
+    }
+
+    // Costs a logarithmic number of new nodes per changed item: a story is put in the map of its epic
+    // and only the name and the description of an epic are copied, never its stories.
+    private void publish() {
+        final TaskSnapshot current = snapshot;
+        PersistentTreeMap<Long, Task> tasks = current.getTasks();
+        PersistentTreeMap<Long, Epic> epics = current.getEpics();
+        PersistentTreeMap<Long, PersistentTreeMap<Long, Story>> stories = current.getStories();
+        PersistentTreeMap<Long, AbstractTask> byId = current.getById();
+        PersistentTreeMap<AbstractTask, AbstractTask> prioritized = current.getPrioritized();
+
+        for (long id : changedTasks) {
+            final AbstractTask previous = byId.get(id);
+            if (previous != null) prioritized = prioritized.remove(previous);
+            final Task task = tasksRepository.find(id);
+            if (task == null) {
+                tasks = tasks.remove(id);
+                byId = byId.remove(id);
+            } else {
+                final Task copy = (Task) TaskSnapshot.frozenCopyOf(task);
+                tasks = tasks.put(id, copy);
+                byId = byId.put(id, copy);
+                prioritized = prioritized.put(copy, copy);
+            }
+        }
+        for (long id : changedStories) {
+            final Story previous = (Story) byId.get(id);
+            if (previous != null) {
+                prioritized = prioritized.remove(previous);
+                final PersistentTreeMap<Long, Story> epicStories = stories.get(previous.getEpicId());
+                if (epicStories != null) stories = stories.put(previous.getEpicId(), epicStories.remove(id));
+            }
+            final Story story = epicsRepository.findStory(id);
+            if (story == null) {
+                byId = byId.remove(id);
+            } else {
+                final Story copy = (Story) TaskSnapshot.frozenCopyOf(story);
+                byId = byId.put(id, copy);
+                prioritized = prioritized.put(copy, copy);
+                final PersistentTreeMap<Long, Story> epicStories = stories.get(copy.getEpicId());
+                stories = stories.put(copy.getEpicId(), (epicStories == null
+                        ? PersistentTreeMap.<Long, Story>empty(Comparator.naturalOrder())
+                        : epicStories).put(id, copy));
+            }
+        }
+        for (long id : changedEpics) {
+            final Epic epic = epicsRepository.find(id);
+            if (epic == null) {
+                epics = epics.remove(id);
+                stories = stories.remove(id);
+            } else {
+                final Epic copy = Epic.createEpic(id, epic.getName(), epic.getDescription());
+                copy.freeze();
+                epics = epics.put(id, copy);
+            }
+        }
+
+        changedTasks = new HashSet<>();
+        changedEpics = new HashSet<>();
+        changedStories = new HashSet<>();
+        snapshot = new TaskSnapshot(tasks, epics, stories, byId, prioritized, new TaskCounts(typeStateCounters));
+    }
+}
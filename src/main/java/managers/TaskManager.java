@@ -1,20 +1,37 @@
 package managers;
 
+import managers.events.TaskEventListener;
+import managers.history.HistoryManager;
+import managers.query.TaskQuery;
+import managers.stats.BoardAnalytics;
+import managers.stats.TaskCounts;
+import models.enums.StateTask;
 import models.repositories.tasks.AbstractTasksRepository;
+import models.repositories.tasks.DependencyGraph;
 import models.tasks.AbstractTask;
 import models.tasks.Epic;
+import models.tasks.RecurringTask;
 import models.tasks.Story;
 import models.tasks.Task;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
 
 public interface TaskManager {
     Collection<Task> findAllTasks();
 
+    Collection<Task> findAllTasks(StateTask stateTask);
+
     Task findTask(long id);
 
     Task addTask(Task task);
 
+    List<Task> addTasks(Collection<Task> tasks);
+
     Task updateTask(long id, Task task);
 
     Task deleteTask(long id);
@@ -24,6 +41,8 @@ public interface TaskManager {
 
     Collection<Epic> findAllEpics();
 
+    Collection<Epic> findAllEpics(StateTask stateTask);
+
     Epic findEpic(long id);
 
     Epic addEpic(Epic epic);
@@ -36,10 +55,14 @@ public interface TaskManager {
 
     Collection<Story> findAllStories(long epicId);
 
+    Collection<Story> findAllStories(StateTask stateTask);
+
     Story findStory(long id);
 
     Story addStory(Story story);
 
+    List<Story> addStories(Collection<Story> stories);
+
     Story updateStory(long id, Story story);
 
     Story deleteStory(long id);
@@ -49,5 +72,48 @@ public interface TaskManager {
     <T extends AbstractTask> void createRepository(Collection<T> abstractTasks,
                                                    Class<? extends AbstractTasksRepository<T>> tasksRepositoryClass);
 
+    List<AbstractTask> search(String query, int offset, int limit);
+
+    List<AbstractTask> query(TaskQuery query);
+
+    List<AbstractTask> findByDay(LocalDate day);
+
+    List<AbstractTask> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit);
+
+    LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore);
+
+    HistoryManager getHistoryManager();
+
+    RecurringTask addRecurringTask(RecurringTask recurringTask);
+
+    RecurringTask findRecurringTask(long id);
+
+    List<RecurringTask> findAllRecurringTasks();
+
+    RecurringTask deleteRecurringTask(long id);
+
+    BoardAnalytics analytics();
+
+    boolean addDependency(long id, long blockerId);
+
+    boolean removeDependency(long id, long blockerId);
+
+    List<Long> findBlockers(long id);
+
+    long getEarliestStart(long id);
+
+    DependencyGraph.CriticalPath getCriticalPath();
+
+    <R> R inTransaction(Supplier<R> work);
+
+    void subscribe(TaskEventListener listener);
+
+    void unsubscribe(TaskEventListener listener);
+
     long size();
+
+    TaskCounts counts();
+
+    // Stops the thread handing events to the listeners, for a manager that is no longer used.
+    void close();
 }
@@ -0,0 +1,166 @@
+package managers.boards;
+
+import managers.FileBackedTaskManager;
+import managers.TaskManager;
+import utils.AtomicIdAllocator;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// Hosts many boards in one process. A board is loaded by the loader on first access and kept while
+// the boards in memory hold at most maxResidentTasks tasks (an empty board counts as one); past that
+// the least recently used boards nobody holds a lease on are dropped and get loaded again on their next access.
+// Dropping doesn't save anything, so the loader has to give boards that persist every change themselves.
+// A dropped board is closed, which stops its event dispatcher, once the registry has let go of its lock.
+// Loading runs outside the lock of the registry; others asking for the same board wait for that load.
+public class BoardRegistry {
+    private static final Pattern BOARD_KEY = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final Function<String, ? extends TaskManager> loader;
+    private final long maxResidentTasks;
+    private final LinkedHashMap<String, Board> boards = new LinkedHashMap<>(16, 0.75F, true);
+
+    public BoardRegistry(Function<String, ? extends TaskManager> loader, long maxResidentTasks) {
+        if (maxResidentTasks <= 0) throw new IllegalArgumentException("maxResidentTasks must be positive");
+        this.loader = Objects.requireNonNull(loader, "loader must not be null");
+        this.maxResidentTasks = maxResidentTasks;
+    }
+
+    // Every board has ids of its own, so a board loaded again keeps the ids it was saved with.
+    public static BoardRegistry fileBacked(Path directory, long maxResidentTasks) {
+        return new BoardRegistry(
+                key -> FileBackedTaskManager.getInstance(directory.resolve(key + ".csv"), new AtomicIdAllocator()),
+                maxResidentTasks);
+    }
+
+    // The board stays in memory until the lease is closed, so close it once the request is done with the board.
+    public Lease acquire(String key) {
+        if (key == null || !BOARD_KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("The board key must consist of letters, digits, '_' or '-'");
+        }
+        final Board board;
+        final boolean load;
+        synchronized (this) {
+            final Board resident = boards.get(key);
+            load = resident == null;
+            board = load ? new Board() : resident;
+            if (load) boards.put(key, board);
+            board.users++;
+        }
+        if (load) {
+            try {
+                board.manager.complete(loader.apply(key));
+            } catch (RuntimeException | Error e) {
+                board.manager.completeExceptionally(e);
+            }
+        }
+        final TaskManager manager;
+        try {
+            manager = board.manager.join();
+        } catch (CompletionException e) {
+            synchronized (this) {
+                board.users--;
+                boards.remove(key, board);
+            }
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw (RuntimeException) e.getCause();
+        }
+        final long weight = load ? weight(manager) : 0;
+        final List<Board> evicted;
+        synchronized (this) {
+            if (load) board.weight = weight;
+            evicted = evictIdleBoards();
+        }
+        close(evicted);
+        return new Lease(board, manager);
+    }
+
+    public synchronized boolean isResident(String key) {
+        return boards.containsKey(key);
+    }
+
+    public synchronized Set<String> getResidentBoards() {
+        return new LinkedHashSet<>(boards.keySet());
+    }
+
+    // Drops the board unless somebody holds a lease on it.
+    public boolean evict(String key) {
+        final Board board;
+        synchronized (this) {
+            board = boards.get(key);
+            if (board == null || board.users > 0) return false;
+            boards.remove(key);
+        }
+        close(List.of(board));
+        return true;
+    }
+
+    private void release(Board board) {
+        final long weight = weight(board.manager.join());
+        final List<Board> evicted;
+        synchronized (this) {
+            board.weight = weight;
+            board.users--;
+            evicted = evictIdleBoards();
+        }
+        close(evicted);
+    }
+
+    private List<Board> evictIdleBoards() {
+        final List<Board> evicted = new ArrayList<>();
+        long residentTasks = 0;
+        for (Board board : boards.values()) residentTasks += board.weight;
+        final Iterator<Board> leastRecentlyUsed = boards.values().iterator();
+        while (residentTasks > maxResidentTasks && leastRecentlyUsed.hasNext()) {
+            final Board board = leastRecentlyUsed.next();
+            if (board.users > 0) continue;
+            residentTasks -= board.weight;
+            leastRecentlyUsed.remove();
+            evicted.add(board);
+        }
+        return evicted;
+    }
+
+    // Closing waits for the dispatcher to hand out the events already published, so it runs outside the lock.
+    private static void close(List<Board> evicted) {
+        for (Board board : evicted) board.manager.join().close();
+    }
+
+    private static long weight(TaskManager board) {
+        return Math.max(1, board.size());
+    }
+
+    // The weight is the size of the board when it was last loaded or released, so the registry
+    // never has to ask a board that may be busy while it holds its own lock.
+    private static final class Board {
+        final CompletableFuture<TaskManager> manager = new CompletableFuture<>();
+        int users;
+        long weight = 1;
+    }
+
+    public final class Lease implements AutoCloseable {
+        private final Board board;
+        private final TaskManager manager;
+        private boolean closed;
+
+        private Lease(Board board, TaskManager manager) {
+            this.board = board;
+            this.manager = manager;
+        }
+
+        public TaskManager getManager() {
+            return manager;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            release(board);
+        }
+    }
+}
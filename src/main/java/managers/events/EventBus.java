@@ -0,0 +1,189 @@
+package managers.events;
+
+import models.enums.StateTask;
+import models.tasks.AbstractTask;
+
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Hands events to the listeners on a thread of its own through a ring of slots allocated when the first
+// listener subscribes. Publishing claims the next position, fills its slot in place and marks it published,
+// so it never allocates and never waits for the listeners: when they fall a whole ring behind, the oldest
+// events are written over and the listeners are told how many they missed. Before anyone subscribes
+// publishing does nothing at all.
+// Every slot holds the position last published into it, or its complement while a publisher writes it,
+// which lets the dispatcher notice a slot written over while it was copying it.
+public class EventBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 4096;
+    private static final int YIELDS_BEFORE_PARKING = 100;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final int capacity;
+    private final List<TaskEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    // Positions start at the capacity, so the position of the previous round of a slot is never negative.
+    private final AtomicLong claimed;
+    private Slot[] slots;
+    private AtomicLongArray published;
+    private volatile Thread dispatcher;
+    private volatile boolean waiting;
+    private volatile boolean closed;
+
+    private static final class Slot {
+        TaskEvent.Type type;
+        AbstractTask task;
+        StateTask stateBefore;
+        StateTask stateAfter;
+    }
+
+    public EventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EventBus(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, at least 2");
+        }
+        this.capacity = capacity;
+        this.claimed = new AtomicLong(capacity);
+    }
+
+    public synchronized void subscribe(TaskEventListener listener) {
+        if (closed) throw new IllegalStateException("the event bus is closed");
+        listeners.add(Objects.requireNonNull(listener, "listener must not be null"));
+        if (dispatcher != null) return;
+        slots = new Slot[capacity];
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            published.set(i, i);
+        }
+        final long start = claimed.get();
+        final Thread thread = new Thread(() -> dispatch(start), "task-events");
+        thread.setDaemon(true);
+        dispatcher = thread;
+        thread.start();
+    }
+
+    public void unsubscribe(TaskEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void publish(TaskEvent.Type type, AbstractTask task) {
+        publish(type, task, null, null);
+    }
+
+    public void publish(TaskEvent.Type type, AbstractTask task, StateTask stateBefore, StateTask stateAfter) {
+        final Thread dispatcher = this.dispatcher;
+        if (dispatcher == null || closed) return;
+        final long position = claimed.getAndIncrement();
+        final int index = (int) position & (capacity - 1);
+        // Only a publisher a whole ring ahead can be writing the same slot, and it is about done.
+        while (published.get(index) != position - capacity) Thread.onSpinWait();
+        published.set(index, ~position);
+        VarHandle.releaseFence();
+        final Slot slot = slots[index];
+        slot.type = type;
+        slot.task = task;
+        slot.stateBefore = stateBefore;
+        slot.stateAfter = stateAfter;
+        published.set(index, position);
+        if (waiting) LockSupport.unpark(dispatcher);
+    }
+
+    // Events the listeners missed by falling behind.
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Stops taking events; the ones published before are still handed out before the dispatcher stops.
+    @Override
+    public void close() {
+        final Thread dispatcher;
+        synchronized (this) {
+            closed = true;
+            dispatcher = this.dispatcher;
+        }
+        if (dispatcher == null) return;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(long next) {
+        long missed = 0;
+        while (true) {
+            final int index = (int) next & (capacity - 1);
+            final long state = published.get(index);
+            if (state == next) {
+                final Slot slot = slots[index];
+                final TaskEvent.Type type = slot.type;
+                final AbstractTask task = slot.task;
+                final StateTask stateBefore = slot.stateBefore;
+                final StateTask stateAfter = slot.stateAfter;
+                VarHandle.acquireFence();
+                if (published.get(index) == next) {
+                    if (missed > 0) {
+                        for (TaskEventListener listener : listeners) dropped(listener, missed);
+                        missed = 0;
+                    }
+                    final TaskEvent event = new TaskEvent(next - capacity, type, task, stateBefore, stateAfter);
+                    for (TaskEventListener listener : listeners) deliver(listener, event);
+                    next++;
+                    continue;
+                }
+            } else if (state >= 0 ? state < next : ~state <= next) {
+                if (closed && claimed.get() <= next) return;
+                await(index, state);
+                continue;
+            }
+            // The publishers went round the ring past this position: skip to the oldest one still in it.
+            final long oldest = Math.max(next + 1, claimed.get() - capacity);
+            missed += oldest - next;
+            dropped.addAndGet(oldest - next);
+            next = oldest;
+        }
+    }
+
+    // The dispatcher yields for a while before parking, so that publishers under load rarely have to wake it.
+    // A publisher reads waiting after marking its slot published, and the dispatcher reads the slot
+    // after setting waiting, so one of them always sees the other.
+    private void await(int index, long state) {
+        for (int i = 0; i < YIELDS_BEFORE_PARKING; i++) {
+            if (published.get(index) != state || closed) return;
+            Thread.yield();
+        }
+        waiting = true;
+        if (published.get(index) == state && !closed) LockSupport.parkNanos(this, PARK_NANOS);
+        waiting = false;
+    }
+
+    private static void deliver(TaskEventListener listener, TaskEvent event) {
+        try {
+            listener.onEvent(event);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void dropped(TaskEventListener listener, long count) {
+        try {
+            listener.onEventsDropped(count);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
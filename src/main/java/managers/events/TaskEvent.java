@@ -0,0 +1,73 @@
+package managers.events;
+
+import models.enums.StateTask;
+import models.enums.TypeTask;
+import models.tasks.AbstractTask;
+
+// A change to a task, epic or story, numbered in the order the manager made the changes.
+// The task is the one the manager holds, so it may have changed again by the time a listener looks at it;
+// the states of a state change are the ones of that change.
+public final class TaskEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STATE_CHANGED,
+        HISTORY_TOUCHED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final AbstractTask task;
+    private final StateTask stateBefore;
+    private final StateTask stateAfter;
+
+    TaskEvent(long sequence, Type type, AbstractTask task, StateTask stateBefore, StateTask stateAfter) {
+        this.sequence = sequence;
+        this.type = type;
+        this.task = task;
+        this.stateBefore = stateBefore;
+        this.stateAfter = stateAfter;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public AbstractTask getTask() {
+        return task;
+    }
+
+    public long getId() {
+        return task.getId();
+    }
+
+    public TypeTask getTypeTask() {
+        return task.getTypeTask();
+    }
+
+    // Only set for STATE_CHANGED.
+    public StateTask getStateBefore() {
+        return stateBefore;
+    }
+
+    public StateTask getStateAfter() {
+        return stateAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", typeTask=" + getTypeTask() +
+                ", id=" + getId() +
+                ", stateBefore=" + stateBefore +
+                ", stateAfter=" + stateAfter +
+                '}';
+    }
+}
@@ -0,0 +1,11 @@
+package managers.events;
+
+@FunctionalInterface
+public interface TaskEventListener {
+    void onEvent(TaskEvent event);
+
+    // Called before the first event after a gap with the number of events the listener fell too far behind
+    // to get, so that it can rebuild whatever it keeps from the manager.
+    default void onEventsDropped(long count) {
+    }
+}
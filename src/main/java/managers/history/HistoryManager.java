@@ -2,7 +2,9 @@ package managers.history;
 
 import models.tasks.AbstractTask;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.function.LongFunction;
 
 public interface HistoryManager {
     void add(AbstractTask task);
@@ -12,4 +14,16 @@ public interface HistoryManager {
     List<AbstractTask> getHistory();
 
     void clear();
+
+    // Keeps at most capacity tasks, and, when timeToLive is set, only the ones viewed within it.
+    void setLimits(int capacity, Duration timeToLive);
+
+    // The views of every client as they are now, for a transaction to put back when it rolls back.
+    Snapshot snapshot();
+
+    interface Snapshot {
+        // Puts the views back in their order and with their times, looking the tasks up again by id,
+        // since they may have been replaced meanwhile; ids that are gone are left out.
+        void restore(LongFunction<AbstractTask> findById);
+    }
 }
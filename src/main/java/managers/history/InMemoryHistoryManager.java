@@ -2,17 +2,52 @@ package managers.history;
 
 import models.tasks.AbstractTask;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.*;
 
+// The list runs from the least to the most recently viewed task, so when the history is limited,
+// the task to evict for room and the ones expired are always at its head.
 public class InMemoryHistoryManager implements HistoryManager {
     private final HashMap<Long, LinkedTaskList.NodeTask> nodeMap = new HashMap<>();
     private LinkedTaskList history = new LinkedTaskList();
+    private final Clock clock;
+    private int capacity = Integer.MAX_VALUE;
+    private Duration timeToLive;
+
+    public InMemoryHistoryManager() {
+        this(Clock.systemUTC());
+    }
+
+    public InMemoryHistoryManager(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void setLimits(int capacity, Duration timeToLive) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        if (timeToLive != null && (timeToLive.isNegative() || timeToLive.isZero())) {
+            throw new IllegalArgumentException("timeToLive must be positive");
+        }
+        this.capacity = capacity;
+        this.timeToLive = timeToLive;
+        evict();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
 
     @Override
     public void add(AbstractTask task) {
         long id = task.getId();
         remove(id);
-        nodeMap.put(id, history.linkLast(task));
+        nodeMap.put(id, history.linkLast(task, clock.millis()));
+        evict();
     }
 
     @Override
@@ -22,15 +57,41 @@ public class InMemoryHistoryManager implements HistoryManager {
 
     @Override
     public List<AbstractTask> getHistory() {
+        evict();
         return history.getTasks();
     }
 
+    private void evict() {
+        while (history.size > capacity) remove(history.first.task.getId());
+        if (timeToLive == null) return;
+        final long expired = clock.millis() - timeToLive.toMillis();
+        while (history.first != null && history.first.viewedAt <= expired) remove(history.first.task.getId());
+    }
+
     @Override
     public void clear() {
         nodeMap.clear();
         history = new LinkedTaskList();
     }
 
+    @Override
+    public Snapshot snapshot() {
+        final long[] ids = new long[history.size];
+        final long[] viewedAt = new long[history.size];
+        int i = 0;
+        for (LinkedTaskList.NodeTask node = history.first; node != null; node = node.next, i++) {
+            ids[i] = node.task.getId();
+            viewedAt[i] = node.viewedAt;
+        }
+        return findById -> {
+            clear();
+            for (int j = 0; j < ids.length; j++) {
+                final AbstractTask task = findById.apply(ids[j]);
+                if (task != null) nodeMap.put(ids[j], history.linkLast(task, viewedAt[j]));
+            }
+        };
+    }
+
     private static class LinkedTaskList implements Iterable<AbstractTask> {
         NodeTask first;
         NodeTask last;
@@ -38,19 +99,21 @@ public class InMemoryHistoryManager implements HistoryManager {
 
         private static class NodeTask {
             AbstractTask task;
+            long viewedAt;
             NodeTask next;
             NodeTask prev;
 
-            public NodeTask(NodeTask prev, AbstractTask task, NodeTask next) {
+            public NodeTask(NodeTask prev, AbstractTask task, long viewedAt, NodeTask next) {
                 this.prev = prev;
                 this.task = task;
+                this.viewedAt = viewedAt;
                 this.next = next;
             }
         }
 
-        private NodeTask linkLast(AbstractTask task) {
+        private NodeTask linkLast(AbstractTask task, long viewedAt) {
             final NodeTask l = last;
-            final NodeTask newNode = new NodeTask(l, task, null);
+            final NodeTask newNode = new NodeTask(l, task, viewedAt, null);
             last = newNode;
             if (l == null) {
                 first = newNode;
@@ -89,7 +152,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
 
         private ArrayList<AbstractTask> getTasks() {
-            ArrayList<AbstractTask> abstractTasks = new ArrayList<>();
+            ArrayList<AbstractTask> abstractTasks = new ArrayList<>(size);
             for (AbstractTask task : this) {
                 abstractTasks.add(task);
             }
@@ -0,0 +1,247 @@
+package managers.history;
+
+import models.tasks.AbstractTask;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// A history of its own for every client, picked by the client set on the calling thread; calls made without
+// one share a default partition. Every partition maps the ids to the stamp of their last view and keeps
+// the views ordered by stamp, both in concurrent maps, so a view locks only the bin of its id in the
+// partition of its client and nothing is locked across clients. The limits apply to every partition.
+// A task removed from the board leaves every partition, while clear empties only the caller's one.
+// The clients are whatever callers name them, so past maxPartitions the partition viewed least recently is dropped.
+public class PartitionedHistoryManager implements HistoryManager {
+    public static final int DEFAULT_MAX_PARTITIONS = 10_000;
+    private static final String DEFAULT_CLIENT = "";
+    private static final ThreadLocal<String> CLIENT = new ThreadLocal<>();
+
+    private final ConcurrentHashMap<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong();
+    private final Clock clock;
+    private final int maxPartitions;
+    private volatile int capacity = Integer.MAX_VALUE;
+    private volatile Duration timeToLive;
+
+    private static final class View {
+        final AbstractTask task;
+        final long viewedAt;
+
+        View(AbstractTask task, long viewedAt) {
+            this.task = task;
+            this.viewedAt = viewedAt;
+        }
+    }
+
+    private final class Partition {
+        final AtomicLong stamps = new AtomicLong();
+        final ConcurrentHashMap<Long, Long> stampsById = new ConcurrentHashMap<>();
+        final ConcurrentSkipListMap<Long, View> views = new ConcurrentSkipListMap<>();
+        // Set while a sweep drops the partition, so that a view recorded meanwhile is recorded again.
+        volatile boolean dropped;
+        volatile long lastViewedAt;
+
+        void add(AbstractTask task, long now) {
+            lastViewedAt = now;
+            final long stamp = stamps.incrementAndGet();
+            stampsById.compute(task.getId(), (id, previous) -> {
+                if (previous != null) views.remove(previous);
+                views.put(stamp, new View(task, now));
+                return stamp;
+            });
+            evict(now);
+        }
+
+        void remove(long id) {
+            stampsById.computeIfPresent(id, (key, stamp) -> {
+                views.remove(stamp);
+                return null;
+            });
+        }
+
+        // A view taken off the head is only forgotten by its id while no newer view of the id replaced it.
+        void evict(long now) {
+            while (stampsById.size() > capacity) {
+                final Map.Entry<Long, View> oldest = views.pollFirstEntry();
+                if (oldest == null) break;
+                stampsById.remove(oldest.getValue().task.getId(), oldest.getKey());
+            }
+            final Duration timeToLive = PartitionedHistoryManager.this.timeToLive;
+            if (timeToLive == null) return;
+            final long expired = now - timeToLive.toMillis();
+            for (Map.Entry<Long, View> oldest = views.firstEntry();
+                 oldest != null && oldest.getValue().viewedAt <= expired; oldest = views.firstEntry()) {
+                if (views.remove(oldest.getKey(), oldest.getValue())) {
+                    stampsById.remove(oldest.getValue().task.getId(), oldest.getKey());
+                }
+            }
+        }
+
+        List<AbstractTask> getTasks() {
+            final List<AbstractTask> tasks = new ArrayList<>(views.size());
+            for (View view : views.values()) tasks.add(view.task);
+            return tasks;
+        }
+    }
+
+    public PartitionedHistoryManager() {
+        this(Clock.systemUTC());
+    }
+
+    public PartitionedHistoryManager(Clock clock) {
+        this(clock, DEFAULT_MAX_PARTITIONS);
+    }
+
+    public PartitionedHistoryManager(Clock clock, int maxPartitions) {
+        if (maxPartitions < 1) throw new IllegalArgumentException("maxPartitions must be positive");
+        this.clock = clock;
+        this.maxPartitions = maxPartitions;
+    }
+
+    // Null goes back to the default partition.
+    public static void setClient(String clientId) {
+        if (clientId == null) {
+            CLIENT.remove();
+        } else {
+            CLIENT.set(clientId);
+        }
+    }
+
+    public static String getClient() {
+        final String clientId = CLIENT.get();
+        return clientId == null ? DEFAULT_CLIENT : clientId;
+    }
+
+    // Runs the work as a call made without a client, e.g. to save or load the history a board keeps in its file.
+    public static <R> R withoutClient(Supplier<R> work) {
+        final String clientId = CLIENT.get();
+        CLIENT.remove();
+        try {
+            return work.get();
+        } finally {
+            if (clientId != null) CLIENT.set(clientId);
+        }
+    }
+
+    @Override
+    public void setLimits(int capacity, Duration timeToLive) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        if (timeToLive != null && (timeToLive.isNegative() || timeToLive.isZero())) {
+            throw new IllegalArgumentException("timeToLive must be positive");
+        }
+        this.capacity = capacity;
+        this.timeToLive = timeToLive;
+        final long now = clock.millis();
+        for (Partition partition : partitions.values()) partition.evict(now);
+    }
+
+    @Override
+    public void add(AbstractTask task) {
+        final long now = clock.millis();
+        final String client = getClient();
+        Partition partition;
+        do {
+            partition = partitions.get(client);
+            if (partition == null) {
+                partition = partitions.computeIfAbsent(client, key -> new Partition());
+                evictLeastRecentlyUsed(client);
+            }
+            partition.add(task, now);
+        } while (partition.dropped);
+        sweep(now);
+    }
+
+    @Override
+    public void remove(long id) {
+        for (Partition partition : partitions.values()) partition.remove(id);
+    }
+
+    @Override
+    public List<AbstractTask> getHistory() {
+        final Partition partition = partitions.get(getClient());
+        if (partition == null) return new ArrayList<>();
+        partition.evict(clock.millis());
+        return partition.getTasks();
+    }
+
+    @Override
+    public void clear() {
+        partitions.remove(getClient());
+    }
+
+    // The concurrent managers record views under their read lock and take and restore snapshots under their write
+    // lock, so no view is recorded between the snapshot and its restore.
+    @Override
+    public Snapshot snapshot() {
+        final Map<String, List<View>> views = new HashMap<>();
+        partitions.forEach((client, partition) -> views.put(client, new ArrayList<>(partition.views.values())));
+        return findById -> {
+            partitions.clear();
+            views.forEach((client, clientViews) -> {
+                final Partition partition = new Partition();
+                for (View view : clientViews) {
+                    final AbstractTask task = findById.apply(view.task.getId());
+                    if (task == null) continue;
+                    final long stamp = partition.stamps.incrementAndGet();
+                    partition.stampsById.put(task.getId(), stamp);
+                    partition.views.put(stamp, new View(task, view.viewedAt));
+                    partition.lastViewedAt = view.viewedAt;
+                }
+                if (!partition.views.isEmpty()) partitions.put(client, partition);
+            });
+        };
+    }
+
+    public int partitions() {
+        return partitions.size();
+    }
+
+    // Only runs when a client gets a new partition, so the scan costs nothing per view.
+    private void evictLeastRecentlyUsed(String newClient) {
+        while (partitions.size() > maxPartitions) {
+            String leastRecentlyUsed = null;
+            Partition victim = null;
+            for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+                if (entry.getKey().equals(newClient)) continue;
+                if (victim == null || entry.getValue().lastViewedAt < victim.lastViewedAt) {
+                    leastRecentlyUsed = entry.getKey();
+                    victim = entry.getValue();
+                }
+            }
+            if (victim == null) return;
+            final Partition dropped = victim;
+            partitions.computeIfPresent(leastRecentlyUsed, (key, current) -> {
+                if (current != dropped) return current;
+                current.dropped = true;
+                return null;
+            });
+        }
+    }
+
+    // With a time to live, the partitions of clients gone quiet are dropped once they expire,
+    // checked at most once per time to live by whichever view comes first.
+    private void sweep(long now) {
+        final Duration timeToLive = this.timeToLive;
+        if (timeToLive == null) return;
+        final long due = nextSweep.get();
+        if (now < due || !nextSweep.compareAndSet(due, now + timeToLive.toMillis())) return;
+        partitions.forEach((client, partition) -> {
+            partition.evict(now);
+            partitions.computeIfPresent(client, (key, current) -> {
+                if (current != partition) return current;
+                current.dropped = true;
+                if (current.views.isEmpty()) return null;
+                current.dropped = false;
+                return current;
+            });
+        });
+    }
+}
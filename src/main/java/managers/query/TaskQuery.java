@@ -0,0 +1,183 @@
+package managers.query;
+
+import models.enums.StateTask;
+import models.enums.TypeTask;
+import models.tasks.AbstractTask;
+import models.tasks.Story;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Filters, ordering and page of a TaskManager.query. Every filter is optional and they all have to match.
+// A page is continued by passing the id of its last item as after, which stays valid while new items come in.
+public final class TaskQuery {
+    public enum Order {
+        ID(Comparator.comparingLong(AbstractTask::getId)),
+        START_TIME(Comparator.comparing(AbstractTask::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingLong(AbstractTask::getId)),
+        NAME(Comparator.comparing(AbstractTask::getName).thenComparingLong(AbstractTask::getId));
+
+        private final Comparator<AbstractTask> comparator;
+
+        Order(Comparator<AbstractTask> comparator) {
+            this.comparator = comparator;
+        }
+
+        public Comparator<AbstractTask> getComparator() {
+            return comparator;
+        }
+    }
+
+    private final Set<TypeTask> types;
+    private final StateTask stateTask;
+    private final Long epicId;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final String text;
+    private final Order order;
+    private final int limit;
+    private final Long after;
+
+    public static class Builder {
+        private final Set<TypeTask> types = EnumSet.noneOf(TypeTask.class);
+        private StateTask stateTask;
+        private Long epicId;
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private String text;
+        private Order order = Order.ID;
+        private int limit = Integer.MAX_VALUE;
+        private Long after;
+
+        Builder() {
+        }
+
+        // Adds to the types to return; without any all of them are returned.
+        public Builder type(TypeTask typeTask) {
+            types.add(typeTask);
+            return this;
+        }
+
+        public Builder stateTask(StateTask stateTask) {
+            this.stateTask = stateTask;
+            return this;
+        }
+
+        // Stories of the epic.
+        public Builder epicId(long epicId) {
+            this.epicId = epicId;
+            return this;
+        }
+
+        // Tasks starting in [from, to) the way getPrioritizedTasks(from, to, limit) selects them.
+        public Builder from(LocalDateTime from) {
+            this.from = from;
+            return this;
+        }
+
+        public Builder to(LocalDateTime to) {
+            this.to = to;
+            return this;
+        }
+
+        // Items containing every term of the text in their name or description.
+        public Builder text(String text) {
+            this.text = text;
+            return this;
+        }
+
+        public Builder orderBy(Order order) {
+            this.order = order;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public Builder after(long id) {
+            this.after = id;
+            return this;
+        }
+
+        public TaskQuery build() {
+            if (limit < 0) throw new IllegalArgumentException("limit must not be negative");
+            if (order == null) throw new IllegalArgumentException("order must not be null");
+            if (from != null && to != null && from.isAfter(to)) {
+                throw new IllegalArgumentException("from must not be after to");
+            }
+            return new TaskQuery(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private TaskQuery(Builder builder) {
+        this.types = builder.types.isEmpty()
+                ? Collections.unmodifiableSet(EnumSet.allOf(TypeTask.class))
+                : Collections.unmodifiableSet(EnumSet.copyOf(builder.types));
+        this.stateTask = builder.stateTask;
+        this.epicId = builder.epicId;
+        this.from = builder.from;
+        this.to = builder.to;
+        this.text = builder.text;
+        this.order = builder.order;
+        this.limit = builder.limit;
+        this.after = builder.after;
+    }
+
+    public Set<TypeTask> getTypes() {
+        return types;
+    }
+
+    public StateTask getStateTask() {
+        return stateTask;
+    }
+
+    public Long getEpicId() {
+        return epicId;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public boolean hasTimeWindow() {
+        return from != null || to != null;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    // The filters that indexes don't answer: the epic and the time window.
+    public boolean matchesEpicAndTime(AbstractTask task) {
+        if (epicId != null && !(task instanceof Story && ((Story) task).getEpicId() == epicId)) return false;
+        if (!hasTimeWindow()) return true;
+        final LocalDateTime startTime = task.getStartTime();
+        if (startTime == null) return false;
+        return (from == null || !startTime.isBefore(from)) && (to == null || startTime.isBefore(to));
+    }
+}
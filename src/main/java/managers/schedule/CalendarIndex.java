@@ -0,0 +1,67 @@
+package managers.schedule;
+
+import models.tasks.AbstractTask;
+import utils.collections.LongBitmap;
+import utils.collections.LongHashMap;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Ids of the scheduled items by the epoch day, with an item filed under every day from its start to its end,
+// so the items running on a day are found without scanning the ones that started before it.
+// The days of every item are kept as well, so it is removed by id whatever the task object holds by then.
+public class CalendarIndex {
+    private final LongHashMap<LongBitmap> days = new LongHashMap<>();
+    private final LongHashMap<long[]> spans = new LongHashMap<>();
+
+    // Files the item or moves it when it was filed before; items without a start time are not on the calendar.
+    public void add(AbstractTask task) {
+        remove(task.getId());
+        if (task.getStartTime() == null) return;
+        final long firstDay = task.getStartTime().toLocalDate().toEpochDay();
+        final long lastDay = lastDay(task.getStartTime(), task.getEndTime());
+        for (long day = firstDay; day <= lastDay; day++) {
+            LongBitmap ids = days.get(day);
+            if (ids == null) {
+                ids = new LongBitmap();
+                days.put(day, ids);
+            }
+            ids.add(task.getId());
+        }
+        spans.put(task.getId(), new long[]{firstDay, lastDay});
+    }
+
+    public void remove(long id) {
+        final long[] span = spans.remove(id);
+        if (span == null) return;
+        for (long day = span[0]; day <= span[1]; day++) {
+            final LongBitmap ids = days.get(day);
+            ids.remove(id);
+            if (ids.isEmpty()) days.remove(day);
+        }
+    }
+
+    public void clear() {
+        days.clear();
+        spans.clear();
+    }
+
+    // Ids of the items running at some moment of the day; the bitmap belongs to the index and must not be changed.
+    public LongBitmap onDay(LocalDate day) {
+        final LongBitmap ids = days.get(day.toEpochDay());
+        return ids == null ? new LongBitmap() : ids;
+    }
+
+    public int size() {
+        return spans.size();
+    }
+
+    // An item ending exactly at midnight does not run on the day that starts then.
+    private static long lastDay(LocalDateTime startTime, LocalDateTime endTime) {
+        final LocalDate endDay = endTime.toLocalDate();
+        if (endTime.isAfter(startTime) && endTime.equals(endDay.atStartOfDay())) {
+            return endDay.toEpochDay() - 1;
+        }
+        return endDay.toEpochDay();
+    }
+}
@@ -0,0 +1,247 @@
+package managers.schedule;
+
+import models.tasks.AbstractTask;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// AVL tree keyed by (startTime, id) where every node keeps the max endTime of its subtree,
+// so an overlap query only descends into subtrees that can still contain an intersection.
+// Nodes also keep the widest gap between consecutive intervals of their subtree, which lets
+// a free slot search skip whole subtrees that have no room for the requested duration.
+public class IntervalTree {
+    private final Map<Long, Node> nodeMap = new HashMap<>();
+    private Node root;
+
+    private static class Node {
+        final AbstractTask task;
+        final long id;
+        final LocalDateTime startTime;
+        final LocalDateTime endTime;
+        LocalDateTime maxEndTime;
+        LocalDateTime minStartTime;
+        LocalDateTime maxStartTime;
+        Duration maxGap = Duration.ZERO;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(AbstractTask task) {
+            this.task = task;
+            this.id = task.getId();
+            this.startTime = task.getStartTime();
+            this.endTime = task.getEndTime();
+            this.maxEndTime = endTime;
+            this.minStartTime = startTime;
+            this.maxStartTime = startTime;
+        }
+    }
+
+    private static class SlotSearch {
+        final Duration duration;
+        LocalDateTime cursor;
+
+        SlotSearch(Duration duration, LocalDateTime notBefore) {
+            this.duration = duration;
+            this.cursor = notBefore;
+        }
+
+        LocalDateTime slotEndTime() {
+            return cursor.plus(duration);
+        }
+
+        void advance(LocalDateTime endTime) {
+            if (endTime.isAfter(cursor)) cursor = endTime;
+        }
+    }
+
+    public void add(AbstractTask task) {
+        remove(task.getId());
+        if (task.getStartTime() == null) return;
+        final Node node = new Node(task);
+        nodeMap.put(node.id, node);
+        root = insert(root, node);
+    }
+
+    public AbstractTask remove(long id) {
+        final Node node = nodeMap.remove(id);
+        if (node == null) return null;
+        root = delete(root, node.startTime, node.id);
+        return node.task;
+    }
+
+    // The latest end of the tasks in the tree, or null when it is empty.
+    public LocalDateTime getMaxEndTime() {
+        return root == null ? null : root.maxEndTime;
+    }
+
+    public List<AbstractTask> findIntersections(LocalDateTime startTime, LocalDateTime endTime) {
+        return findIntersections(startTime, endTime, null);
+    }
+
+    public List<AbstractTask> findIntersections(LocalDateTime startTime, LocalDateTime endTime, Long excludedId) {
+        final List<AbstractTask> intersections = new ArrayList<>();
+        if (startTime != null) {
+            collectIntersections(root, startTime, endTime == null ? startTime : endTime, excludedId, intersections);
+        }
+        return intersections;
+    }
+
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        final SlotSearch search = new SlotSearch(duration, notBefore);
+        final LocalDateTime slot = findFreeSlot(root, search);
+        return slot != null ? slot : search.cursor;
+    }
+
+    public boolean contains(long id) {
+        return nodeMap.containsKey(id);
+    }
+
+    public int size() {
+        return nodeMap.size();
+    }
+
+    public void clear() {
+        nodeMap.clear();
+        root = null;
+    }
+
+    public static boolean intersected(LocalDateTime start1, LocalDateTime end1, LocalDateTime start2,
+                                      LocalDateTime end2) {
+        if (start1.isAfter(start2) && start1.isBefore(end2)) {
+            return true;
+        }
+        return start2.isAfter(start1) && start2.isBefore(end1);
+    }
+
+    private void collectIntersections(Node node, LocalDateTime startTime, LocalDateTime endTime, Long excludedId,
+                                      List<AbstractTask> intersections) {
+        if (node == null || !node.maxEndTime.isAfter(startTime)) return;
+        collectIntersections(node.left, startTime, endTime, excludedId, intersections);
+        if (!node.startTime.isBefore(endTime)) return;
+        if ((excludedId == null || node.id != excludedId) && intersected(startTime, endTime, node.startTime, node.endTime)) {
+            intersections.add(node.task);
+        }
+        collectIntersections(node.right, startTime, endTime, excludedId, intersections);
+    }
+
+    private LocalDateTime findFreeSlot(Node node, SlotSearch search) {
+        if (node == null) return null;
+        final LocalDateTime slotEndTime = search.slotEndTime();
+        if (node.maxStartTime.isBefore(slotEndTime)
+                || (node.minStartTime.isBefore(slotEndTime) && node.maxGap.compareTo(search.duration) < 0)) {
+            search.advance(node.maxEndTime);
+            return null;
+        }
+        final LocalDateTime slot = findFreeSlot(node.left, search);
+        if (slot != null) return slot;
+        if (!search.slotEndTime().isAfter(node.startTime)) return search.cursor;
+        search.advance(node.endTime);
+        return findFreeSlot(node.right, search);
+    }
+
+    private static int compare(LocalDateTime startTime1, long id1, LocalDateTime startTime2, long id2) {
+        final int result = startTime1.compareTo(startTime2);
+        return result != 0 ? result : Long.compare(id1, id2);
+    }
+
+    private Node insert(Node node, Node newNode) {
+        if (node == null) return newNode;
+        if (compare(newNode.startTime, newNode.id, node.startTime, node.id) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, LocalDateTime startTime, long id) {
+        if (node == null) return null;
+        final int result = compare(startTime, id, node.startTime, node.id);
+        if (result < 0) {
+            node.left = delete(node.left, startTime, id);
+        } else if (result > 0) {
+            node.right = delete(node.right, startTime, id);
+        } else {
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+            Node successor = node.right;
+            while (successor.left != null) successor = successor.left;
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) return node.right;
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private Node balance(Node node) {
+        update(node);
+        final int balanceFactor = height(node.left) - height(node.right);
+        if (balanceFactor > 1) {
+            if (height(node.left.left) < height(node.left.right)) node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        }
+        if (balanceFactor < -1) {
+            if (height(node.right.right) < height(node.right.left)) node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        final Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        final Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEndTime = node.endTime;
+        if (node.left != null && node.left.maxEndTime.isAfter(maxEndTime)) maxEndTime = node.left.maxEndTime;
+        if (node.right != null && node.right.maxEndTime.isAfter(maxEndTime)) maxEndTime = node.right.maxEndTime;
+        node.maxEndTime = maxEndTime;
+        node.minStartTime = node.left == null ? node.startTime : node.left.minStartTime;
+        node.maxStartTime = node.right == null ? node.startTime : node.right.maxStartTime;
+
+        Duration maxGap = Duration.ZERO;
+        LocalDateTime prefixEndTime = node.endTime;
+        if (node.left != null) {
+            maxGap = max(node.left.maxGap, Duration.between(node.left.maxEndTime, node.startTime));
+            if (node.left.maxEndTime.isAfter(prefixEndTime)) prefixEndTime = node.left.maxEndTime;
+        }
+        if (node.right != null) {
+            maxGap = max(maxGap, max(node.right.maxGap, Duration.between(prefixEndTime, node.right.minStartTime)));
+        }
+        node.maxGap = maxGap;
+    }
+
+    private static Duration max(Duration duration1, Duration duration2) {
+        return duration1.compareTo(duration2) >= 0 ? duration1 : duration2;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+}
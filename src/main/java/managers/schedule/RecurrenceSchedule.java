@@ -0,0 +1,244 @@
+package managers.schedule;
+
+import models.tasks.AbstractTask;
+import models.tasks.RecurringTask;
+import models.tasks.Task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+// Recurring tasks kept as rules, with their occurrences worked out arithmetically in seconds. The occurrence
+// of a rule that can overlap an interval is the first one ending after the interval starts, a division away,
+// so checking an interval against a rule costs the same whatever its horizon, and views build only the
+// occurrences they return. Overlaps are counted the way IntervalTree.intersected counts them.
+// The rules are replaced as a whole on every change, so readers holding no lock still see a consistent set.
+public class RecurrenceSchedule {
+    private static final Comparator<AbstractTask> START_TIME_ORDER = Comparator
+            .comparing(AbstractTask::getStartTime)
+            .thenComparingLong(AbstractTask::getId);
+
+    private static final Comparator<Cursor> CURSOR_ORDER = Comparator
+            .comparingLong((Cursor cursor) -> cursor.rule.startOf(cursor.index))
+            .thenComparingLong(cursor -> cursor.rule.task.getId());
+
+    private volatile List<Rule> rules = List.of();
+
+    private static final class Rule {
+        final RecurringTask task;
+        final long start;
+        final long duration;
+        final long period;
+        final long count;
+
+        Rule(RecurringTask task) {
+            this.task = task;
+            this.start = seconds(task.getStartTime());
+            this.duration = task.getDuration().getSeconds();
+            this.period = task.getPeriod().getSeconds();
+            this.count = task.getUntil() == null
+                    ? Long.MAX_VALUE
+                    : -Math.floorDiv(start - seconds(task.getUntil()), period);
+        }
+
+        long startOf(long index) {
+            return start + index * period;
+        }
+
+        long firstEndingAfter(long time) {
+            return time < start + duration ? 0 : Math.floorDiv(time - duration - start, period) + 1;
+        }
+
+        long firstStartingFrom(long time) {
+            return time <= start ? 0 : -Math.floorDiv(start - time, period);
+        }
+
+        // Index of an occurrence overlapping [from, from + length), or -1. Two occurrences are enough to look at:
+        // the first one ending after from, and the next one in case the first starts together with the interval.
+        long overlapping(long from, long length) {
+            long index = firstEndingAfter(from);
+            for (int i = 0; i < 2 && index < count; i++, index++) {
+                final long occurrenceStart = startOf(index);
+                if (occurrenceStart >= from + length) return -1;
+                if (occurrenceStart != from) return index;
+            }
+            return -1;
+        }
+    }
+
+    // Two rules come back to the same relative position every least common multiple of their periods,
+    // so if they overlap at all, they do within one such stretch after both have started. Only the occurrences
+    // of the rule with the longer period in that stretch are checked, each against the other rule.
+    private static long[] overlapping(Rule rule1, Rule rule2) {
+        final Rule a = rule1.period >= rule2.period ? rule1 : rule2;
+        final Rule b = a == rule1 ? rule2 : rule1;
+        final long gcd = gcd(a.period, b.period);
+        long stretch;
+        try {
+            stretch = Math.multiplyExact(a.period / gcd, b.period);
+        } catch (ArithmeticException e) {
+            stretch = Long.MAX_VALUE / 4;
+        }
+        final long limit = Math.max(a.start, b.start) + stretch + b.duration;
+        for (long index = a.firstEndingAfter(b.start); index < a.count && a.startOf(index) < limit; index++) {
+            final long other = b.overlapping(a.startOf(index), a.duration);
+            if (other >= 0) return a == rule1 ? new long[]{index, other} : new long[]{other, index};
+        }
+        return null;
+    }
+
+    public void add(RecurringTask recurringTask) {
+        final List<Rule> newRules = new ArrayList<>(rules.size() + 1);
+        for (Rule rule : rules) if (rule.task.getId() != recurringTask.getId()) newRules.add(rule);
+        newRules.add(new Rule(recurringTask));
+        rules = Collections.unmodifiableList(newRules);
+    }
+
+    public RecurringTask remove(long id) {
+        final List<Rule> newRules = new ArrayList<>(rules.size());
+        RecurringTask removed = null;
+        for (Rule rule : rules) {
+            if (rule.task.getId() == id) removed = rule.task;
+            else newRules.add(rule);
+        }
+        rules = Collections.unmodifiableList(newRules);
+        return removed;
+    }
+
+    public RecurringTask find(long id) {
+        for (Rule rule : rules) if (rule.task.getId() == id) return rule.task;
+        return null;
+    }
+
+    public List<RecurringTask> findAll() {
+        final List<RecurringTask> recurringTasks = new ArrayList<>(rules.size());
+        for (Rule rule : rules) recurringTasks.add(rule.task);
+        return recurringTasks;
+    }
+
+    public void clear() {
+        rules = List.of();
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    // An occurrence of some rule overlapping the interval; null when there is none or the interval has no start.
+    public Task findIntersection(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null) return null;
+        final long from = seconds(startTime);
+        final long length = endTime == null ? 0 : seconds(endTime) - from;
+        for (Rule rule : rules) {
+            final long index = rule.overlapping(from, length);
+            if (index >= 0) return rule.task.getOccurrence(index);
+        }
+        return null;
+    }
+
+    // The occurrence of the recurring task overlapping the task, or null.
+    public static Task findIntersection(RecurringTask recurringTask, AbstractTask task) {
+        if (task.getStartTime() == null) return null;
+        final long from = seconds(task.getStartTime());
+        final long index = new Rule(recurringTask).overlapping(from, seconds(task.getEndTime()) - from);
+        return index >= 0 ? recurringTask.getOccurrence(index) : null;
+    }
+
+    // Overlapping occurrences of the recurring task and of one of the rules, in this order, or null.
+    public Map.Entry<Task, Task> findIntersection(RecurringTask recurringTask) {
+        final Rule checked = new Rule(recurringTask);
+        for (Rule rule : rules) {
+            if (rule.task.getId() == recurringTask.getId()) continue;
+            final long[] indexes = overlapping(checked, rule);
+            if (indexes != null) {
+                return Map.entry(recurringTask.getOccurrence(indexes[0]), rule.task.getOccurrence(indexes[1]));
+            }
+        }
+        return null;
+    }
+
+    // Occurrences running at some moment of [from, to), by start time.
+    public List<Task> findOccurrences(LocalDateTime from, LocalDateTime to) {
+        final long fromSeconds = seconds(from);
+        final long toSeconds = seconds(to);
+        final List<Task> occurrences = new ArrayList<>();
+        for (Rule rule : rules) {
+            for (long index = rule.firstEndingAfter(fromSeconds);
+                 index < rule.count && rule.startOf(index) < toSeconds; index++) {
+                occurrences.add(rule.task.getOccurrence(index));
+            }
+        }
+        occurrences.sort(START_TIME_ORDER);
+        return occurrences;
+    }
+
+    // Up to limit of the tasks and the occurrences starting in [from, to), by start time. The tasks have to be
+    // in that order and in that window already. Occurrences are built one at a time off a queue holding the next
+    // one of every rule, so only as many are built as fit the page. Without bounds only the tasks are returned.
+    public List<AbstractTask> merge(Iterable<? extends AbstractTask> tasks, LocalDateTime from, LocalDateTime to,
+                                    int limit) {
+        final List<AbstractTask> merged = new ArrayList<>();
+        final PriorityQueue<Cursor> next = new PriorityQueue<>(CURSOR_ORDER);
+        if (from != null || to != null) {
+            final List<Rule> rules = this.rules;
+            if (to == null && limit == Integer.MAX_VALUE && rules.stream().anyMatch(rule -> rule.count == Long.MAX_VALUE)) {
+                throw new IllegalArgumentException("an open-ended window needs a limit when some tasks recur endlessly");
+            }
+            final long fromSeconds = from == null ? Long.MIN_VALUE : seconds(from);
+            final long toSeconds = to == null ? Long.MAX_VALUE : seconds(to);
+            for (Rule rule : rules) {
+                final Cursor cursor = new Cursor(rule, rule.firstStartingFrom(fromSeconds), toSeconds);
+                if (cursor.hasOccurrence()) next.add(cursor);
+            }
+        }
+        final Iterator<? extends AbstractTask> taskIterator = tasks.iterator();
+        AbstractTask task = taskIterator.hasNext() ? taskIterator.next() : null;
+        while (merged.size() < limit && (task != null || !next.isEmpty())) {
+            if (task != null && (next.isEmpty() || next.peek().compareTo(task) >= 0)) {
+                merged.add(task);
+                task = taskIterator.hasNext() ? taskIterator.next() : null;
+            } else {
+                final Cursor cursor = next.poll();
+                merged.add(cursor.rule.task.getOccurrence(cursor.index));
+                cursor.index++;
+                if (cursor.hasOccurrence()) next.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    // The next occurrence of a rule, compared by its start in seconds so the task is only built when taken.
+    private static final class Cursor {
+        final Rule rule;
+        final long to;
+        long index;
+
+        Cursor(Rule rule, long index, long to) {
+            this.rule = rule;
+            this.to = to;
+            this.index = index;
+        }
+
+        boolean hasOccurrence() {
+            return index < rule.count && rule.startOf(index) < to;
+        }
+
+        int compareTo(AbstractTask task) {
+            final int byStart = Long.compare(rule.startOf(index), seconds(task.getStartTime()));
+            return byStart != 0 ? byStart : Long.compare(rule.task.getId(), task.getId());
+        }
+    }
+
+    private static long seconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            final long rest = a % b;
+            a = b;
+            b = rest;
+        }
+        return a;
+    }
+}
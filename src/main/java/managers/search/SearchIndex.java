@@ -0,0 +1,143 @@
+package managers.search;
+
+import models.tasks.AbstractTask;
+import utils.collections.LongBitmap;
+import utils.collections.LongHashMap;
+import utils.collections.LongIntHashMap;
+
+import java.util.*;
+
+// Inverted index over the names and descriptions of tasks, epics and stories. Every term has a posting list
+// from ids to how often the item contains it, where an occurrence in the name counts as NAME_WEIGHT.
+// A query matches the items that contain all of its terms. Only the shortest posting list is scanned and
+// the others are probed, so a search costs about as much as its rarest term has matches, whatever the board size.
+// Matches are ranked by the sum of term frequency times inverse document frequency over the query terms.
+public class SearchIndex {
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final Comparator<Hit> BEST_FIRST = Comparator.comparingDouble((Hit hit) -> hit.score).reversed()
+            .thenComparingLong(hit -> hit.id);
+
+    private final Map<String, LongIntHashMap> postings = new HashMap<>();
+    private final LongHashMap<String[]> documentTerms = new LongHashMap<>();
+
+    private static class Hit {
+        final long id;
+        final double score;
+
+        Hit(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    // Indexes the item or replaces what was indexed for its id before.
+    public void add(AbstractTask task) {
+        final long id = task.getId();
+        remove(id);
+        final Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : tokenize(task.getName())) frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+        for (String term : tokenize(task.getDescription())) frequencies.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            postings.computeIfAbsent(frequency.getKey(), term -> new LongIntHashMap()).put(id, frequency.getValue());
+        }
+        documentTerms.put(id, frequencies.keySet().toArray(new String[0]));
+    }
+
+    public void remove(long id) {
+        final String[] terms = documentTerms.remove(id);
+        if (terms == null) return;
+        for (String term : terms) {
+            final LongIntHashMap posting = postings.get(term);
+            posting.remove(id);
+            if (posting.size() == 0) postings.remove(term);
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        documentTerms.clear();
+    }
+
+    public int size() {
+        return documentTerms.size();
+    }
+
+    // Ids of the page of matches starting at offset, best first; equally ranked items go in the order of their ids.
+    public List<Long> search(String query, int offset, int limit) {
+        if (offset < 0) throw new IllegalArgumentException("offset must not be negative");
+        if (limit < 0) throw new IllegalArgumentException("limit must not be negative");
+        final List<LongIntHashMap> lists = postingsOf(query);
+        if (lists.isEmpty() || limit == 0) return new ArrayList<>();
+        final double[] idfs = new double[lists.size()];
+        for (int i = 0; i < idfs.length; i++) idfs[i] = Math.log(1 + (double) size() / lists.get(i).size());
+
+        final int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        final PriorityQueue<Hit> worstFirst = new PriorityQueue<>(BEST_FIRST.reversed());
+        lists.get(0).forEach((id, frequency) -> {
+            double score = frequency * idfs[0];
+            for (int i = 1; i < idfs.length; i++) {
+                final int otherFrequency = lists.get(i).get(id);
+                if (otherFrequency == LongIntHashMap.MISSING) return;
+                score += otherFrequency * idfs[i];
+            }
+            final Hit hit = new Hit(id, score);
+            if (worstFirst.size() < wanted) {
+                worstFirst.add(hit);
+            } else if (BEST_FIRST.compare(hit, worstFirst.peek()) < 0) {
+                worstFirst.poll();
+                worstFirst.add(hit);
+            }
+        });
+
+        final Long[] ranked = new Long[worstFirst.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) ranked[i] = worstFirst.poll().id;
+        return offset >= ranked.length
+                ? new ArrayList<>()
+                : new ArrayList<>(Arrays.asList(ranked).subList(offset, ranked.length));
+    }
+
+    // Ids of the items containing every term of the text, found the same way as by search.
+    public LongBitmap matches(String text) {
+        final LongBitmap ids = new LongBitmap();
+        final List<LongIntHashMap> lists = postingsOf(text);
+        if (lists.isEmpty()) return ids;
+        lists.get(0).forEach((id, frequency) -> {
+            for (int i = 1; i < lists.size(); i++) {
+                if (lists.get(i).get(id) == LongIntHashMap.MISSING) return;
+            }
+            ids.add(id);
+        });
+        return ids;
+    }
+
+    // Posting lists of the distinct terms of the text, shortest first; none when some term is not indexed.
+    private List<LongIntHashMap> postingsOf(String text) {
+        final Set<String> terms = new LinkedHashSet<>(tokenize(text));
+        final List<LongIntHashMap> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            final LongIntHashMap posting = postings.get(term);
+            if (posting == null) return new ArrayList<>();
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(LongIntHashMap::size));
+        return lists;
+    }
+
+    // Lower-cased runs of letters and digits, so "Fix bug #12" and "fix-bug 12" give the same terms.
+    public static List<String> tokenize(String text) {
+        final List<String> terms = new ArrayList<>();
+        if (text == null) return terms;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            final boolean termChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (termChar && start == -1) {
+                start = i;
+            } else if (!termChar && start != -1) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
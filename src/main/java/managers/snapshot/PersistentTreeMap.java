@@ -0,0 +1,168 @@
+package managers.snapshot;
+
+import java.util.*;
+
+// Immutable AVL tree: put and remove copy only the path from the root to the changed node
+// and share every other node with the previous version, so old versions stay valid and cheap.
+public final class PersistentTreeMap<K, V> {
+    private final Comparator<? super K> comparator;
+    private final Node<K, V> root;
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int height;
+        final int size;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    private PersistentTreeMap(Comparator<? super K> comparator, Node<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    public static <K, V> PersistentTreeMap<K, V> empty(Comparator<? super K> comparator) {
+        return new PersistentTreeMap<>(comparator, null);
+    }
+
+    public V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            final int result = comparator.compare(key, node.key);
+            if (result == 0) return node.value;
+            node = result < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public PersistentTreeMap<K, V> put(K key, V value) {
+        return new PersistentTreeMap<>(comparator, put(root, key, value));
+    }
+
+    public PersistentTreeMap<K, V> remove(K key) {
+        if (get(key) == null) return this;
+        return new PersistentTreeMap<>(comparator, remove(root, key));
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public Collection<V> values() {
+        return values(null, null);
+    }
+
+    // Values with from <= key < to in key order; a null bound leaves that side open.
+    public Collection<V> values(K from, K to) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new RangeIterator(from, to);
+            }
+
+            @Override
+            public int size() {
+                if (from == null && to == null) return PersistentTreeMap.this.size();
+                int size = 0;
+                for (Iterator<V> iterator = iterator(); iterator.hasNext(); iterator.next()) size++;
+                return size;
+            }
+        };
+    }
+
+    private class RangeIterator implements Iterator<V> {
+        private final Deque<Node<K, V>> stack = new ArrayDeque<>();
+        private final K to;
+
+        RangeIterator(K from, K to) {
+            this.to = to;
+            Node<K, V> node = root;
+            while (node != null) {
+                if (from == null || comparator.compare(node.key, from) >= 0) {
+                    stack.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && (to == null || comparator.compare(stack.peek().key, to) < 0);
+        }
+
+        @Override
+        public V next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            final Node<K, V> node = stack.pop();
+            for (Node<K, V> next = node.right; next != null; next = next.left) stack.push(next);
+            return node.value;
+        }
+    }
+
+    private Node<K, V> put(Node<K, V> node, K key, V value) {
+        if (node == null) return new Node<>(key, value, null, null);
+        final int result = comparator.compare(key, node.key);
+        if (result < 0) return balance(node.key, node.value, put(node.left, key, value), node.right);
+        if (result > 0) return balance(node.key, node.value, node.left, put(node.right, key, value));
+        return new Node<>(key, value, node.left, node.right);
+    }
+
+    private Node<K, V> remove(Node<K, V> node, K key) {
+        final int result = comparator.compare(key, node.key);
+        if (result < 0) return balance(node.key, node.value, remove(node.left, key), node.right);
+        if (result > 0) return balance(node.key, node.value, node.left, remove(node.right, key));
+        if (node.left == null) return node.right;
+        if (node.right == null) return node.left;
+        Node<K, V> successor = node.right;
+        while (successor.left != null) successor = successor.left;
+        return balance(successor.key, successor.value, node.left, removeMin(node.right));
+    }
+
+    private Node<K, V> removeMin(Node<K, V> node) {
+        if (node.left == null) return node.right;
+        return balance(node.key, node.value, removeMin(node.left), node.right);
+    }
+
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        final int balanceFactor = height(left) - height(right);
+        if (balanceFactor > 1) {
+            if (height(left.left) < height(left.right)) left = rotateLeft(left.key, left.value, left.left, left.right);
+            return rotateRight(key, value, left, right);
+        }
+        if (balanceFactor < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right.key, right.value, right.left, right.right);
+            }
+            return rotateLeft(key, value, left, right);
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private static <K, V> Node<K, V> rotateRight(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+    }
+
+    private static <K, V> Node<K, V> rotateLeft(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -0,0 +1,93 @@
+package managers.snapshot;
+
+import managers.stats.TaskCounts;
+import models.enums.TypeTask;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+
+import java.util.List;
+
+// One consistent version of a board. Tasks, epics and stories in it are frozen copies, so readers are handed
+// them as they are: nobody can change them, which also keeps the tasks and stories valid keys of prioritized.
+// prioritized holds the tasks and stories in start time order and byId holds the same ones by id.
+// Epics are kept without their stories, which sit in a map of their own per epic, so changing one story
+// copies a path of that map and never the whole epic.
+public final class TaskSnapshot {
+    private final PersistentTreeMap<Long, Task> tasks;
+    private final PersistentTreeMap<Long, Epic> epics;
+    private final PersistentTreeMap<Long, PersistentTreeMap<Long, Story>> stories;
+    private final PersistentTreeMap<Long, AbstractTask> byId;
+    private final PersistentTreeMap<AbstractTask, AbstractTask> prioritized;
+    private final TaskCounts counts;
+
+    public TaskSnapshot(PersistentTreeMap<Long, Task> tasks, PersistentTreeMap<Long, Epic> epics,
+                        PersistentTreeMap<Long, PersistentTreeMap<Long, Story>> stories,
+                        PersistentTreeMap<Long, AbstractTask> byId,
+                        PersistentTreeMap<AbstractTask, AbstractTask> prioritized, TaskCounts counts) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.stories = stories;
+        this.byId = byId;
+        this.prioritized = prioritized;
+        this.counts = counts;
+    }
+
+    public PersistentTreeMap<Long, Task> getTasks() {
+        return tasks;
+    }
+
+    // The epics without their stories.
+    public PersistentTreeMap<Long, Epic> getEpics() {
+        return epics;
+    }
+
+    // The stories of every epic by epic id; an epic without stories may have no map.
+    public PersistentTreeMap<Long, PersistentTreeMap<Long, Story>> getStories() {
+        return stories;
+    }
+
+    public PersistentTreeMap<Long, AbstractTask> getById() {
+        return byId;
+    }
+
+    public PersistentTreeMap<AbstractTask, AbstractTask> getPrioritized() {
+        return prioritized;
+    }
+
+    public TaskCounts getCounts() {
+        return counts;
+    }
+
+    public long size() {
+        return byId.size() + epics.size();
+    }
+
+    // The task, story or epic, or null when the snapshot doesn't hold the id.
+    public AbstractTask find(long id) {
+        final AbstractTask task = byId.get(id);
+        return task == null ? findEpic(id) : task;
+    }
+
+    // The epic together with its stories, or null when the snapshot doesn't hold it.
+    // Only the epic is new; its stories are the snapshot's own.
+    public Epic findEpic(long id) {
+        final Epic epic = epics.get(id);
+        if (epic == null) return null;
+        final PersistentTreeMap<Long, Story> epicStories = stories.get(id);
+        final Epic withStories = Epic.createEpic(id, epic.getName(), epic.getDescription(),
+                epicStories == null ? List.of() : epicStories.values(), null, null);
+        withStories.freeze();
+        return withStories;
+    }
+
+    // A frozen copy of a task or a story to put in a snapshot.
+    public static AbstractTask frozenCopyOf(AbstractTask task) {
+        final AbstractTask copy = task.getTypeTask() == TypeTask.TASK
+                ? Task.createTask(task.getId(), (Task) task)
+                : Story.createStory(task.getId(), (Story) task);
+        copy.freeze();
+        return copy;
+    }
+}
@@ -0,0 +1,51 @@
+package managers.stats;
+
+import models.enums.StateTask;
+import models.enums.TypeTask;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class TaskCounts {
+    private final long total;
+    private final Map<TypeTask, Long> types;
+    private final Map<StateTask, Long> states;
+    private final Map<TypeTask, Map<StateTask, Long>> typeStates;
+
+    public TaskCounts(long[][] typeStateCounters) {
+        types = new EnumMap<>(TypeTask.class);
+        states = new EnumMap<>(StateTask.class);
+        typeStates = new EnumMap<>(TypeTask.class);
+        long total = 0;
+        for (TypeTask typeTask : TypeTask.values()) {
+            Map<StateTask, Long> statesOfType = new EnumMap<>(StateTask.class);
+            long numberOfType = 0;
+            for (StateTask stateTask : StateTask.values()) {
+                long counter = typeStateCounters[typeTask.ordinal()][stateTask.ordinal()];
+                statesOfType.put(stateTask, counter);
+                states.merge(stateTask, counter, Long::sum);
+                numberOfType += counter;
+            }
+            typeStates.put(typeTask, statesOfType);
+            types.put(typeTask, numberOfType);
+            total += numberOfType;
+        }
+        this.total = total;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long get(TypeTask typeTask) {
+        return types.get(typeTask);
+    }
+
+    public long get(StateTask stateTask) {
+        return states.get(stateTask);
+    }
+
+    public long get(TypeTask typeTask, StateTask stateTask) {
+        return typeStates.get(typeTask).get(stateTask);
+    }
+}
@@ -1,12 +1,20 @@
 package models.repositories.tasks;
 
 import models.tasks.AbstractTask;
+import utils.IdAllocator;
 import utils.TaskCounter;
 
 public abstract class AbstractTasksRepository<T extends AbstractTask> implements ITasksRepository<T> {
     public final static TaskCounter TASK_COUNTER = TaskCounter.getInstance();
 
+    protected final IdAllocator idAllocator;
+
     protected AbstractTasksRepository() {
+        this(TASK_COUNTER);
+    }
+
+    protected AbstractTasksRepository(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
     }
 
     public abstract int size();
@@ -0,0 +1,224 @@
+package models.repositories.tasks;
+
+import exceptions.ManagerDependencyCycleException;
+import utils.collections.LongHashMap;
+
+import java.util.*;
+
+// "Blocked by" relations between tasks and stories with the earliest start of every item and the critical path.
+// A topological order is kept and repaired locally when a new edge goes against it (Pearce-Kelly): only the
+// items placed between the two ends are visited, and finding the blocker downstream of the blocked item means
+// a cycle, which is refused. Earliest starts are longest paths in minutes from the items nothing blocks.
+// After an edge or a duration changes they are recomputed in topological order for the downstream items only,
+// stopping wherever a value does not change. The critical path is the chain behind the latest finish,
+// the one with the latest start among equal finishes so items taking no time at its end are kept on it.
+public class DependencyGraph {
+    private static final Comparator<Node> FINISH_ORDER = Comparator.comparingLong(Node::finish)
+            .thenComparingLong(node -> node.earliestStart)
+            .thenComparingLong(node -> node.id);
+    private static final Comparator<Node> TOPOLOGICAL_ORDER = Comparator.comparingLong(node -> node.order);
+
+    private final LongHashMap<Node> nodes = new LongHashMap<>();
+    private final TreeSet<Node> byFinish = new TreeSet<>(FINISH_ORDER);
+    private long nextOrder;
+
+    private static class Node {
+        final long id;
+        final List<Node> blockers = new ArrayList<>();
+        final List<Node> blocked = new ArrayList<>();
+        long duration;
+        long earliestStart;
+        long order;
+
+        Node(long id, long duration, long order) {
+            this.id = id;
+            this.duration = duration;
+            this.order = order;
+        }
+
+        long finish() {
+            return earliestStart + duration;
+        }
+    }
+
+    public static class CriticalPath {
+        private final List<Long> ids;
+        private final long duration;
+
+        private CriticalPath(List<Long> ids, long duration) {
+            this.ids = ids;
+            this.duration = duration;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        // Minutes from the start of the first item to the end of the last one.
+        public long getDuration() {
+            return duration;
+        }
+    }
+
+    // Adds the item or changes its duration when it is already there.
+    public void put(long id, long duration) {
+        if (duration < 0) throw new IllegalArgumentException("duration must not be negative");
+        final Node node = nodes.get(id);
+        if (node == null) {
+            final Node newNode = new Node(id, duration, nextOrder++);
+            nodes.put(id, newNode);
+            byFinish.add(newNode);
+            return;
+        }
+        if (node.duration == duration) return;
+        byFinish.remove(node);
+        node.duration = duration;
+        byFinish.add(node);
+        propagate(node.blocked);
+    }
+
+    public boolean contains(long id) {
+        return nodes.containsKey(id);
+    }
+
+    public void remove(long id) {
+        final Node node = nodes.remove(id);
+        if (node == null) return;
+        byFinish.remove(node);
+        for (Node blocker : node.blockers) blocker.blocked.remove(node);
+        for (Node blocked : node.blocked) blocked.blockers.remove(node);
+        propagate(node.blocked);
+    }
+
+    public void clear() {
+        nodes.clear();
+        byFinish.clear();
+    }
+
+    // Returns false when the item was already blocked by the blocker.
+    public boolean addDependency(long id, long blockerId) {
+        final Node node = find(id);
+        final Node blocker = find(blockerId);
+        if (node == blocker) throw new ManagerDependencyCycleException(id, blockerId);
+        if (node.blockers.contains(blocker)) return false;
+        if (blocker.order > node.order) reorder(blocker, node);
+        node.blockers.add(blocker);
+        blocker.blocked.add(node);
+        propagate(List.of(node));
+        return true;
+    }
+
+    public boolean removeDependency(long id, long blockerId) {
+        final Node node = nodes.get(id);
+        final Node blocker = nodes.get(blockerId);
+        if (node == null || blocker == null || !node.blockers.remove(blocker)) return false;
+        blocker.blocked.remove(node);
+        propagate(List.of(node));
+        return true;
+    }
+
+    public List<Long> getBlockers(long id) {
+        return ids(nodes.get(id), true);
+    }
+
+    public List<Long> getBlocked(long id) {
+        return ids(nodes.get(id), false);
+    }
+
+    // Minutes after the start of the program at which the item can start at the earliest.
+    public long getEarliestStart(long id) {
+        return find(id).earliestStart;
+    }
+
+    public CriticalPath getCriticalPath() {
+        if (byFinish.isEmpty()) return new CriticalPath(List.of(), 0);
+        final LinkedList<Long> ids = new LinkedList<>();
+        Node node = byFinish.last();
+        final long duration = node.finish();
+        while (node != null) {
+            ids.addFirst(node.id);
+            Node next = null;
+            for (Node blocker : node.blockers) {
+                if (blocker.finish() == node.earliestStart) {
+                    next = blocker;
+                    break;
+                }
+            }
+            node = next;
+        }
+        return new CriticalPath(new ArrayList<>(ids), duration);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    // The new edge blocker -> node goes against the order. The items reachable from node that are placed up to
+    // the blocker and the items reaching the blocker that are placed from node on are the only ones out of
+    // place: the latter get the smallest of their positions and the former the rest, keeping their own order.
+    private void reorder(Node blocker, Node node) {
+        final List<Node> forward = reach(node, blocker.order, true);
+        if (forward.contains(blocker)) throw new ManagerDependencyCycleException(node.id, blocker.id);
+        final List<Node> backward = reach(blocker, node.order, false);
+        forward.sort(TOPOLOGICAL_ORDER);
+        backward.sort(TOPOLOGICAL_ORDER);
+        final long[] orders = new long[forward.size() + backward.size()];
+        int i = 0;
+        for (Node moved : backward) orders[i++] = moved.order;
+        for (Node moved : forward) orders[i++] = moved.order;
+        Arrays.sort(orders);
+        i = 0;
+        for (Node moved : backward) moved.order = orders[i++];
+        for (Node moved : forward) moved.order = orders[i++];
+    }
+
+    // Items reachable from the start downstream up to the order bound, or upstream down to it.
+    private static List<Node> reach(Node start, long bound, boolean downstream) {
+        final List<Node> reached = new ArrayList<>();
+        final Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Deque<Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        visited.add(start);
+        while (!stack.isEmpty()) {
+            final Node node = stack.pop();
+            reached.add(node);
+            for (Node next : downstream ? node.blocked : node.blockers) {
+                final boolean inRange = downstream ? next.order <= bound : next.order >= bound;
+                if (inRange && visited.add(next)) stack.push(next);
+            }
+        }
+        return reached;
+    }
+
+    // Recomputes earliest starts from the given items on, visiting items in topological order so every one
+    // is recomputed after all of its blockers, and going further only from the items whose value changed.
+    private void propagate(Collection<Node> changed) {
+        final PriorityQueue<Node> queue = new PriorityQueue<>(TOPOLOGICAL_ORDER);
+        final Set<Node> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Node node : changed) if (queued.add(node)) queue.add(node);
+        while (!queue.isEmpty()) {
+            final Node node = queue.poll();
+            queued.remove(node);
+            long earliestStart = 0;
+            for (Node blocker : node.blockers) earliestStart = Math.max(earliestStart, blocker.finish());
+            if (earliestStart == node.earliestStart) continue;
+            byFinish.remove(node);
+            node.earliestStart = earliestStart;
+            byFinish.add(node);
+            for (Node blocked : node.blocked) if (queued.add(blocked)) queue.add(blocked);
+        }
+    }
+
+    private Node find(long id) {
+        final Node node = nodes.get(id);
+        if (node == null) throw new IllegalArgumentException("There is no task or story with id = " + id);
+        return node;
+    }
+
+    private static List<Long> ids(Node node, boolean blockers) {
+        final List<Long> ids = new ArrayList<>();
+        if (node == null) return ids;
+        for (Node other : blockers ? node.blockers : node.blocked) ids.add(other.id);
+        return ids;
+    }
+}
@@ -2,23 +2,30 @@ package models.repositories.tasks;
 
 import models.tasks.Epic;
 import models.tasks.Story;
+import utils.IdAllocator;
 
 import java.util.*;
 
 public class EpicsRepository extends AbstractTasksRepository<Epic> {
 
     private final Map<Long, Epic> idEpicMap;
+    private final Map<Long, Epic> storyIdEpicMap;
 
     public EpicsRepository() {
-        super();
-        idEpicMap = new HashMap<>();
+        this(TASK_COUNTER);
+    }
+
+    public EpicsRepository(IdAllocator idAllocator) {
+        super(idAllocator);
+        idEpicMap = new LinkedHashMap<>();
+        storyIdEpicMap = new HashMap<>();
     }
 
     public EpicsRepository(Collection<Epic> epics) {
         this();
         Objects.requireNonNull(epics, "epics must not be null");
         for (Epic epic : epics) {
-            idEpicMap.put(TASK_COUNTER.increment(), Epic.createEpic(TASK_COUNTER.getValue(), epic));
+            add(epic);
         }
     }
 
@@ -34,28 +41,43 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
 
     @Override
     public Epic add(Epic epic) {
-        final Epic newEpic;
-        idEpicMap.put(TASK_COUNTER.increment(), newEpic = Epic.createEpic(TASK_COUNTER.getValue(), epic));
+        final long id = idAllocator.next();
+        final Epic newEpic = Epic.createEpic(id, epic);
+        idEpicMap.put(id, newEpic);
+        indexStories(newEpic);
         return newEpic;
     }
 
+    // Puts back an epic taken out before under its own id, together with its stories.
+    public Epic put(Epic epic) {
+        idEpicMap.put(epic.getId(), epic);
+        indexStories(epic);
+        return epic;
+    }
+
     @Override
     public Epic update(long id, Epic newEpic) {
         Epic currentEpic = idEpicMap.get(id);
         if (currentEpic != null) {
-            return currentEpic.setEpic(newEpic);
+            unindexStories(currentEpic);
+            currentEpic.setEpic(newEpic);
+            indexStories(currentEpic);
+            return currentEpic;
         }
         return null;
     }
 
     @Override
     public Epic delete(long id) {
-        return idEpicMap.remove(id);
+        final Epic epic = idEpicMap.remove(id);
+        if (epic != null) unindexStories(epic);
+        return epic;
     }
 
     @Override
     public void clear() {
         idEpicMap.clear();
+        storyIdEpicMap.clear();
     }
 
     @Override
@@ -63,6 +85,10 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
         return idEpicMap.size();
     }
 
+    public int storiesSize() {
+        return storyIdEpicMap.size();
+    }
+
     public Collection<Story> findAllStories(Epic epic) {
         Epic mapEpic = idEpicMap.get(epic.getId());
         if (mapEpic == null) return Collections.emptyList();
@@ -76,17 +102,17 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
     }
 
     public Story findStory(long id) {
-        Story story;
-        for (Epic epic : idEpicMap.values()) {
-            if ((story = findStory(id, epic)) != null) return story;
-        }
-        return null;
+        final Epic epic = storyIdEpicMap.get(id);
+        if (epic == null) return null;
+        return epic.getStory(id);
     }
 
     public Story addStory(Story story, Epic epic) {
         final Epic mapEpic = idEpicMap.get(epic.getId());
         if (mapEpic == null) return null;
-        return mapEpic.addStory(Story.createStory(TASK_COUNTER.increment(), story));
+        final Story newStory = mapEpic.addStory(Story.createStory(idAllocator.next(), story));
+        if (mapEpic.getStory(newStory.getId()) != null) storyIdEpicMap.put(newStory.getId(), mapEpic);
+        return newStory;
     }
 
     public Story updateStory(long id, Story story) {
@@ -99,6 +125,7 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
             deleteStory(id, currentEpicId);
             final Epic mapEpic = idEpicMap.get(story.getEpicId());
             if (mapEpic == null) return null;
+            storyIdEpicMap.put(id, mapEpic);
             return mapEpic.addStory(Story.createStory(id, story));
         }
         return null;
@@ -113,11 +140,14 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
     private Story deleteStory(long id, long epicId) {
         final Epic mapEpic = idEpicMap.get(epicId);
         if (mapEpic == null) return null;
+        storyIdEpicMap.remove(id);
         return mapEpic.removeStory(id);
     }
 
     public void clearStories(Epic epic) {
-        idEpicMap.get(epic.getId()).removeAllStories();
+        final Epic mapEpic = idEpicMap.get(epic.getId());
+        unindexStories(mapEpic);
+        mapEpic.removeAllStories();
     }
 
     public boolean isEmpty() {
@@ -127,4 +157,16 @@ public class EpicsRepository extends AbstractTasksRepository<Epic> {
     Map<Long, Epic> getIdEpicMap() {
         return idEpicMap;
     }
+
+    private void indexStories(Epic epic) {
+        for (Long storyId : epic.getIdStoryMap().keySet()) {
+            storyIdEpicMap.put(storyId, epic);
+        }
+    }
+
+    private void unindexStories(Epic epic) {
+        for (Long storyId : epic.getIdStoryMap().keySet()) {
+            storyIdEpicMap.remove(storyId);
+        }
+    }
 }
@@ -1,9 +1,10 @@
 package models.repositories.tasks;
 
 import models.tasks.Task;
+import utils.IdAllocator;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -12,14 +13,19 @@ public class TasksRepository extends AbstractTasksRepository<Task> {
     private final Map<Long, Task> idTaskMap;
 
     public TasksRepository() {
-        idTaskMap = new HashMap<>();
+        this(TASK_COUNTER);
+    }
+
+    public TasksRepository(IdAllocator idAllocator) {
+        super(idAllocator);
+        idTaskMap = new LinkedHashMap<>();
     }
 
     public TasksRepository(Collection<Task> tasks) {
         this();
         Objects.requireNonNull(tasks, "tasks must not be null");
         for (Task task : tasks) {
-            idTaskMap.put(TASK_COUNTER.increment(), Task.createTask(TASK_COUNTER.getValue(), task));
+            add(task);
         }
     }
 
@@ -35,11 +41,18 @@ public class TasksRepository extends AbstractTasksRepository<Task> {
 
     @Override
     public Task add(Task task) {
-        final Task newTask;
-        idTaskMap.put(TASK_COUNTER.increment(), newTask = Task.createTask(TASK_COUNTER.getValue(), task));
+        final long id = idAllocator.next();
+        final Task newTask = Task.createTask(id, task);
+        idTaskMap.put(id, newTask);
         return newTask;
     }
 
+    // Puts back a task taken out before under its own id.
+    public Task put(Task task) {
+        idTaskMap.put(task.getId(), task);
+        return task;
+    }
+
     @Override
     public Task update(long id, Task task) {
         final Task currentTask = idTaskMap.get(id);
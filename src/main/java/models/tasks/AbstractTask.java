@@ -14,6 +14,8 @@ public abstract class AbstractTask {
     protected StateTask stateTask;
     protected Duration duration;
     protected LocalDateTime startTime;
+    // Set on the instances a snapshot shares between its readers, which must then reject every change.
+    private transient boolean frozen;
 
     protected AbstractTask(Long id, String name, String description, TypeTask typeTask,
                            StateTask stateTask, Duration duration, LocalDateTime startTime) {
@@ -35,6 +37,7 @@ public abstract class AbstractTask {
     }
 
     protected void setName(String name) {
+        checkNotFrozen();
         this.name = name;
     }
 
@@ -43,6 +46,7 @@ public abstract class AbstractTask {
     }
 
     protected void setDescription(String description) {
+        checkNotFrozen();
         this.description = description;
     }
 
@@ -59,6 +63,7 @@ public abstract class AbstractTask {
     }
 
     public void setDuration(Duration duration) {
+        checkNotFrozen();
         this.duration = duration;
     }
 
@@ -67,6 +72,7 @@ public abstract class AbstractTask {
     }
 
     public void setStartTime(LocalDateTime startTime) {
+        checkNotFrozen();
         this.startTime = startTime;
     }
 
@@ -75,4 +81,16 @@ public abstract class AbstractTask {
         if (duration == null) return startTime;
         return startTime.plus(duration);
     }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    public void freeze() {
+        frozen = true;
+    }
+
+    protected void checkNotFrozen() {
+        if (frozen) throw new UnsupportedOperationException(typeTask + " " + id + " is frozen");
+    }
 }
@@ -5,13 +5,23 @@ import models.enums.TypeTask;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 
 public final class Epic extends AbstractTask {
     private Map<Long, Story> idStoryMap;
+    // Aggregates over the stories kept up to date by the epic's own story methods, so stories
+    // must be changed through the epic. They are transient and rebuilt lazily after deserialization.
+    private transient int[] storyStateCounters;
+    private transient Duration storiesDuration;
+    private transient TreeMap<LocalDateTime, Integer> storyStartTimes;
+    private transient TreeMap<LocalDateTime, Integer> storyEndTimes;
 
     public static class Builder {
         private long id;
@@ -65,10 +75,12 @@ public final class Epic extends AbstractTask {
         super(builder.id, builder.name, builder.description, TypeTask.EPIC, builder.stateTask, builder.duration,
                 builder.startTime);
         this.idStoryMap = new LinkedHashMap<>();
+        recalculateAggregates();
     }
 
     public static Epic createEpic(long id, Epic epic) {
-        return createEpic(id, epic.name, epic.description, epic.getStories(), epic.duration, epic.startTime);
+        return createEpic(id, epic.name, epic.description, changeable(epic.getStories()), epic.duration,
+                epic.startTime);
     }
 
     public static Epic createEpic(String name) {
@@ -120,25 +132,43 @@ public final class Epic extends AbstractTask {
     }
 
     public Story addStory(Story story) {
+        checkNotFrozen();
         if (this.id == story.getEpicId()) {
-            idStoryMap.put(story.getId(), story);
+            ensureAggregates();
+            final Story previousStory = idStoryMap.put(story.getId(), story);
+            if (previousStory != null) exclude(previousStory);
+            include(story);
             checkState();
         }
         return story;
     }
 
     public Story updateStory(long id, Story story) {
-        return idStoryMap.get(id).setStory(story);
+        checkNotFrozen();
+        ensureAggregates();
+        final Story currentStory = idStoryMap.get(id);
+        exclude(currentStory);
+        currentStory.setStory(story);
+        include(currentStory);
+        checkState();
+        return currentStory;
     }
 
     public Story removeStory(long id) {
+        checkNotFrozen();
+        ensureAggregates();
         Story story = idStoryMap.remove(id);
-        if (story != null) checkState();
+        if (story != null) {
+            exclude(story);
+            checkState();
+        }
         return story;
     }
 
     public void removeAllStories() {
+        checkNotFrozen();
         idStoryMap.clear();
+        recalculateAggregates();
         stateTask = StateTask.NEW;
     }
 
@@ -172,40 +202,25 @@ public final class Epic extends AbstractTask {
 
     @Override
     public Duration getDuration() {
-        Duration epicDuration = Duration.ZERO;
-        for (Story story : getStories()) {
-            epicDuration = epicDuration.plus(story.duration == null ? Duration.ZERO : story.duration);
-        }
-        return Duration.ZERO.equals(epicDuration) ? null : epicDuration;
+        ensureAggregates();
+        return Duration.ZERO.equals(storiesDuration) ? null : storiesDuration;
     }
 
     @Override
     public LocalDateTime getStartTime() {
-        LocalDateTime minStoryStartTime = LocalDateTime.MAX;
-        for (Story story : getStories()) {
-            final LocalDateTime storyStartTime = story.getStartTime();
-            if (storyStartTime != null && storyStartTime.isBefore(minStoryStartTime)) {
-                minStoryStartTime = storyStartTime;
-            }
-        }
-        return minStoryStartTime.equals(LocalDateTime.MAX) ? null : minStoryStartTime;
+        ensureAggregates();
+        return storyStartTimes.isEmpty() ? null : storyStartTimes.firstKey();
     }
 
     @Override
     public LocalDateTime getEndTime() {
         if ((startTime = getStartTime()) == null) return null;
         if ((duration = getDuration()) == null) return startTime;
-        LocalDateTime maxStoryEndTime = LocalDateTime.MIN;
-        for (Story story : getStories()) {
-            final LocalDateTime storyEndTime = story.getEndTime();
-            if (storyEndTime.isAfter(maxStoryEndTime)) {
-                maxStoryEndTime = storyEndTime;
-            }
-        }
-        return maxStoryEndTime.equals(LocalDateTime.MIN) ? null : maxStoryEndTime;
+        return storyEndTimes.lastKey();
     }
 
     public void setIdStoryMap(Collection<Story> stories) {
+        checkNotFrozen();
         int counterThisEpic = 0;
 
         for (Story story : stories) {
@@ -218,6 +233,7 @@ public final class Epic extends AbstractTask {
             for (Story story : stories) {
                 this.idStoryMap.put(story.getId(), story);
             }
+            recalculateAggregates();
             checkState();
         }
     }
@@ -226,7 +242,7 @@ public final class Epic extends AbstractTask {
         if (epic != null) {
             setName(epic.name);
             setDescription(epic.description);
-            setIdStoryMap(epic.idStoryMap.values());
+            setIdStoryMap(changeable(epic.idStoryMap.values()));
             setDuration(epic.duration);
             setStartTime(epic.startTime);
             checkState();
@@ -235,20 +251,36 @@ public final class Epic extends AbstractTask {
     }
 
     public void setStatusStory(long id, StateTask stateTask) {
+        checkNotFrozen();
         Story story = idStoryMap.get(id);
         if (id == story.getId()) {
+            ensureAggregates();
+            exclude(story);
             story.setStateTask(stateTask);
+            include(story);
             checkState();
         }
     }
 
+    // Its stories are frozen along with the epic; they are usually frozen already, being shared with a snapshot.
+    @Override
+    public void freeze() {
+        for (Story story : idStoryMap.values()) story.freeze();
+        idStoryMap = Collections.unmodifiableMap(idStoryMap);
+        super.freeze();
+    }
+
+    // Stories frozen in a snapshot are copied when another epic takes them over, so that epic can change them.
+    private static Collection<Story> changeable(Collection<Story> stories) {
+        final List<Story> changeable = new ArrayList<>(stories.size());
+        for (Story story : stories) changeable.add(story.isFrozen() ? Story.createStory(story.getId(), story) : story);
+        return changeable;
+    }
+
     private void checkState() {
-        int counterNewStatusStories = 0;
-        int counterDoneStatusStories = 0;
-        for (Story story : idStoryMap.values()) {
-            if (StateTask.NEW.equals(story.stateTask)) counterNewStatusStories++;
-            if (StateTask.DONE.equals(story.stateTask)) counterDoneStatusStories++;
-        }
+        ensureAggregates();
+        int counterNewStatusStories = storyStateCounters[StateTask.NEW.ordinal()];
+        int counterDoneStatusStories = storyStateCounters[StateTask.DONE.ordinal()];
         int storiesListLength = idStoryMap.size();
         if (counterNewStatusStories == storiesListLength) {
             stateTask = StateTask.NEW;
@@ -259,6 +291,38 @@ public final class Epic extends AbstractTask {
         }
     }
 
+    private void ensureAggregates() {
+        if (storyStateCounters == null) recalculateAggregates();
+    }
+
+    private void recalculateAggregates() {
+        storyStateCounters = new int[StateTask.values().length];
+        storiesDuration = Duration.ZERO;
+        storyStartTimes = new TreeMap<>();
+        storyEndTimes = new TreeMap<>();
+        for (Story story : idStoryMap.values()) {
+            include(story);
+        }
+    }
+
+    private void include(Story story) {
+        if (story.stateTask != null) storyStateCounters[story.stateTask.ordinal()]++;
+        if (story.duration != null) storiesDuration = storiesDuration.plus(story.duration);
+        if (story.startTime != null) {
+            storyStartTimes.merge(story.startTime, 1, Integer::sum);
+            storyEndTimes.merge(story.getEndTime(), 1, Integer::sum);
+        }
+    }
+
+    private void exclude(Story story) {
+        if (story.stateTask != null) storyStateCounters[story.stateTask.ordinal()]--;
+        if (story.duration != null) storiesDuration = storiesDuration.minus(story.duration);
+        if (story.startTime != null) {
+            storyStartTimes.computeIfPresent(story.startTime, (time, counter) -> counter == 1 ? null : counter - 1);
+            storyEndTimes.computeIfPresent(story.getEndTime(), (time, counter) -> counter == 1 ? null : counter - 1);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
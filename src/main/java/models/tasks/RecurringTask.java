@@ -0,0 +1,163 @@
+package models.tasks;
+
+import models.enums.StateTask;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// A rule for a task that repeats every period from the start time on, before until when it is set.
+// Occurrences are not stored anywhere: getOccurrence builds the one asked for as a Task with the id of the rule.
+public final class RecurringTask {
+    private final long id;
+    private final String name;
+    private final String description;
+    private final LocalDateTime startTime;
+    private final Duration duration;
+    private final Duration period;
+    private final LocalDateTime until;
+
+    public static class Builder {
+        private long id;
+        private final String name;
+        private String description;
+        private LocalDateTime startTime;
+        private Duration duration;
+        private Duration period;
+        private LocalDateTime until;
+
+        Builder(long id, String name) {
+            this(name);
+            this.id = id;
+        }
+
+        Builder(String name) {
+            this.name = Objects.requireNonNull(name, "name must not be null");
+        }
+
+        public Builder description(String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Builder startTime(LocalDateTime startTime) {
+            this.startTime = startTime;
+            return this;
+        }
+
+        public Builder duration(Duration duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        public Builder period(Duration period) {
+            this.period = period;
+            return this;
+        }
+
+        // Occurrences start before it; without it the task repeats endlessly.
+        public Builder until(LocalDateTime until) {
+            this.until = until;
+            return this;
+        }
+
+        public RecurringTask build() {
+            Objects.requireNonNull(startTime, "startTime must not be null");
+            Objects.requireNonNull(duration, "duration must not be null");
+            Objects.requireNonNull(period, "period must not be null");
+            if (duration.getSeconds() < 1) {
+                throw new IllegalArgumentException("duration must be at least a second");
+            }
+            if (period.compareTo(duration) < 0) {
+                throw new IllegalArgumentException("period must not be shorter than duration");
+            }
+            if (until != null && !until.isAfter(startTime)) {
+                throw new IllegalArgumentException("until must be after startTime");
+            }
+            return new RecurringTask(this);
+        }
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public static RecurringTask createRecurringTask(long id, RecurringTask recurringTask) {
+        return new Builder(id, recurringTask.name)
+                .description(recurringTask.description)
+                .startTime(recurringTask.startTime)
+                .duration(recurringTask.duration)
+                .period(recurringTask.period)
+                .until(recurringTask.until)
+                .build();
+    }
+
+    private RecurringTask(Builder builder) {
+        this.id = builder.id;
+        this.name = builder.name;
+        this.description = builder.description;
+        this.startTime = builder.startTime;
+        this.duration = builder.duration;
+        this.period = builder.period;
+        this.until = builder.until;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getPeriod() {
+        return period;
+    }
+
+    public LocalDateTime getUntil() {
+        return until;
+    }
+
+    public Task getOccurrence(long index) {
+        return Task.createTask(id, name, description, StateTask.NEW, duration,
+                startTime.plus(period.multipliedBy(index)));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RecurringTask that = (RecurringTask) o;
+        return id == that.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "RecurringTask{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", description='" + description + '\'' +
+                ", startTime=" + startTime +
+                ", duration=" + duration +
+                ", period=" + period +
+                ", until=" + until +
+                '}';
+    }
+}
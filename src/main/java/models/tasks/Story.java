@@ -129,6 +129,7 @@ public final class Story extends AbstractTask {
     }
 
     public void setEpicId(long epicId) {
+        checkNotFrozen();
         this.epicId = epicId;
     }
 
@@ -137,6 +138,7 @@ public final class Story extends AbstractTask {
     }
 
     public void setName(String name) {
+        checkNotFrozen();
         this.name = name;
     }
 
@@ -145,6 +147,7 @@ public final class Story extends AbstractTask {
     }
 
     public void setDescription(String description) {
+        checkNotFrozen();
         this.description = description;
     }
 
@@ -153,6 +156,7 @@ public final class Story extends AbstractTask {
     }
 
     public void setStateTask(StateTask stateTask) {
+        checkNotFrozen();
         this.stateTask = stateTask;
     }
 
@@ -128,6 +128,7 @@ public final class Task extends AbstractTask {
     }
 
     public void setName(String name) {
+        checkNotFrozen();
         this.name = name;
     }
 
@@ -136,6 +137,7 @@ public final class Task extends AbstractTask {
     }
 
     public void setDescription(String description) {
+        checkNotFrozen();
         this.description = description;
     }
 
@@ -145,6 +147,7 @@ public final class Task extends AbstractTask {
     }
 
     public void setStateTask(StateTask stateTask) {
+        checkNotFrozen();
         this.stateTask = stateTask;
     }
 
@@ -0,0 +1,29 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sequential ids owned by a single manager, so several managers in one JVM don't share a counter.
+public class AtomicIdAllocator implements IdAllocator {
+    private final AtomicLong counter = new AtomicLong();
+
+    @Override
+    public long next() {
+        return counter.incrementAndGet();
+    }
+
+    @Override
+    public long getValue() {
+        return counter.get();
+    }
+
+    @Override
+    public long reset() {
+        counter.set(0);
+        return 0;
+    }
+
+    @Override
+    public void advancePast(long id) {
+        counter.accumulateAndGet(id, Math::max);
+    }
+}
@@ -0,0 +1,12 @@
+package utils;
+
+public interface IdAllocator {
+    long next();
+
+    long getValue();
+
+    long reset();
+
+    // Makes sure next never hands out the id, which was read back from storage, or an id before it again.
+    void advancePast(long id);
+}
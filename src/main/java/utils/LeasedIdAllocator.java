@@ -0,0 +1,47 @@
+package utils;
+
+import web.clients.KVTaskClient;
+
+// Hands out ids from blocks leased from the KVServer, which keeps the highest leased id under the key,
+// so writers sharing one KVServer never collide and only go to the server once per block.
+public class LeasedIdAllocator implements IdAllocator {
+    private final KVTaskClient client;
+    private final String key;
+    private final int blockSize;
+    private long next;
+    private long end;
+
+    public LeasedIdAllocator(KVTaskClient client, String key, int blockSize) {
+        if (blockSize <= 0) throw new IllegalArgumentException("blockSize must be positive");
+        this.client = client;
+        this.key = key;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public synchronized long next() {
+        if (next == end) {
+            next = client.lease(key, blockSize);
+            end = next + blockSize;
+        }
+        return next++;
+    }
+
+    @Override
+    public synchronized long getValue() {
+        return next - 1;
+    }
+
+    // Drops the rest of the current block; the ids already leased are never handed out again.
+    @Override
+    public synchronized long reset() {
+        next = end = 0;
+        return 0;
+    }
+
+    // The server never leases an id twice, so only the rest of the current block can hold the id.
+    @Override
+    public synchronized void advancePast(long id) {
+        if (id >= next && id < end) next = id + 1;
+    }
+}
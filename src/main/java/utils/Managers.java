@@ -1,9 +1,11 @@
 package utils;
 
 
+import managers.ConcurrentTaskManager;
 import managers.FileBackedTaskManager;
 import managers.HTTPTaskManager;
 import managers.InMemoryTaskManager;
+import managers.SnapshotTaskManager;
 
 import java.net.URI;
 import java.nio.file.Path;
@@ -20,4 +22,12 @@ public class Managers {
     public static InMemoryTaskManager getInMemory() {
         return new InMemoryTaskManager();
     }
+
+    public static ConcurrentTaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    public static SnapshotTaskManager getSnapshot() {
+        return new SnapshotTaskManager();
+    }
 }
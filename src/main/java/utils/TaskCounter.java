@@ -1,7 +1,10 @@
 package utils;
 
-public class TaskCounter {
-    private long counter;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The process-wide allocator every manager uses unless it is given its own.
+public class TaskCounter implements IdAllocator {
+    private final AtomicLong counter = new AtomicLong();
 
     private TaskCounter() {
     }
@@ -14,20 +17,32 @@ public class TaskCounter {
         return HolderTaskCounter.instance;
     }
 
+    @Override
+    public long next() {
+        return increment();
+    }
+
+    @Override
     public long getValue() {
-        return counter;
+        return counter.get();
     }
 
     public void setValue(long value) {
-        counter = value;
+        counter.set(value);
     }
 
     public long increment() {
-        return ++counter;
+        return counter.incrementAndGet();
     }
 
+    @Override
     public long reset() {
-        return counter = 0;
+        counter.set(0);
+        return 0;
     }
 
+    @Override
+    public void advancePast(long id) {
+        counter.accumulateAndGet(id, Math::max);
+    }
 }
@@ -0,0 +1,67 @@
+package utils;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 64-bit ids laid out as 41 bits of milliseconds since EPOCH, 10 bits of node and 12 bits of sequence,
+// so every node creates ids on its own without any coordination. Ids of one node only grow;
+// when a millisecond runs out of sequence numbers, the next ids borrow from the following milliseconds.
+public class TimeNodeIdAllocator implements IdAllocator {
+    public static final long EPOCH = 1640995200000L; // 2022-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    private final long node;
+    private final Clock clock;
+    private final AtomicLong last = new AtomicLong();
+
+    public TimeNodeIdAllocator(int node, Clock clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("node must be between 0 and " + MAX_NODE);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    public TimeNodeIdAllocator(int node) {
+        this(node, Clock.systemUTC());
+    }
+
+    @Override
+    public long next() {
+        final long now = (clock.millis() - EPOCH) << SEQUENCE_BITS;
+        return compose(last.updateAndGet(previous -> Math.max(previous + 1, now)));
+    }
+
+    @Override
+    public long getValue() {
+        final long timeAndSequence = last.get();
+        return timeAndSequence == 0 ? 0 : compose(timeAndSequence);
+    }
+
+    // Time based ids can't be rewound without repeating themselves, so a reset keeps the allocator as it is.
+    @Override
+    public long reset() {
+        return getValue();
+    }
+
+    // Ids of other nodes never collide with the ones of this node.
+    @Override
+    public void advancePast(long id) {
+        if (nodeOf(id) != node) return;
+        final long timeAndSequence = (id >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS
+                | id & ((1L << SEQUENCE_BITS) - 1);
+        last.accumulateAndGet(timeAndSequence, Math::max);
+    }
+
+    private long compose(long timeAndSequence) {
+        final long time = timeAndSequence >>> SEQUENCE_BITS;
+        final long sequence = timeAndSequence & ((1L << SEQUENCE_BITS) - 1);
+        return time << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | sequence;
+    }
+
+    public static int nodeOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE;
+    }
+}
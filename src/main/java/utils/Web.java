@@ -19,6 +19,14 @@ public class Web {
                 .collect(Collectors.toList());
     }
 
+    public static Map<String, String> getQueryParametersMap(URI uri) {
+        Map<String, String> queryParameters = new HashMap<>();
+        for (Map.Entry<String, String> queryParameter : getQueryParameters(uri)) {
+            queryParameters.putIfAbsent(queryParameter.getKey(), queryParameter.getValue());
+        }
+        return queryParameters;
+    }
+
     private static String decode(final String encoded) {
         return Optional.ofNullable(encoded)
                 .map(e -> URLDecoder.decode(e, StandardCharsets.UTF_8))
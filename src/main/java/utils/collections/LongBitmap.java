@@ -0,0 +1,345 @@
+package utils.collections;
+
+import java.util.*;
+
+// Compressed set of long ids in the manner of Roaring bitmaps: ids are split by their high 48 bits into
+// containers of 65536 values, kept as a sorted char array while they hold up to 4096 values and as a plain
+// bitmap of 1024 longs beyond that. Sequential ids cost about a bit each and scattered ones two bytes.
+// Iteration is in ascending order; iterators don't support remove and fail on concurrent changes.
+public class LongBitmap implements Iterable<Long> {
+    private static final int CONTAINER_BITS = 16;
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = (1 << CONTAINER_BITS) / Long.SIZE;
+
+    private final TreeMap<Long, Container> containers = new TreeMap<>();
+    private long cardinality;
+    private int modCount;
+
+    public boolean add(long value) {
+        final long key = value >>> CONTAINER_BITS;
+        final char low = (char) value;
+        final Container container = containers.get(key);
+        if (container == null) {
+            containers.put(key, new ArrayContainer().add(low));
+        } else {
+            if (container.contains(low)) return false;
+            containers.put(key, container.add(low));
+        }
+        cardinality++;
+        modCount++;
+        return true;
+    }
+
+    public boolean remove(long value) {
+        final long key = value >>> CONTAINER_BITS;
+        final char low = (char) value;
+        final Container container = containers.get(key);
+        if (container == null || !container.contains(low)) return false;
+        final Container result = container.remove(low);
+        if (result.cardinality() == 0) containers.remove(key);
+        else containers.put(key, result);
+        cardinality--;
+        modCount++;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        final Container container = containers.get(value >>> CONTAINER_BITS);
+        return container != null && container.contains((char) value);
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public void clear() {
+        containers.clear();
+        cardinality = 0;
+        modCount++;
+    }
+
+    public static LongBitmap and(LongBitmap bitmap1, LongBitmap bitmap2) {
+        if (bitmap1.containers.size() > bitmap2.containers.size()) return and(bitmap2, bitmap1);
+        final LongBitmap result = new LongBitmap();
+        for (Map.Entry<Long, Container> entry : bitmap1.containers.entrySet()) {
+            final Container other = bitmap2.containers.get(entry.getKey());
+            if (other == null) continue;
+            final Container container = entry.getValue().and(other);
+            if (container.cardinality() == 0) continue;
+            result.containers.put(entry.getKey(), container);
+            result.cardinality += container.cardinality();
+        }
+        return result;
+    }
+
+    public static LongBitmap or(LongBitmap bitmap1, LongBitmap bitmap2) {
+        final LongBitmap result = new LongBitmap();
+        for (LongBitmap bitmap : List.of(bitmap1, bitmap2)) {
+            for (Map.Entry<Long, Container> entry : bitmap.containers.entrySet()) {
+                final Container container = result.containers.get(entry.getKey());
+                result.containers.put(entry.getKey(), container == null
+                        ? entry.getValue().or(new ArrayContainer())
+                        : container.or(entry.getValue()));
+            }
+        }
+        for (Container container : result.containers.values()) result.cardinality += container.cardinality();
+        return result;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return iterator(0);
+    }
+
+    // Iterates the values not less than from, treating the values as unsigned.
+    public PrimitiveIterator.OfLong iterator(long from) {
+        return new PrimitiveIterator.OfLong() {
+            private final int expectedModCount = modCount;
+            private final Iterator<Map.Entry<Long, Container>> entries =
+                    containers.tailMap(from >>> CONTAINER_BITS, true).entrySet().iterator();
+            private Map.Entry<Long, Container> entry;
+            private int next = -1;
+
+            {
+                if (entries.hasNext()) {
+                    entry = entries.next();
+                    advance(entry.getKey() == from >>> CONTAINER_BITS ? (char) from : 0);
+                }
+            }
+
+            private void advance(int low) {
+                next = entry == null ? -1 : entry.getValue().next(low);
+                while (next == -1 && entries.hasNext()) {
+                    entry = entries.next();
+                    next = entry.getValue().next(0);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != -1;
+            }
+
+            @Override
+            public long nextLong() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (!hasNext()) throw new NoSuchElementException();
+                final long value = entry.getKey() << CONTAINER_BITS | next;
+                advance(next + 1);
+                return value;
+            }
+        };
+    }
+
+    // Iterates the values of all the bitmaps not less than from in ascending order without building their union,
+    // by merging one iterator per bitmap. Values in several bitmaps come once.
+    public static PrimitiveIterator.OfLong unionIterator(Collection<LongBitmap> bitmaps, long from) {
+        final PrimitiveIterator.OfLong[] iterators = new PrimitiveIterator.OfLong[bitmaps.size()];
+        final long[] heads = new long[iterators.length];
+        int count = 0;
+        for (LongBitmap bitmap : bitmaps) {
+            final PrimitiveIterator.OfLong iterator = bitmap.iterator(from);
+            if (!iterator.hasNext()) continue;
+            heads[count] = iterator.nextLong();
+            iterators[count++] = iterator;
+        }
+        final int live = count;
+        return new PrimitiveIterator.OfLong() {
+            private int size = live;
+
+            @Override
+            public boolean hasNext() {
+                return size > 0;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) throw new NoSuchElementException();
+                long value = heads[0];
+                for (int i = 1; i < size; i++) {
+                    if (Long.compareUnsigned(heads[i], value) < 0) value = heads[i];
+                }
+                for (int i = 0; i < size; ) {
+                    if (heads[i] != value) {
+                        i++;
+                    } else if (iterators[i].hasNext()) {
+                        heads[i] = iterators[i].nextLong();
+                        i++;
+                    } else {
+                        size--;
+                        iterators[i] = iterators[size];
+                        heads[i] = heads[size];
+                    }
+                }
+                return value;
+            }
+        };
+    }
+
+    private abstract static class Container {
+        abstract boolean contains(char low);
+
+        // Both return the container that holds the result, which may be a converted one.
+        abstract Container add(char low);
+
+        abstract Container remove(char low);
+
+        abstract int cardinality();
+
+        // The smallest value not less than from, or -1.
+        abstract int next(int from);
+
+        // A new container with the values of both.
+        Container or(Container other) {
+            if (cardinality() + other.cardinality() <= ARRAY_LIMIT) {
+                final ArrayContainer result = new ArrayContainer();
+                int value = next(0);
+                int otherValue = other.next(0);
+                while (value != -1 || otherValue != -1) {
+                    if (otherValue == -1 || value != -1 && value < otherValue) {
+                        result.append((char) value);
+                        value = next(value + 1);
+                    } else {
+                        result.append((char) otherValue);
+                        if (value == otherValue) value = next(value + 1);
+                        otherValue = other.next(otherValue + 1);
+                    }
+                }
+                return result;
+            }
+            final BitmapContainer result = new BitmapContainer();
+            for (Container container : new Container[]{this, other}) {
+                for (int value = container.next(0); value != -1; value = container.next(value + 1)) {
+                    result.words[value >>> 6] |= 1L << value;
+                }
+            }
+            for (long word : result.words) result.cardinality += Long.bitCount(word);
+            return result.cardinality > ARRAY_LIMIT ? result : result.toArray();
+        }
+
+        Container and(Container other) {
+            if (this instanceof BitmapContainer && other instanceof BitmapContainer) {
+                return ((BitmapContainer) this).and((BitmapContainer) other);
+            }
+            final Container smaller = cardinality() <= other.cardinality() ? this : other;
+            final Container larger = smaller == this ? other : this;
+            final ArrayContainer result = new ArrayContainer();
+            for (int value = smaller.next(0); value != -1; value = smaller.next(value + 1)) {
+                if (larger.contains((char) value)) result.append((char) value);
+            }
+            return result;
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values = new char[4];
+        private int size;
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        Container add(char low) {
+            final int index = -Arrays.binarySearch(values, 0, size, low) - 1;
+            if (size == ARRAY_LIMIT) {
+                final BitmapContainer bitmap = new BitmapContainer();
+                for (int i = 0; i < size; i++) bitmap.add(values[i]);
+                return bitmap.add(low);
+            }
+            if (size == values.length) values = Arrays.copyOf(values, Math.min(size * 2, ARRAY_LIMIT));
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = low;
+            size++;
+            return this;
+        }
+
+        // Adds a value greater than all the others.
+        void append(char low) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = low;
+        }
+
+        @Override
+        Container remove(char low) {
+            final int index = Arrays.binarySearch(values, 0, size, low);
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return this;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        int next(int from) {
+            if (from > Character.MAX_VALUE) return -1;
+            int index = Arrays.binarySearch(values, 0, size, (char) from);
+            if (index < 0) index = -index - 1;
+            return index < size ? values[index] : -1;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words = new long[BITMAP_WORDS];
+        private int cardinality;
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & 1L << low) != 0;
+        }
+
+        @Override
+        Container add(char low) {
+            words[low >>> 6] |= 1L << low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            words[low >>> 6] &= ~(1L << low);
+            cardinality--;
+            return cardinality > ARRAY_LIMIT ? this : toArray();
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int next(int from) {
+            int word = from >>> 6;
+            if (word >= BITMAP_WORDS) return -1;
+            long bits = words[word] & -1L << from;
+            while (bits == 0) {
+                if (++word == BITMAP_WORDS) return -1;
+                bits = words[word];
+            }
+            return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+        }
+
+        Container and(BitmapContainer other) {
+            final BitmapContainer result = new BitmapContainer();
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result.words[i] = words[i] & other.words[i];
+                result.cardinality += Long.bitCount(result.words[i]);
+            }
+            return result.cardinality > ARRAY_LIMIT ? result : result.toArray();
+        }
+
+        private ArrayContainer toArray() {
+            final ArrayContainer array = new ArrayContainer();
+            for (int value = next(0); value != -1; value = next(value + 1)) array.append((char) value);
+            return array;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package utils.collections;
+
+import java.util.*;
+
+// Open addressing map from primitive long keys with linear probing and backward shift deletion,
+// so there are neither boxed keys nor entry objects nor tombstones. Null values aren't allowed,
+// a null slot marks an empty one. Iteration order is unspecified and iterators don't support remove.
+public class LongHashMap<V> extends AbstractMap<Long, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6F;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int threshold;
+    private int modCount;
+
+    public LongHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongHashMap(int expectedSize) {
+        allocate(LongHashing.capacityFor(expectedSize, LOAD_FACTOR));
+    }
+
+    public V get(long key) {
+        final int slot = find(key);
+        return slot < 0 ? null : value(slot);
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "value must not be null");
+        final int mask = values.length - 1;
+        int slot = LongHashing.hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                final V previous = value(slot);
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        modCount++;
+        if (++size > threshold) resize(values.length << 1);
+        return null;
+    }
+
+    public V remove(long key) {
+        final int slot = find(key);
+        if (slot < 0) return null;
+        final V previous = value(slot);
+        shiftBack(slot);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Long ? get((long) (Long) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Long && containsKey((long) (Long) key);
+    }
+
+    @Override
+    public V put(Long key, V value) {
+        return put((long) key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Long ? remove((long) (Long) key) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<Long, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Long, V>> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    Entry<Long, V> element(int slot) {
+                        return new SimpleImmutableEntry<>(keys[slot], value(slot));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    V element(int slot) {
+                        return value(slot);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private abstract class SlotIterator<E> implements Iterator<E> {
+        private final int expectedModCount = modCount;
+        private int slot = advance(0);
+
+        abstract E element(int slot);
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) from++;
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return slot < values.length;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (!hasNext()) throw new NoSuchElementException();
+            final E element = element(slot);
+            slot = advance(slot + 1);
+            return element;
+        }
+    }
+
+    private int find(long key) {
+        final int mask = values.length - 1;
+        int slot = LongHashing.hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Moves back every following entry of the probe run that may not stay behind the freed slot.
+    private void shiftBack(int gap) {
+        final int mask = values.length - 1;
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null) break;
+            final int home = LongHashing.hash(keys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        values[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = LongHashing.hash(oldKeys[i]) & mask;
+            while (values[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int slot) {
+        return (V) values[slot];
+    }
+}
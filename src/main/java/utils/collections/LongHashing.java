@@ -0,0 +1,19 @@
+package utils.collections;
+
+final class LongHashing {
+    private LongHashing() {
+    }
+
+    // Fibonacci hashing spreads sequential ids over the whole table.
+    static int hash(long key) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    static int capacityFor(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize must not be negative");
+        int capacity = 2;
+        while (capacity * loadFactor < expectedSize + 1) capacity <<= 1;
+        return capacity;
+    }
+}
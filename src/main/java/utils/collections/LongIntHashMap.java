@@ -0,0 +1,123 @@
+package utils.collections;
+
+import java.util.Arrays;
+
+// Open addressing map from primitive long keys to non-negative ints, laid out like LongHashMap.
+// MISSING marks an empty slot and is what get returns for an absent key.
+public class LongIntHashMap {
+    public static final int MISSING = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6F;
+
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int threshold;
+
+    public LongIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(LongHashing.capacityFor(expectedSize, LOAD_FACTOR));
+    }
+
+    public int get(long key) {
+        final int mask = values.length - 1;
+        int slot = LongHashing.hash(key) & mask;
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    public int put(long key, int value) {
+        if (value < 0) throw new IllegalArgumentException("value must not be negative");
+        final int mask = values.length - 1;
+        int slot = LongHashing.hash(key) & mask;
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                final int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) resize(values.length << 1);
+        return MISSING;
+    }
+
+    public int remove(long key) {
+        final int mask = values.length - 1;
+        int slot = LongHashing.hash(key) & mask;
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                final int previous = values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != MISSING) consumer.accept(keys[i], values[i]);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, MISSING);
+        size = 0;
+    }
+
+    private void shiftBack(int gap) {
+        final int mask = values.length - 1;
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == MISSING) break;
+            final int home = LongHashing.hash(keys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        values[gap] = MISSING;
+    }
+
+    private void resize(int capacity) {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == MISSING) continue;
+            int slot = LongHashing.hash(oldKeys[i]) & mask;
+            while (values[slot] != MISSING) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
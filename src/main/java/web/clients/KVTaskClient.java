@@ -63,6 +63,26 @@ public class KVTaskClient {
         return response;
     }
 
+    // Returns the first id of a block of size ids reserved under the key.
+    public long lease(String key, long size) {
+        URI path = URI.create(url + String.format("lease/%s?API_KEY=%s&size=%d", key, serverKey, size));
+        request = HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .uri(path)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("The KVServer refused to lease ids for the key " + key
+                        + ", status code: " + response.statusCode());
+            }
+            return Long.parseLong(response.body());
+        } catch (IOException | InterruptedException e) {
+            throw new IllegalStateException("Couldn't lease ids for the key " + key, e);
+        }
+    }
+
     public URI getUrl() {
         return url;
     }
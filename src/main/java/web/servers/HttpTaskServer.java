@@ -2,11 +2,15 @@ package web.servers;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import exceptions.ManagerDependencyCycleException;
 import exceptions.ManagerIllegalMethodRequestException;
+import exceptions.ManagerIntersectionTaskIntervalsException;
 import exceptions.ManagerTaskNotFoundException;
-import managers.FileBackedTaskManager;
 import managers.TaskManager;
+import managers.boards.BoardRegistry;
+import web.servers.handlers.ClientFilter;
 import web.servers.handlers.httpTaskServer.*;
 import web.servers.typeAdapters.DurationAdapter;
 import web.servers.typeAdapters.ExceptionAdapter;
@@ -18,6 +22,12 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 
 public class HttpTaskServer {
@@ -27,14 +37,32 @@ public class HttpTaskServer {
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
             .registerTypeAdapter(ManagerIllegalMethodRequestException.class, new ExceptionAdapter())
             .registerTypeAdapter(ManagerTaskNotFoundException.class, new ExceptionAdapter())
+            .registerTypeAdapter(ManagerDependencyCycleException.class, new ExceptionAdapter())
+            .registerTypeAdapter(ManagerIntersectionTaskIntervalsException.class, new ExceptionAdapter())
             .create();
+    // The context paths of the handlers with the way to build each one for a manager.
+    private static final Map<String, Function<TaskManager, HttpHandler>> HANDLERS = handlers();
     private final int port;
     private HttpServer httpTaskServer;
     private final TaskManager manager;
+    private final BoardRegistry boards;
+    private ExecutorService workers;
 
-    public HttpTaskServer(TaskManager manager, int port, String hostname) {
+    // With workerThreads > 0 requests are handled by a pool of that size instead of the server's own thread,
+    // which only makes sense for a manager that is safe to share between threads, e.g. ConcurrentTaskManager.
+    public HttpTaskServer(TaskManager manager, int port, String hostname, int workerThreads) {
+        this(manager, null, port, hostname, workerThreads);
+    }
+
+    // Serves every board of the registry under /boards/{key}/, e.g. /boards/team1/tasks/task?id=1.
+    public HttpTaskServer(BoardRegistry boards, int port, String hostname, int workerThreads) {
+        this(null, boards, port, hostname, workerThreads);
+    }
+
+    private HttpTaskServer(TaskManager manager, BoardRegistry boards, int port, String hostname, int workerThreads) {
         this.port = port;
         this.manager = manager;
+        this.boards = boards;
         try {
             httpTaskServer = HttpServer.create(new InetSocketAddress(hostname, port), 0);
         } catch (IOException e) {
@@ -42,9 +70,17 @@ public class HttpTaskServer {
                     + "and with hostname: " + hostname);
             e.printStackTrace();
         }
+        if (workerThreads > 0) {
+            workers = Executors.newFixedThreadPool(workerThreads);
+            httpTaskServer.setExecutor(workers);
+        }
         loadContexts();
     }
 
+    public HttpTaskServer(TaskManager manager, int port, String hostname) {
+        this(manager, port, hostname, 0);
+    }
+
     public HttpTaskServer(TaskManager manager, int port) {
         this(manager, port, "localhost");
     }
@@ -56,6 +92,7 @@ public class HttpTaskServer {
 
     public void stop(int delay) {
         httpTaskServer.stop(delay);
+        if (workers != null) workers.shutdown();
         System.out.println("The HttpTaskServer's been stopped on the port " + port);
     }
 
@@ -63,15 +100,54 @@ public class HttpTaskServer {
         defaultCharset = charset;
     }
 
+    public static Map<String, HttpHandler> createHandlers(TaskManager manager) {
+        Map<String, HttpHandler> handlers = new LinkedHashMap<>();
+        HANDLERS.forEach((path, handler) -> handlers.put(path, handler.apply(manager)));
+        return handlers;
+    }
+
+    // The handler the server would pick for the path, i.e. the one with the longest matching context path,
+    // or null. Only that one handler is built.
+    public static HttpHandler createHandler(TaskManager manager, String path) {
+        String contextPath = null;
+        for (String handlerPath : HANDLERS.keySet()) {
+            if (path.startsWith(handlerPath) && (contextPath == null || handlerPath.length() > contextPath.length())) {
+                contextPath = handlerPath;
+            }
+        }
+        return contextPath == null ? null : HANDLERS.get(contextPath).apply(manager);
+    }
+
+    private static Map<String, Function<TaskManager, HttpHandler>> handlers() {
+        Map<String, Function<TaskManager, HttpHandler>> handlers = new LinkedHashMap<>();
+        handlers.put("/tasks/task/", TasksHandler::new);
+        handlers.put("/tasks/task", TaskHandler::new);
+        handlers.put("/tasks/epic/", EpicsHandler::new);
+        handlers.put("/tasks/epic", EpicHandler::new);
+        handlers.put("/tasks/stories/epic", StoriesHandler::new);
+        handlers.put("/tasks/story", StoryHandler::new);
+        handlers.put("/tasks/slots", SlotsHandler::new);
+        handlers.put("/tasks/stats", StatsHandler::new);
+        handlers.put("/tasks/search", SearchHandler::new);
+        handlers.put("/tasks/analytics", AnalyticsHandler::new);
+        handlers.put("/tasks/calendar", CalendarHandler::new);
+        handlers.put("/tasks/recurring", RecurringTasksHandler::new);
+        handlers.put("/tasks/dependencies", DependenciesHandler::new);
+        handlers.put("/tasks/critical-path", CriticalPathHandler::new);
+        handlers.put("/tasks/history", HistoryHandler::new);
+        handlers.put("/tasks/", PrioritizedTasksHandler::new);
+        return Collections.unmodifiableMap(handlers);
+    }
+
     private void loadContexts() {
-        httpTaskServer.createContext("/tasks/task/", new TasksHandler(manager));
-        httpTaskServer.createContext("/tasks/task", new TaskHandler(manager));
-        httpTaskServer.createContext("/tasks/epic/", new EpicsHandler(manager));
-        httpTaskServer.createContext("/tasks/epic", new EpicHandler(manager));
-        httpTaskServer.createContext("/tasks/stories/epic", new StoriesHandler(manager));
-        httpTaskServer.createContext("/tasks/story", new StoryHandler(manager));
-        httpTaskServer.createContext("/tasks/history", new HistoryHandler((FileBackedTaskManager) manager));
-        httpTaskServer.createContext("/tasks/", new PrioritizedTasksHandler((FileBackedTaskManager) manager));
+        final ClientFilter clientFilter = new ClientFilter();
+        if (manager != null) {
+            createHandlers(manager).forEach((path, handler) ->
+                    httpTaskServer.createContext(path, handler).getFilters().add(clientFilter));
+        }
+        if (boards != null) {
+            httpTaskServer.createContext("/boards/", new BoardsHandler(boards)).getFilters().add(clientFilter);
+        }
     }
 
 }
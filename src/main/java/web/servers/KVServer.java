@@ -1,6 +1,7 @@
 package web.servers;
 
 import com.sun.net.httpserver.HttpServer;
+import web.servers.handlers.KVServer.LeaseHandler;
 import web.servers.handlers.KVServer.LoadHandler;
 import web.servers.handlers.KVServer.RegisterHandler;
 import web.servers.handlers.KVServer.SaveHandler;
@@ -19,6 +20,7 @@ public class KVServer {
     private final String apiKey;
     private HttpServer KVServer;
     private final Map<String, String> data = new HashMap<>();
+    private final Map<String, Long> leases = new HashMap<>();
 
     public KVServer(int port, String hostname, boolean isDebugMode) {
         this.port = port;
@@ -60,5 +62,6 @@ public class KVServer {
         KVServer.createContext("/register", new RegisterHandler(apiKey));
         KVServer.createContext("/save", new SaveHandler(apiKey, data));
         KVServer.createContext("/load", new LoadHandler(apiKey, data));
+        KVServer.createContext("/lease", new LeaseHandler(apiKey, leases));
     }
 }
@@ -47,7 +47,10 @@ public abstract class AbstractHttpHandler implements HttpHandler {
         exchange.sendResponseHeaders(405, -1);
     }
 
+    // Handlers call it from finally, so it must not fail the exchange when a response is already sent:
+    // the exception would skip closing it and the buffered body could be lost with the connection.
     protected void sendInternalServerErrorRequestResponseHeaders(HttpExchange exchange) throws IOException {
+        if (exchange.getResponseCode() != -1) return;
         exchange.sendResponseHeaders(500, -1);
     }
 
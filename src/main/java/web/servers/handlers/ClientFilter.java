@@ -0,0 +1,30 @@
+package web.servers.handlers;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import managers.history.PartitionedHistoryManager;
+
+import java.io.IOException;
+
+// Sets the client of the request on the handling thread, so that the history it records and reads
+// is its own; requests without the header share the default partition.
+// The header only names a partition and is not checked against anything, so it is no authenticated
+// identity: anyone who sends a client's key reads and changes that client's history.
+public class ClientFilter extends Filter {
+    public static final String CLIENT_HEADER = "X-Api-Key";
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        PartitionedHistoryManager.setClient(exchange.getRequestHeaders().getFirst(CLIENT_HEADER));
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            PartitionedHistoryManager.setClient(null);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Sets the client of the request from the " + CLIENT_HEADER + " header";
+    }
+}
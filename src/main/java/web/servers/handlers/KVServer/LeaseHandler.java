@@ -0,0 +1,68 @@
+package web.servers.handlers.KVServer;
+
+import com.sun.net.httpserver.HttpExchange;
+import utils.Web;
+import web.servers.KVServer;
+import web.servers.handlers.AbstractHttpHandler;
+
+import java.io.IOException;
+import java.util.Map;
+
+// Keeps the highest leased id under the key and answers with the first id of the next block,
+// so leases are atomic even when several managers share the KVServer. The counters live apart from
+// the saved values, so a save under the same key can't reset them.
+public class LeaseHandler extends AbstractHttpHandler {
+    private final String apiKey;
+    private final Map<String, Long> leases;
+
+    public LeaseHandler(String apiKey, Map<String, Long> leases) {
+        this.apiKey = apiKey;
+        this.leases = leases;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!hasAuth(exchange)) {
+                System.out.println("The request is unauthorized, you need a parameter in the query API_KEY with the value of the api key");
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "POST":
+                    String key = exchange.getRequestURI().getPath().substring("/lease/".length());
+                    String size = Web.getQueryParametersMap(exchange.getRequestURI()).get("size");
+                    if (key.isEmpty() || size == null || Long.parseLong(size) <= 0) {
+                        System.out.println("The key is empty or the size isn't positive");
+                        exchange.sendResponseHeaders(400, -1);
+                        return;
+                    }
+                    long first;
+                    synchronized (leases) {
+                        long leased = leases.getOrDefault(key, 0L);
+                        first = leased + 1;
+                        leases.put(key, Math.addExact(leased, Long.parseLong(size)));
+                    }
+                    sendText(exchange, String.valueOf(first), 200, KVServer.defaultCharset);
+                    System.out.println("The ids from " + first + " for the key " + key + " have been leased successfully!");
+                    break;
+                default:
+                    exchange.sendResponseHeaders(405, -1);
+                    System.out.println("/lease received " + exchange.getRequestMethod() + " request");
+                    System.out.println("This context (/lease) can only work with the following methods: POST");
+            }
+        } catch (NumberFormatException e) {
+            exchange.sendResponseHeaders(400, -1);
+        } catch (ArithmeticException e) {
+            System.out.println("The ids under the key have run out");
+            exchange.sendResponseHeaders(409, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    protected boolean hasAuth(HttpExchange exchange) {
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        return rawQuery != null && (rawQuery.contains("API_KEY=" + apiKey) || rawQuery.contains("API_KEY=DEBUG"));
+    }
+}
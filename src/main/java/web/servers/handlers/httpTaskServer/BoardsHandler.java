@@ -0,0 +1,54 @@
+package web.servers.handlers.httpTaskServer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import managers.TaskManager;
+import managers.boards.BoardRegistry;
+import web.servers.HttpTaskServer;
+import web.servers.handlers.AbstractHttpHandler;
+
+import java.io.IOException;
+
+// Takes the board key from /boards/{key}/... and passes the request on to the handler the single board
+// server would pick for the rest of the path, i.e. the one with the longest matching context path.
+// The board is leased for the whole request, so the registry can't drop it while the request still uses it.
+public class BoardsHandler extends AbstractHttpHandler {
+    private static final String CONTEXT_PATH = "/boards/";
+    private final BoardRegistry boards;
+
+    public BoardsHandler(BoardRegistry boards) {
+        this.boards = boards;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length());
+        int keyEnd = path.indexOf('/');
+        if (keyEnd <= 0) {
+            sendNotFoundResponseHeaders(exchange);
+            exchange.close();
+            return;
+        }
+        final BoardRegistry.Lease lease;
+        try {
+            lease = boards.acquire(path.substring(0, keyEnd));
+        } catch (IllegalArgumentException e) {
+            sendBadRequestResponseHeaders(exchange);
+            exchange.close();
+            return;
+        }
+        try (lease) {
+            route(exchange, lease.getManager(), path.substring(keyEnd));
+        }
+    }
+
+    private void route(HttpExchange exchange, TaskManager board, String boardPath) throws IOException {
+        final HttpHandler handler = HttpTaskServer.createHandler(board, boardPath);
+        if (handler == null) {
+            sendNotFoundResponseHeaders(exchange);
+            exchange.close();
+            return;
+        }
+        handler.handle(exchange);
+    }
+}
@@ -0,0 +1,52 @@
+package web.servers.handlers.httpTaskServer;
+
+import com.sun.net.httpserver.HttpExchange;
+import exceptions.ManagerIllegalMethodRequestException;
+import managers.TaskManager;
+import utils.Web;
+import web.servers.HttpTaskServer;
+import web.servers.handlers.AbstractHttpHandler;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+import static web.servers.HttpTaskServer.defaultCharset;
+
+public class CalendarHandler extends AbstractHttpHandler {
+    private final TaskManager manager;
+
+    public CalendarHandler(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    Map<String, String> queryParameters = Web.getQueryParametersMap(exchange.getRequestURI());
+                    String day = queryParameters.get("day");
+                    if (day == null) {
+                        sendBadRequestResponseHeaders(exchange);
+                        return;
+                    }
+                    String response = HttpTaskServer.GSON.toJson(manager.findByDay(LocalDate.parse(day)));
+                    sendText(exchange, response, HttpTaskServer.defaultCharset);
+                    System.out.println("The day's tasks were received successfully");
+                    break;
+                default:
+                    throw new ManagerIllegalMethodRequestException(exchange.getHttpContext().getPath(),
+                            exchange.getRequestMethod(), "GET");
+            }
+        } catch (DateTimeParseException e) {
+            sendBadRequestResponseHeaders(exchange);
+        } catch (ManagerIllegalMethodRequestException e) {
+            sendText(exchange, HttpTaskServer.GSON.toJson(e), 405, defaultCharset);
+        } finally {
+            sendInternalServerErrorRequestResponseHeaders(exchange);
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package web.servers.handlers.httpTaskServer;
+
+import com.sun.net.httpserver.HttpExchange;
+import exceptions.ManagerIllegalMethodRequestException;
+import managers.TaskManager;
+import web.servers.HttpTaskServer;
+import web.servers.handlers.AbstractHttpHandler;
+
+import java.io.IOException;
+
+import static web.servers.HttpTaskServer.defaultCharset;
+
+public class CriticalPathHandler extends AbstractHttpHandler {
+    private final TaskManager manager;
+
+    public CriticalPathHandler(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    String response = HttpTaskServer.GSON.toJson(manager.getCriticalPath());
+                    sendText(exchange, response, HttpTaskServer.defaultCharset);
+                    System.out.println("The critical path was received successfully");
+                    break;
+                default:
+                    throw new ManagerIllegalMethodRequestException(exchange.getHttpContext().getPath(),
+                            exchange.getRequestMethod(), "GET");
+            }
+        } catch (ManagerIllegalMethodRequestException e) {
+            sendText(exchange, HttpTaskServer.GSON.toJson(e), 405, defaultCharset);
+        } finally {
+            sendInternalServerErrorRequestResponseHeaders(exchange);
+            exchange.close();
+        }
+    }
+}
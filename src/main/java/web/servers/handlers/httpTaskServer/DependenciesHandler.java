@@ -0,0 +1,80 @@
+package web.servers.handlers.httpTaskServer;
+
+import com.sun.net.httpserver.HttpExchange;
+import exceptions.ManagerDependencyCycleException;
+import exceptions.ManagerIllegalMethodRequestException;
+import managers.TaskManager;
+import utils.Web;
+import web.servers.HttpTaskServer;
+import web.servers.handlers.AbstractHttpHandler;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static web.servers.HttpTaskServer.defaultCharset;
+
+public class DependenciesHandler extends AbstractHttpHandler {
+    private final TaskManager manager;
+
+    public DependenciesHandler(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> queryParameters = Web.getQueryParametersMap(exchange.getRequestURI());
+            String id = queryParameters.get("id");
+            String blockedBy = queryParameters.get("blockedBy");
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    if (id == null) {
+                        sendBadRequestResponseHeaders(exchange);
+                        return;
+                    }
+                    long itemId = Long.parseLong(id);
+                    Map<String, Object> dependencies = new LinkedHashMap<>();
+                    dependencies.put("id", itemId);
+                    dependencies.put("earliestStart", manager.getEarliestStart(itemId));
+                    dependencies.put("blockedBy", manager.findBlockers(itemId));
+                    sendText(exchange, HttpTaskServer.GSON.toJson(dependencies), HttpTaskServer.defaultCharset);
+                    System.out.println("The dependencies were received successfully");
+                    break;
+                case "POST":
+                    if (id == null || blockedBy == null) {
+                        sendBadRequestResponseHeaders(exchange);
+                        return;
+                    }
+                    manager.addDependency(Long.parseLong(id), Long.parseLong(blockedBy));
+                    sendCreatedResponseHeaders(exchange);
+                    System.out.println("The dependency's been created successfully");
+                    break;
+                case "DELETE":
+                    if (id == null || blockedBy == null) {
+                        sendBadRequestResponseHeaders(exchange);
+                        return;
+                    }
+                    if (manager.removeDependency(Long.parseLong(id), Long.parseLong(blockedBy))) {
+                        sendNoContentResponseHeaders(exchange);
+                        System.out.println("The dependency's been deleted successfully");
+                    } else {
+                        sendNotFoundResponseHeaders(exchange);
+                    }
+                    break;
+                default:
+                    throw new ManagerIllegalMethodRequestException(exchange.getHttpContext().getPath(),
+                            exchange.getRequestMethod(), "GET", "POST", "DELETE");
+            }
+        } catch (IllegalArgumentException e) {
+            sendBadRequestResponseHeaders(exchange);
+        } catch (ManagerDependencyCycleException e) {
+            sendText(exchange, HttpTaskServer.GSON.toJson(e), 409, defaultCharset);
+        } catch (ManagerIllegalMethodRequestException e) {
+            sendText(exchange, HttpTaskServer.GSON.toJson(e), 405, defaultCharset);
+        } finally {
+            sendInternalServerErrorRequestResponseHeaders(exchange);
+            exchange.close();
+        }
+    }
+}
@@ -2,11 +2,17 @@ package web.servers.handlers.httpTaskServer;
 
 import com.sun.net.httpserver.HttpExchange;
 import exceptions.ManagerIllegalMethodRequestException;
+import exceptions.ManagerTaskNotFoundException;
 import managers.TaskManager;
+import managers.query.TaskQuery;
+import models.enums.TypeTask;
+import utils.Web;
 import web.servers.HttpTaskServer;
 import web.servers.handlers.AbstractHttpHandler;
 
 import java.io.IOException;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
 
 import static web.servers.HttpTaskServer.defaultCharset;
 
@@ -22,7 +28,19 @@ public class EpicsHandler extends AbstractHttpHandler {
         try {
             switch (exchange.getRequestMethod()) {
                 case "GET":
-                    String response = HttpTaskServer.GSON.toJson(manager.findAllEpics());
+                    Map<String, String> queryParameters = Web.getQueryParametersMap(exchange.getRequestURI());
+                    TaskQuery query = null;
+                    try {
+                        if (!queryParameters.isEmpty()) {
+                            query = TaskQueries.parse(queryParameters).type(TypeTask.EPIC).build();
+                        }
+                    } catch (IllegalArgumentException | DateTimeParseException e) {
+                        sendBadRequestResponseHeaders(exchange);
+                        break;
+                    }
+                    String response = HttpTaskServer.GSON.toJson(query == null
+                            ? manager.findAllEpics()
+                            : manager.query(query));
                     sendText(exchange, response, HttpTaskServer.defaultCharset);
                     System.out.println("The epics were received successfully");
                     break;
@@ -35,6 +53,8 @@ public class EpicsHandler extends AbstractHttpHandler {
                     throw new ManagerIllegalMethodRequestException(exchange.getHttpContext().getPath(),
                             exchange.getRequestMethod(), "GET", "DELETE");
             }
+        } catch (ManagerTaskNotFoundException e) {
+            sendText(exchange, HttpTaskServer.GSON.toJson(e), 404, defaultCharset);
         } catch (ManagerIllegalMethodRequestException e) {
             sendText(exchange, HttpTaskServer.GSON.toJson(e), 405, defaultCharset);
         }
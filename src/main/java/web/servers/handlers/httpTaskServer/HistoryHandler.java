@@ -2,7 +2,7 @@ package web.servers.handlers.httpTaskServer;
 
 import com.sun.net.httpserver.HttpExchange;
 import exceptions.ManagerIllegalMethodRequestException;
-import managers.InMemoryTaskManager;
+import managers.TaskManager;
 import models.tasks.AbstractTask;
 import web.servers.HttpTaskServer;
 import web.servers.handlers.AbstractHttpHandler;
@@ -13,9 +13,9 @@ import java.util.stream.Collectors;
 import static web.servers.HttpTaskServer.defaultCharset;
 
 public class HistoryHandler extends AbstractHttpHandler {
-    private final InMemoryTaskManager manager;
+    private final TaskManager manager;
 
-    public HistoryHandler(InMemoryTaskManager manager) {
+    public HistoryHandler(TaskManager manager) {
         this.manager = manager;
     }
 
@@ -2,18 +2,22 @@ package web.servers.handlers.httpTaskServer;
 
 import com.sun.net.httpserver.HttpExchange;
 import exceptions.ManagerIllegalMethodRequestException;
-import managers.InMemoryTaskManager;
+import managers.TaskManager;
+import utils.Web;
 import web.servers.HttpTaskServer;
 import web.servers.handlers.AbstractHttpHandler;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
 
 import static web.servers.HttpTaskServer.defaultCharset;
 
 public class PrioritizedTasksHandler extends AbstractHttpHandler {
-    private final InMemoryTaskManager manager;
+    private final TaskManager manager;
 
-    public PrioritizedTasksHandler(InMemoryTaskManager manager) {
+    public PrioritizedTasksHandler(TaskManager manager) {
         this.manager = manager;
     }
 
@@ -22,7 +26,14 @@ public class PrioritizedTasksHandler extends AbstractHttpHandler {
         try {
             switch (exchange.getRequestMethod()) {
                 case "GET":
-                    String response = HttpTaskServer.GSON.toJson(manager.getPrioritizedTasks());
+                    Map<String, String> queryParameters = Web.getQueryParametersMap(exchange.getRequestURI());
+                    String from = queryParameters.get("from");
+                    String to = queryParameters.get("to");
+                    String limit = queryParameters.get("limit");
+                    String response = HttpTaskServer.GSON.toJson(manager.getPrioritizedTasks(
+                            from == null ? null : LocalDateTime.parse(from),
+                            to == null ? null : LocalDateTime.parse(to),
+                            limit == null ? Integer.MAX_VALUE : Integer.parseInt(limit)));
                     sendText(exchange, response, HttpTaskServer.defaultCharset);
                     System.out.println("The prioritized tasks were received successfully");
                     break;
@@ -30,6 +41,8 @@ public class PrioritizedTasksHandler extends AbstractHttpHandler {
                     throw new ManagerIllegalMethodRequestException(exchange.getHttpContext().getPath(),
                             exchange.getRequestMethod(), "GET");
             }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendBadRequestResponseHeaders(exchange);
         } catch (ManagerIllegalMethodRequestException e) {
             sendText(exchange, HttpTaskServer.GSON.toJson(e), 405, defaultCharset);
         } finally {
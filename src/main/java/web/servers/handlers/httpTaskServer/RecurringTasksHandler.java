@@ -0,0 +1,81 @@
+package web.servers.handlers.httpTaskServer;
+
+import com.sun.net.httpserver.HttpExchange;
+import exceptions.ManagerIllegalMethodRequestException;
+import exceptions.ManagerIntersectionTaskIntervalsException;
+import exceptions.ManagerTaskNotFoundException;
+import managers.TaskManager;
+import models.tasks.RecurringTask;
+import utils.Web;
+import web.servers.HttpTaskServer;
+import web.servers.handlers.AbstractHttpHandler;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static web.servers.HttpTaskServer.defaultCharset;
+
+public class RecurringTasksHandler extends AbstractHttpHandler {
+    private final TaskManager manager;
+
+    public RecurringTasksHandler(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> queryParameters = Web.getQueryParametersMap(exchange.getRequestURI());
+            String id = queryParameters.get("id");
+            List<String> contentTypeValues = exchange.getRequestHeaders().get("content-type");
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    String response = HttpTaskServer.GSON.toJson(id == null
+                            ? manager.findAllRecurringTasks()
+                            : manager.findRecurringTask(Long.parseLong(id)));
+                    sendText(exchange, response, HttpTaskServer.defaultCharset);
+                    System.out.println("The recurring tasks were received successfully");
+                    break;
+                case "POST":
+                    if ((contentTypeValues == null) || (!contentTypeValues.contains("application/json"))) {
+                        sendBadRequestResponseHeaders(exchange);
+                        return;
+                    }
+                    RecurringTask recurringTask = HttpTaskServer.GSON.fromJson(
+                            readText(exchange, HttpTaskServer.defaultCharset), RecurringTask.class);
+                    if (recurringTask == null) {
+                        sendBadRequestResponseHeaders(exchange);
+                        return;
+                    }
+                    sendText(exchange, HttpTaskServer.GSON.toJson(manager.addRecurringTask(recurringTask)), 201,
+                            defaultCharset);
+                    System.out.println("The recurring task's been created successfully");
+                    break;
+                case "DELETE":
+                    if (id == null) {
+                        sendBadRequestResponseHeaders(exchange);
+                        return;
+                    }
+                    manager.deleteRecurringTask(Long.parseLong(id));
+                    sendNoContentResponseHeaders(exchange);
+                    System.out.println("The recurring task's been deleted successfully");
+                    break;
+                default:
+                    throw new ManagerIllegalMethodRequestException(exchange.getHttpContext().getPath(),
+                            exchange.getRequestMethod(), "GET", "POST", "DELETE");
+            }
+        } catch (IllegalArgumentException | NullPointerException e) {
+            sendBadRequestResponseHeaders(exchange);
+        } catch (ManagerTaskNotFoundException e) {
+            sendText(exchange, HttpTaskServer.GSON.toJson(e), 404, defaultCharset);
+        } catch (ManagerIntersectionTaskIntervalsException e) {
+            sendText(exchange, HttpTaskServer.GSON.toJson(e), 409, defaultCharset);
+        } catch (ManagerIllegalMethodRequestException e) {
+            sendText(exchange, HttpTaskServer.GSON.toJson(e), 405, defaultCharset);
+        } finally {
+            sendInternalServerErrorRequestResponseHeaders(exchange);
+            exchange.close();
+        }
+    }
+}
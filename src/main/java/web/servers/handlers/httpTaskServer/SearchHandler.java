@@ -0,0 +1,55 @@
+package web.servers.handlers.httpTaskServer;
+
+import com.sun.net.httpserver.HttpExchange;
+import exceptions.ManagerIllegalMethodRequestException;
+import managers.TaskManager;
+import utils.Web;
+import web.servers.HttpTaskServer;
+import web.servers.handlers.AbstractHttpHandler;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static web.servers.HttpTaskServer.defaultCharset;
+
+public class SearchHandler extends AbstractHttpHandler {
+    private static final int DEFAULT_LIMIT = 20;
+    private final TaskManager manager;
+
+    public SearchHandler(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    Map<String, String> queryParameters = Web.getQueryParametersMap(exchange.getRequestURI());
+                    String query = queryParameters.get("q");
+                    if (query == null) {
+                        sendBadRequestResponseHeaders(exchange);
+                        return;
+                    }
+                    String offset = queryParameters.get("offset");
+                    String limit = queryParameters.get("limit");
+                    String response = HttpTaskServer.GSON.toJson(manager.search(query,
+                            offset == null ? 0 : Integer.parseInt(offset),
+                            limit == null ? DEFAULT_LIMIT : Integer.parseInt(limit)));
+                    sendText(exchange, response, HttpTaskServer.defaultCharset);
+                    System.out.println("The search results were received successfully");
+                    break;
+                default:
+                    throw new ManagerIllegalMethodRequestException(exchange.getHttpContext().getPath(),
+                            exchange.getRequestMethod(), "GET");
+            }
+        } catch (IllegalArgumentException e) {
+            sendBadRequestResponseHeaders(exchange);
+        } catch (ManagerIllegalMethodRequestException e) {
+            sendText(exchange, HttpTaskServer.GSON.toJson(e), 405, defaultCharset);
+        } finally {
+            sendInternalServerErrorRequestResponseHeaders(exchange);
+            exchange.close();
+        }
+    }
+}
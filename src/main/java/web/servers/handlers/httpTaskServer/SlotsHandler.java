@@ -0,0 +1,63 @@
+package web.servers.handlers.httpTaskServer;
+
+import com.sun.net.httpserver.HttpExchange;
+import exceptions.ManagerIllegalMethodRequestException;
+import managers.TaskManager;
+import utils.Web;
+import web.servers.HttpTaskServer;
+import web.servers.handlers.AbstractHttpHandler;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static web.servers.HttpTaskServer.defaultCharset;
+
+public class SlotsHandler extends AbstractHttpHandler {
+    private final TaskManager manager;
+
+    public SlotsHandler(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    Map<String, String> queryParameters = Web.getQueryParametersMap(exchange.getRequestURI());
+                    String durationParameter = queryParameters.get("duration");
+                    if (durationParameter == null) {
+                        sendBadRequestResponseHeaders(exchange);
+                        return;
+                    }
+                    Duration duration = Duration.ofMinutes(Long.parseLong(durationParameter));
+                    String notBeforeParameter = queryParameters.get("notBefore");
+                    LocalDateTime notBefore = notBeforeParameter == null
+                            ? LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES)
+                            : LocalDateTime.parse(notBeforeParameter);
+                    LocalDateTime startTime = manager.findFreeSlot(duration, notBefore);
+                    Map<String, LocalDateTime> slot = new LinkedHashMap<>();
+                    slot.put("startTime", startTime);
+                    slot.put("endTime", startTime.plus(duration));
+                    sendText(exchange, HttpTaskServer.GSON.toJson(slot), HttpTaskServer.defaultCharset);
+                    System.out.println("The free slot was received successfully");
+                    break;
+                default:
+                    throw new ManagerIllegalMethodRequestException(exchange.getHttpContext().getPath(),
+                            exchange.getRequestMethod(), "GET");
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendBadRequestResponseHeaders(exchange);
+        } catch (ManagerIllegalMethodRequestException e) {
+            sendText(exchange, HttpTaskServer.GSON.toJson(e), 405, defaultCharset);
+        } finally {
+            sendInternalServerErrorRequestResponseHeaders(exchange);
+            exchange.close();
+        }
+    }
+}
@@ -4,11 +4,14 @@ import com.sun.net.httpserver.HttpExchange;
 import exceptions.ManagerIllegalMethodRequestException;
 import exceptions.ManagerTaskNotFoundException;
 import managers.TaskManager;
+import managers.query.TaskQuery;
+import models.enums.TypeTask;
 import utils.Web;
 import web.servers.HttpTaskServer;
 import web.servers.handlers.AbstractHttpHandler;
 
 import java.io.IOException;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
@@ -32,7 +35,22 @@ public class StoriesHandler extends AbstractHttpHandler {
                     if (queryParameters.isEmpty()) return;
                     id = queryParameters.get(ID_QUERY_INDEX);
                     if (!"id".equals(id.getKey())) return;
-                    String response = HttpTaskServer.GSON.toJson(manager.findAllStories(Long.parseLong(id.getValue())));
+                    Map<String, String> filters = Web.getQueryParametersMap(exchange.getRequestURI());
+                    filters.remove("id");
+                    long epicId;
+                    TaskQuery query = null;
+                    try {
+                        epicId = Long.parseLong(id.getValue());
+                        if (!filters.isEmpty()) {
+                            query = TaskQueries.parse(filters).type(TypeTask.STORY).epicId(epicId).build();
+                        }
+                    } catch (IllegalArgumentException | DateTimeParseException e) {
+                        sendBadRequestResponseHeaders(exchange);
+                        break;
+                    }
+                    String response = HttpTaskServer.GSON.toJson(query == null
+                            ? manager.findAllStories(epicId)
+                            : manager.query(query));
                     sendText(exchange, response, HttpTaskServer.defaultCharset);
                     System.out.println("The stories were received successfully");
                     break;
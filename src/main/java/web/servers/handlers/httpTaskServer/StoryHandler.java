@@ -4,6 +4,7 @@ import com.sun.net.httpserver.HttpExchange;
 import exceptions.ManagerIllegalMethodRequestException;
 import exceptions.ManagerTaskNotFoundException;
 import managers.TaskManager;
+import models.enums.StateTask;
 import models.tasks.Story;
 import utils.Web;
 import web.servers.HttpTaskServer;
@@ -32,6 +33,18 @@ public class StoryHandler extends AbstractHttpHandler {
             switch (exchange.getRequestMethod()) {
                 case "GET":
                     if (queryParameters.isEmpty()) return;
+                    String state = Web.getQueryParametersMap(exchange.getRequestURI()).get("state");
+                    if (state != null) {
+                        StateTask stateTask = TaskQueries.parseState(state);
+                        if (stateTask == null) {
+                            sendBadRequestResponseHeaders(exchange);
+                            break;
+                        }
+                        sendText(exchange, HttpTaskServer.GSON.toJson(manager.findAllStories(stateTask)),
+                                HttpTaskServer.defaultCharset);
+                        System.out.println("The stories were received successfully");
+                        break;
+                    }
                     id = queryParameters.get(ID_QUERY_INDEX);
                     if (!"id".equals(id.getKey())) return;
                     String response = HttpTaskServer.GSON.toJson(manager.findStory(Long.parseLong(id.getValue())));
@@ -0,0 +1,48 @@
+package web.servers.handlers.httpTaskServer;
+
+import managers.query.TaskQuery;
+import models.enums.StateTask;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+
+// Reads the query parameters of the list endpoints into a TaskQuery:
+// state, from, to, q (text), order (id, start_time or name), limit and after (the last id of the previous page).
+// Malformed values fail with IllegalArgumentException or DateTimeParseException, which the handlers answer
+// with 400 around the parsing alone, so an IllegalArgumentException of the manager is never taken for one.
+final class TaskQueries {
+    private TaskQueries() {
+    }
+
+    static TaskQuery.Builder parse(Map<String, String> queryParameters) {
+        final TaskQuery.Builder query = TaskQuery.builder();
+        final String state = queryParameters.get("state");
+        if (state != null) {
+            final StateTask stateTask = parseState(state);
+            if (stateTask == null) throw new IllegalArgumentException("Unknown state " + state);
+            query.stateTask(stateTask);
+        }
+        final String from = queryParameters.get("from");
+        if (from != null) query.from(LocalDateTime.parse(from));
+        final String to = queryParameters.get("to");
+        if (to != null) query.to(LocalDateTime.parse(to));
+        final String text = queryParameters.get("q");
+        if (text != null) query.text(text);
+        final String order = queryParameters.get("order");
+        if (order != null) query.orderBy(TaskQuery.Order.valueOf(order.toUpperCase(Locale.ROOT)));
+        final String limit = queryParameters.get("limit");
+        if (limit != null) query.limit(Integer.parseInt(limit));
+        final String after = queryParameters.get("after");
+        if (after != null) query.after(Long.parseLong(after));
+        return query;
+    }
+
+    // The state of the name, or null when there is no such state.
+    static StateTask parseState(String name) {
+        for (StateTask stateTask : StateTask.values()) {
+            if (stateTask.name().equals(name)) return stateTask;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+package managers;
+
+import managers.history.PartitionedHistoryManager;
+import models.enums.TypeTask;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import org.junit.jupiter.api.Test;
+import utils.AtomicIdAllocator;
+import utils.Managers;
+import utils.TimeNodeIdAllocator;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private ConcurrentTaskManagerTest() {
+        super(Managers.getConcurrent());
+    }
+
+    @Test
+    void addAndFindTasksFromSeveralThreads() throws Exception {
+        final int threads = 8;
+        final int tasksPerThread = 500;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<List<Task>>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                final List<Task> added = new ArrayList<>();
+                for (int j = 0; j < tasksPerThread; j++) {
+                    final Task task = appManager.addTask(Task.createTask("Task"));
+                    assertEquals(task, appManager.findTask(task.getId()));
+                    appManager.findAllTasks();
+                    added.add(task);
+                }
+                return added;
+            }));
+        }
+        final List<Task> addedTasks = new ArrayList<>();
+        for (Future<List<Task>> future : futures) addedTasks.addAll(future.get());
+        executor.shutdown();
+
+        final Set<Long> ids = addedTasks.stream().map(AbstractTask::getId).collect(Collectors.toSet());
+        assertEquals(threads * tasksPerThread, ids.size());
+        assertEquals(threads * tasksPerThread + 2, appManager.findAllTasks().size());
+        assertEquals(threads * tasksPerThread + 2, appManager.counts().get(TypeTask.TASK));
+        assertEquals(threads * tasksPerThread + 4, appManager.size());
+    }
+
+    @Test
+    void managersWithOwnAllocatorsDoNotShareIds() {
+        final ConcurrentTaskManager manager1 = new ConcurrentTaskManager(new AtomicIdAllocator());
+        final ConcurrentTaskManager manager2 = new ConcurrentTaskManager(new AtomicIdAllocator());
+        assertEquals(1, manager1.addTask(Task.createTask("Task1")).getId());
+        assertEquals(1, manager2.addTask(Task.createTask("Task1")).getId());
+        assertEquals(2, manager1.addEpic(Epic.createEpic("Epic2")).getId());
+        assertEquals(3, manager1.addStory(Story.createStory("Story3", 2)).getId());
+    }
+
+    @Test
+    void timeNodeIdsAreUniqueAndGrowing() throws Exception {
+        final Clock clock = Clock.fixed(Instant.parse("2022-06-01T00:00:00Z"), ZoneOffset.UTC);
+        final TimeNodeIdAllocator node1 = new TimeNodeIdAllocator(1, clock);
+        final TimeNodeIdAllocator node2 = new TimeNodeIdAllocator(2, clock);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<List<Long>>> futures = new ArrayList<>();
+        for (TimeNodeIdAllocator allocator : List.of(node1, node2, node1, node2)) {
+            futures.add(executor.submit(() -> {
+                final List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < 5000; i++) ids.add(allocator.next());
+                return ids;
+            }));
+        }
+        final Set<Long> ids = new HashSet<>();
+        for (Future<List<Long>> future : futures) {
+            final List<Long> threadIds = future.get();
+            for (int i = 1; i < threadIds.size(); i++) assertTrue(threadIds.get(i) > threadIds.get(i - 1));
+            ids.addAll(threadIds);
+        }
+        executor.shutdown();
+
+        assertEquals(20000, ids.size());
+        assertEquals(1, TimeNodeIdAllocator.nodeOf(node1.next()));
+        assertEquals(2, TimeNodeIdAllocator.nodeOf(node2.next()));
+        assertThrows(IllegalArgumentException.class, () -> new TimeNodeIdAllocator(TimeNodeIdAllocator.MAX_NODE + 1));
+    }
+
+    @Test
+    void rollBackRestoresTheHistoryOfEveryClient() {
+        try {
+            PartitionedHistoryManager.setClient("client1");
+            appManager.findTask(2);
+            appManager.findTask(1);
+            PartitionedHistoryManager.setClient("client2");
+            appManager.findEpic(3);
+            assertThrows(IllegalStateException.class, () -> appManager.inTransaction(() -> {
+                appManager.deleteTask(2);
+                appManager.findTask(1);
+                throw new IllegalStateException();
+            }));
+            assertEquals(List.of(3L), historyIds());
+            PartitionedHistoryManager.setClient("client1");
+            assertEquals(List.of(2L, 1L), historyIds());
+            assertSame(appManager.findTask(2), appManager.getHistoryManager().getHistory().get(1));
+        } finally {
+            PartitionedHistoryManager.setClient(null);
+        }
+    }
+
+    private List<Long> historyIds() {
+        return appManager.getHistoryManager().getHistory().stream()
+                .map(AbstractTask::getId).collect(Collectors.toList());
+    }
+}
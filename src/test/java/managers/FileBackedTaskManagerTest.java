@@ -1,19 +1,26 @@
 package managers;
 
 import managers.history.HistoryManager;
+import managers.history.PartitionedHistoryManager;
 import models.enums.StateTask;
 import models.enums.TypeTask;
 import models.repositories.tasks.AbstractTasksRepository;
 import models.tasks.AbstractTask;
 import models.tasks.Epic;
+import models.tasks.RecurringTask;
 import models.tasks.Story;
 import models.tasks.Task;
 import org.junit.jupiter.api.*;
+import utils.AtomicIdAllocator;
 import utils.Managers;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -80,6 +87,71 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
             assertEquals(1, fileBackedTaskManager.getEpicsRepository().size());
         }
 
+        @Test
+        void loadKeepsIdsAndHistory() {
+            add(TypeTask.TASK, "Task1");
+            add(TypeTask.TASK, "Task2");
+            add(TypeTask.EPIC, "Epic");
+            add(TypeTask.STORY, "Story", fileBackedTaskManager.findEpic(3));
+            fileBackedTaskManager.deleteTask(1);
+            fileBackedTaskManager.findStory(4);
+            fileBackedTaskManager.findTask(2);
+
+            final FileBackedTaskManager loaded =
+                    FileBackedTaskManager.getInstance(Path.of(FILE_NAME_FOR_FILE_BACKED_TEST), new AtomicIdAllocator());
+            assertArrayEquals(new long[]{3, 4, 2},
+                    loaded.getHistoryManager().getHistory().stream().mapToLong(AbstractTask::getId).toArray());
+            assertEquals(3, loaded.size());
+            assertEquals("Task2", loaded.findTask(2).getName());
+            assertEquals(3, loaded.findStory(4).getEpicId());
+            assertSame(loaded.findStory(4), loaded.findEpic(3).getStory(4));
+            assertEquals(5, loaded.addTask(Task.createTask("Task3")).getId());
+        }
+
+        @Test
+        void loadKeepsRecurringTasksAndDependencies() {
+            add(TypeTask.TASK, "Task1");
+            add(TypeTask.TASK, "Task2");
+            add(TypeTask.EPIC, "Epic");
+            add(TypeTask.STORY, "Story", fileBackedTaskManager.findEpic(3));
+            fileBackedTaskManager.addDependency(2, 1);
+            fileBackedTaskManager.addDependency(4, 2);
+            final RecurringTask standUp = fileBackedTaskManager.addRecurringTask(RecurringTask.builder("Stand-up")
+                    .startTime(LocalDateTime.of(2024, 1, 1, 9, 0)).duration(Duration.ofMinutes(15))
+                    .period(Duration.ofDays(1)).until(LocalDateTime.of(2024, 2, 1, 9, 0)).build());
+
+            final FileBackedTaskManager loaded = FileBackedTaskManager.getInstance(Path.of(FILE_NAME_FOR_FILE_BACKED_TEST), new AtomicIdAllocator());
+            assertEquals(List.of(standUp), loaded.findAllRecurringTasks());
+            assertEquals(List.of(1L), loaded.findBlockers(2));
+            assertEquals(List.of(2L), loaded.findBlockers(4));
+            assertEquals(6, loaded.addTask(Task.createTask("Task3")).getId());
+        }
+
+        @Test
+        void keepAHistoryPerClientAndSaveTheOneWithoutClient() {
+            add(TypeTask.TASK, "Task1");
+            add(TypeTask.TASK, "Task2");
+            try {
+                PartitionedHistoryManager.setClient("alice");
+                fileBackedTaskManager.findTask(1);
+                PartitionedHistoryManager.setClient(null);
+                fileBackedTaskManager.findTask(2);
+                PartitionedHistoryManager.setClient("alice");
+                fileBackedTaskManager.addTask(Task.createTask("Task3"));
+                assertEquals(List.of(1L), fileBackedTaskManager.getHistoryManager().getHistory().stream()
+                        .map(AbstractTask::getId).collect(Collectors.toList()));
+
+                final FileBackedTaskManager loaded =
+                        FileBackedTaskManager.getInstance(Path.of(FILE_NAME_FOR_FILE_BACKED_TEST), new AtomicIdAllocator());
+                assertTrue(loaded.getHistoryManager().getHistory().isEmpty());
+                PartitionedHistoryManager.setClient(null);
+                assertEquals(List.of(2L), loaded.getHistoryManager().getHistory().stream()
+                        .map(AbstractTask::getId).collect(Collectors.toList()));
+            } finally {
+                PartitionedHistoryManager.setClient(null);
+            }
+        }
+
         private void add(TypeTask typeTask, String name, Epic epic) {
             switch (typeTask) {
                 case TASK:
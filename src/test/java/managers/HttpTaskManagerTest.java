@@ -1,11 +1,13 @@
 package managers;
 
 import managers.history.HistoryManager;
+import managers.history.PartitionedHistoryManager;
 import models.enums.StateTask;
 import models.enums.TypeTask;
 import models.repositories.tasks.AbstractTasksRepository;
 import models.tasks.AbstractTask;
 import models.tasks.Epic;
+import models.tasks.RecurringTask;
 import models.tasks.Story;
 import models.tasks.Task;
 import org.junit.jupiter.api.*;
@@ -13,6 +15,11 @@ import utils.Managers;
 import web.servers.KVServer;
 import web.servers.KVServerTest;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 
@@ -76,6 +83,46 @@ public class HttpTaskManagerTest extends TaskManagerTest<HTTPTaskManager> {
             assertEquals(1, httpTaskManager.getEpicsRepository().size());
         }
 
+        @Test
+        void loadKeepsRecurringTasksAndDependencies() {
+            add(TypeTask.TASK, "Task1");
+            add(TypeTask.TASK, "Task2");
+            add(TypeTask.EPIC, "Epic");
+            add(TypeTask.STORY, "Story", httpTaskManager.findEpic(3));
+            httpTaskManager.addDependency(2, 1);
+            httpTaskManager.addDependency(4, 2);
+            final RecurringTask standUp = httpTaskManager.addRecurringTask(RecurringTask.builder("Stand-up")
+                    .startTime(LocalDateTime.of(2024, 1, 1, 9, 0)).duration(Duration.ofMinutes(15))
+                    .period(Duration.ofDays(1)).until(LocalDateTime.of(2024, 2, 1, 9, 0)).build());
+
+            final HTTPTaskManager loaded = httpTaskManager.load();
+            assertEquals(List.of(standUp), loaded.findAllRecurringTasks());
+            assertEquals(List.of(1L), loaded.findBlockers(2));
+            assertEquals(List.of(2L), loaded.findBlockers(4));
+            assertEquals(6, loaded.addTask(Task.createTask("Task3")).getId());
+        }
+
+        @Test
+        void saveOnlyTheHistoryWithoutClient() {
+            add(TypeTask.TASK, "Task1");
+            add(TypeTask.TASK, "Task2");
+            try {
+                PartitionedHistoryManager.setClient("alice");
+                httpTaskManager.findTask(1);
+                PartitionedHistoryManager.setClient(null);
+                httpTaskManager.findTask(2);
+                add(TypeTask.TASK, "Task3");
+
+                final HTTPTaskManager loaded = httpTaskManager.load();
+                assertEquals(List.of(2L), loaded.getHistoryManager().getHistory().stream()
+                        .map(AbstractTask::getId).collect(Collectors.toList()));
+                PartitionedHistoryManager.setClient("alice");
+                assertTrue(loaded.getHistoryManager().getHistory().isEmpty());
+            } finally {
+                PartitionedHistoryManager.setClient(null);
+            }
+        }
+
         private void add(TypeTask typeTask, String name, Epic epic) {
             switch (typeTask) {
                 case TASK:
@@ -0,0 +1,211 @@
+package managers;
+
+import managers.query.TaskQuery;
+import managers.snapshot.TaskSnapshot;
+import models.enums.StateTask;
+import models.enums.TypeTask;
+import models.repositories.tasks.AbstractTasksRepository;
+import models.repositories.tasks.EpicsRepository;
+import models.repositories.tasks.TasksRepository;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utils.Managers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Snapshot reads return frozen tasks, so the shared TaskManagerTest cases that change a found task are not run here.
+class SnapshotTaskManagerTest {
+    private final SnapshotTaskManager appManager = Managers.getSnapshot();
+
+    @BeforeEach
+    void initRepositories() {
+        AbstractTasksRepository.TASK_COUNTER.reset();
+        appManager.createRepository(List.of(Task.createTask("Task1"), Task.createTask("Task2")),
+                TasksRepository.class);
+        appManager.createRepository(List.of(Epic.createEpic("Epic1"), Epic.createEpic("Epic2")),
+                EpicsRepository.class);
+    }
+
+    @Test
+    void readsDoNotSeeTransactionsBeforeTheyCommit() throws Exception {
+        final List<Integer> sizesSeen = new ArrayList<>();
+        appManager.inTransaction(() -> {
+            appManager.addTask(Task.createTask("Task5"));
+            appManager.addTask(Task.createTask("Task6"));
+            final Thread reader = new Thread(() -> sizesSeen.add(appManager.findAllTasks().size()));
+            reader.start();
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return null;
+        });
+        assertEquals(List.of(2), sizesSeen);
+        assertEquals(4, appManager.findAllTasks().size());
+
+        assertThrows(IllegalStateException.class, () -> appManager.inTransaction(() -> {
+            appManager.deleteTask(1);
+            throw new IllegalStateException();
+        }));
+        assertEquals(4, appManager.findAllTasks().size());
+        assertEquals("Task1", appManager.findTask(1).getName());
+    }
+
+    @Test
+    void transactionsReadTheirOwnWrites() {
+        final Task task = appManager.inTransaction(() -> {
+            final Task added = appManager.addTask(Task.createTask("Task5"));
+            appManager.updateTask(1, Task.createTask(1, "Task1", "", StateTask.DONE));
+            appManager.addStory(Story.createStory("Story6", 3L));
+            assertEquals(3, appManager.findAllTasks().size());
+            assertEquals(1, appManager.findEpic(3).getStories().size());
+            assertEquals(List.of(1L), appManager.findAllTasks(StateTask.DONE).stream()
+                    .map(AbstractTask::getId).collect(Collectors.toList()));
+            assertArrayEquals(new long[]{1L}, ids(appManager.query(TaskQuery.builder().stateTask(StateTask.DONE).build())));
+            assertEquals(6, appManager.size());
+            return appManager.findTask(added.getId());
+        });
+        assertEquals("Task5", task.getName());
+        assertEquals(task, appManager.findTask(5));
+        assertEquals(6, appManager.getSnapshot().size());
+    }
+
+    @Test
+    void readsDoNotSeeLaterWrites() {
+        final TaskSnapshot snapshot = appManager.getSnapshot();
+        final Collection<Task> tasks = appManager.findAllTasks();
+        final Epic epic = appManager.findEpic(3);
+        final List<Task> tasksBefore = new ArrayList<>(tasks);
+
+        appManager.addTask(Task.createTask("Task5"));
+        appManager.updateTask(1, Task.createTask(1, "Task1", "", StateTask.DONE));
+        appManager.addStory(Story.createStory("Story6", 3L));
+
+        assertEquals(tasksBefore, new ArrayList<>(tasks));
+        assertEquals(StateTask.NEW, tasks.iterator().next().getStateTask());
+        assertTrue(epic.getStories().isEmpty());
+        assertEquals(4, snapshot.size());
+        assertEquals(0, snapshot.getCounts().get(TypeTask.STORY));
+
+        assertEquals(3, appManager.findAllTasks().size());
+        assertEquals(StateTask.DONE, appManager.findTask(1).getStateTask());
+        assertEquals(1, appManager.findEpic(3).getStories().size());
+        assertEquals(appManager.findStory(6), appManager.findEpic(3).getStory(6));
+        assertEquals(6, appManager.size());
+        assertEquals(appManager.counts().getTotal(), appManager.size());
+    }
+
+    @Test
+    void epicsFollowStoryChanges() {
+        final LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        appManager.addStories(List.of(
+                Story.builder("Story5", 3L).startTime(startTime).duration(Duration.ofHours(1)).build(),
+                Story.builder("Story6", 3L).stateTask(StateTask.DONE).build()));
+        assertEquals(StateTask.IN_PROGRESS, appManager.findEpic(3).getStateTask());
+        assertEquals(startTime, appManager.findEpic(3).getStartTime());
+
+        appManager.updateStory(5, Story.createStory(5, "Story5", "", 4L, StateTask.DONE));
+        assertEquals(StateTask.DONE, appManager.findEpic(3).getStateTask());
+        assertEquals(StateTask.DONE, appManager.findEpic(4).getStateTask());
+        assertEquals(4L, appManager.findStory(5).getEpicId());
+
+        appManager.deleteEpic(4);
+        assertTrue(appManager.findAllStories().stream().allMatch(story -> story.getEpicId() == 3L));
+        assertEquals(4, appManager.size());
+    }
+
+    @Test
+    void prioritizedTasksMatchInMemoryManager() {
+        final LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        appManager.addTasks(List.of(
+                Task.builder("Task5").startTime(startTime.plusDays(1)).duration(Duration.ofHours(1)).build(),
+                Task.builder("Task6").startTime(startTime).duration(Duration.ofHours(1)).build()));
+        appManager.addStory(Story.builder("Story7", 3L).startTime(startTime.plusDays(2)).build());
+        appManager.updateTask(6, Task.builder("Task6").startTime(startTime.plusDays(3)).build());
+
+        assertArrayEquals(new long[]{5L, 7L, 6L, 1L, 2L}, ids(appManager.getPrioritizedTasks()));
+        assertArrayEquals(new long[]{5L, 7L}, ids(appManager.getPrioritizedTasks(startTime, startTime.plusDays(3), 5)));
+        assertArrayEquals(new long[]{7L, 6L}, ids(appManager.getPrioritizedTasks(startTime.plusDays(2), null, 5)));
+        assertArrayEquals(new long[]{5L}, ids(appManager.getPrioritizedTasks(null, null, 1)));
+    }
+
+    @Test
+    void readsReturnTheSnapshotsOwnTasks() {
+        appManager.addStory(Story.createStory(0, "Release notes", "", 3L, StateTask.DONE));
+        final List<AbstractTask> done = appManager.query(TaskQuery.builder().stateTask(StateTask.DONE).build());
+        assertArrayEquals(new long[]{3L, 5L}, ids(done));
+        assertSame(appManager.getSnapshot().getById().get(5L), done.get(1));
+        assertSame(appManager.findStory(5), appManager.search("release", 0, 1).get(0));
+        assertSame(appManager.findStory(5), appManager.findAllStories(3L).iterator().next());
+        assertSame(appManager.findTask(1), appManager.findAllTasks(StateTask.NEW).iterator().next());
+        assertSame(appManager.findTask(1), appManager.findAllTasks().iterator().next());
+    }
+
+    @Test
+    void changingReturnedTasksIsRejected() {
+        final LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        appManager.addTasks(List.of(
+                Task.builder("Task5").startTime(startTime).duration(Duration.ofHours(1)).build(),
+                Task.builder("Task6").startTime(startTime.plusDays(1)).duration(Duration.ofHours(1)).build()));
+        appManager.addStory(Story.createStory("Story7", 3L));
+
+        assertThrows(UnsupportedOperationException.class, () -> appManager.findTask(5).setStartTime(startTime.plusDays(2)));
+        assertThrows(UnsupportedOperationException.class,
+                () -> appManager.getPrioritizedTasks().get(0).setStartTime(startTime.plusDays(3)));
+        assertThrows(UnsupportedOperationException.class, () -> appManager.findEpic(3).removeAllStories());
+        assertThrows(UnsupportedOperationException.class, () -> appManager.findEpic(3).getStory(7).setName("Story"));
+        assertThrows(UnsupportedOperationException.class, () -> appManager.findStory(7).setStateTask(StateTask.DONE));
+        assertThrows(UnsupportedOperationException.class, () -> appManager.findAllTasks().clear());
+
+        assertArrayEquals(new long[]{5L, 6L, 1L, 2L, 7L}, ids(appManager.getPrioritizedTasks()));
+        assertEquals(startTime, appManager.findTask(5).getStartTime());
+        assertEquals(1, appManager.findEpic(3).getStories().size());
+        assertEquals(StateTask.NEW, appManager.findStory(7).getStateTask());
+        assertEquals(StateTask.NEW, appManager.findEpic(3).getStateTask());
+        appManager.updateTask(5, Task.builder("Task5").startTime(startTime.plusDays(2)).build());
+        assertArrayEquals(new long[]{6L, 5L, 1L, 2L, 7L}, ids(appManager.getPrioritizedTasks()));
+
+        appManager.updateEpic(3, Epic.createEpic(3, "Epic1", "", appManager.findEpic(3).getStories(), null, null));
+        appManager.updateStory(7, Story.createStory(7, "Release notes", 3L));
+        assertEquals("Release notes", appManager.findEpic(3).getStory(7).getName());
+    }
+
+    @Test
+    void storyChangesShareTheStoriesOfOtherEpics() {
+        appManager.addStories(List.of(Story.createStory("Story5", 3L), Story.createStory("Story6", 4L)));
+        final TaskSnapshot before = appManager.getSnapshot();
+        appManager.updateStory(5, Story.createStory(5, "Release notes", "", 3L));
+        final TaskSnapshot after = appManager.getSnapshot();
+
+        assertSame(before.getStories().get(4L), after.getStories().get(4L));
+        assertSame(before.getTasks(), after.getTasks());
+        assertEquals("Story5", before.findEpic(3).getStory(5).getName());
+        assertEquals("Release notes", after.findEpic(3).getStory(5).getName());
+
+        appManager.updateStory(5, Story.createStory(5, "Release notes", "", 4L, StateTask.DONE));
+        assertEquals(0, appManager.getSnapshot().getStories().get(3L).size());
+        assertArrayEquals(new long[]{5L, 6L}, appManager.findAllStories(4L).stream().mapToLong(Story::getId).toArray());
+        assertEquals(StateTask.IN_PROGRESS,
+                appManager.findAllEpics(StateTask.IN_PROGRESS).iterator().next().getStateTask());
+        appManager.deleteEpic(4);
+        assertNull(appManager.getSnapshot().getStories().get(4L));
+        assertTrue(appManager.findAllStories().isEmpty());
+    }
+
+    private static long[] ids(List<AbstractTask> tasks) {
+        return tasks.stream().mapToLong(AbstractTask::getId).toArray();
+    }
+}
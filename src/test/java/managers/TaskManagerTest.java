@@ -1,8 +1,14 @@
 package managers;
 
+import exceptions.ManagerDependencyCycleException;
 import exceptions.ManagerIntersectionTaskIntervalsException;
 import exceptions.ManagerTaskNotFoundException;
+import managers.events.TaskEvent;
+import managers.events.TaskEventListener;
 import managers.history.HistoryManager;
+import managers.query.TaskQuery;
+import managers.stats.BoardAnalytics;
+import managers.stats.TaskCounts;
 import models.enums.StateTask;
 import models.enums.TypeTask;
 import models.repositories.tasks.AbstractTasksRepository;
@@ -10,6 +16,7 @@ import models.repositories.tasks.EpicsRepository;
 import models.repositories.tasks.TasksRepository;
 import models.tasks.AbstractTask;
 import models.tasks.Epic;
+import models.tasks.RecurringTask;
 import models.tasks.Story;
 import models.tasks.Task;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,15 +26,21 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 abstract class TaskManagerTest<T extends TaskManager> {
-    private final T appManager;
+    protected final T appManager;
 
     protected TaskManagerTest(T appManager) {
         this.appManager = appManager;
@@ -83,6 +96,34 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals("Updated task!", updatedTask.getDescription());
     }
 
+    @Test
+    void addTasks() {
+        final List<Task> newTasks = appManager.addTasks(List.of(Task.createTask("Task3"), Task.createTask("Task4")));
+        assertArrayEquals(new long[]{5L, 6L}, newTasks.stream().mapToLong(Task::getId).toArray());
+        assertEquals("Task4", appManager.findTask(6).getName());
+        assertEquals(4, appManager.findAllTasks().size());
+    }
+
+    @Test
+    void addTasksIntersectingEachOther() {
+        final LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        assertThrows(ManagerIntersectionTaskIntervalsException.class, () -> appManager.addTasks(List.of(
+                Task.builder("Task3").startTime(startTime.plusHours(4)).duration(Duration.ofHours(1)).build(),
+                Task.builder("Task4").startTime(startTime).duration(Duration.ofHours(2)).build(),
+                Task.builder("Task5").startTime(startTime.plusHours(1)).duration(Duration.ofHours(2)).build())));
+        assertEquals(2, appManager.findAllTasks().size());
+    }
+
+    @Test
+    void addTasksIntersectingScheduledTask() {
+        final LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        appManager.addStory(Story.builder("Story", 3L).startTime(startTime).duration(Duration.ofHours(2)).build());
+        assertThrows(ManagerIntersectionTaskIntervalsException.class, () -> appManager.addTasks(List.of(
+                Task.builder("Task3").startTime(startTime.plusHours(4)).duration(Duration.ofHours(1)).build(),
+                Task.builder("Task4").startTime(startTime.minusHours(1)).duration(Duration.ofHours(2)).build())));
+        assertEquals(2, appManager.findAllTasks().size());
+    }
+
     @Test
     void updateTaskByWrongId() {
         assertThrows(ManagerTaskNotFoundException.class, () -> appManager.updateTask(3, Task.createTask("NewTask")));
@@ -206,12 +247,41 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(1, appManager.findEpic(4).getStories().size());
     }
 
+    @Test
+    void addStories() {
+        final List<Story> newStories = appManager.addStories(List.of(
+                Story.createStory("Story1", 3L),
+                Story.createStory("Story2", 4L)));
+        assertArrayEquals(new long[]{5L, 6L}, newStories.stream().mapToLong(Story::getId).toArray());
+        assertEquals(1, appManager.findAllStories(3L).size());
+        assertEquals(1, appManager.findAllStories(4L).size());
+    }
+
+    @Test
+    void addStoriesWithWrongEpicId() {
+        assertThrows(ManagerTaskNotFoundException.class, () -> appManager.addStories(List.of(
+                Story.createStory("Story1", 3L),
+                Story.createStory("Story2", 10L))));
+        assertEquals(0, appManager.findAllStories(3L).size());
+    }
+
     @Test
     void updateStoryByWrongId() {
         assertThrows(ManagerTaskNotFoundException.class,
                 () -> appManager.updateStory(5, Story.createStory("NewStory", 3)));
     }
 
+    @Test
+    void updateStoryWithWrongEpicId() {
+        appManager.addStory(Story.createStory("Story1", "StoryOwnedEpic1", 3));
+        final ManagerTaskNotFoundException exception = assertThrows(ManagerTaskNotFoundException.class,
+                () -> appManager.updateStory(5, Story.createStory("Story1", "StoryOwnedEpic1", 10)));
+        assertEquals(TypeTask.EPIC + " was not found by id = 10", exception.getMessage());
+        assertEquals(3, appManager.findStory(5).getEpicId());
+        assertEquals(1, appManager.findAllStories(3L).size());
+        assertEquals(1, appManager.findAllStories(StateTask.NEW).size());
+    }
+
     @Test
     void deleteStory() {
         final Epic epic1 = appManager.findEpic(3);
@@ -221,6 +291,22 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(0, appManager.findAllStories(story1.getEpicId()).size());
     }
 
+    @Test
+    void findStoryAfterMovingAndDeletingEpics() {
+        appManager.addStory(Story.createStory("Story1", "StoryOwnedEpic1", 3));
+        appManager.addStory(Story.createStory("Story2", "StoryOwnedEpic2", 4));
+        appManager.updateStory(5, Story.createStory("Story1", "StoryOwnedEpic2", 4));
+        assertEquals(4, appManager.findStory(5).getEpicId());
+
+        appManager.deleteEpic(4);
+        assertThrows(ManagerTaskNotFoundException.class, () -> appManager.findStory(5));
+        assertThrows(ManagerTaskNotFoundException.class, () -> appManager.deleteStory(6));
+
+        appManager.addStory(Story.createStory("Story3", "StoryOwnedEpic1", 3));
+        appManager.deleteAllStories(appManager.findEpic(3));
+        assertThrows(ManagerTaskNotFoundException.class, () -> appManager.findStory(7));
+    }
+
     @Test
     void deleteStoryByWrongId() {
         assertThrows(ManagerTaskNotFoundException.class, () -> appManager.deleteStory(5));
@@ -261,6 +347,41 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(expectedStateTaskEpic, epic.getStateTask());
     }
 
+    @Test
+    void checkEpicTimeFieldsFollowStories() {
+        final LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        final Epic epic = appManager.findEpic(3);
+        appManager.addStories(List.of(
+                Story.builder("Story5", 3L).startTime(startTime).duration(Duration.ofHours(1)).build(),
+                Story.builder("Story6", 3L).startTime(startTime.plusHours(2)).duration(Duration.ofHours(2)).build(),
+                Story.builder("Story7", 3L).stateTask(StateTask.DONE).build()));
+        assertEquals(startTime, epic.getStartTime());
+        assertEquals(startTime.plusHours(4), epic.getEndTime());
+        assertEquals(Duration.ofHours(3), epic.getDuration());
+        assertEquals(StateTask.IN_PROGRESS, epic.getStateTask());
+
+        appManager.deleteStory(5);
+        assertEquals(startTime.plusHours(2), epic.getStartTime());
+        assertEquals(Duration.ofHours(2), epic.getDuration());
+
+        appManager.updateStory(6, Story.builder("Story6", 3L)
+                .startTime(startTime.plusHours(5))
+                .duration(Duration.ofHours(1))
+                .build());
+        assertEquals(startTime.plusHours(5), epic.getStartTime());
+        assertEquals(startTime.plusHours(6), epic.getEndTime());
+        assertEquals(Duration.ofHours(1), epic.getDuration());
+
+        epic.setStatusStory(6, StateTask.DONE);
+        assertEquals(StateTask.DONE, epic.getStateTask());
+
+        appManager.deleteAllStories(epic);
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+        assertNull(epic.getDuration());
+        assertEquals(StateTask.NEW, epic.getStateTask());
+    }
+
     private static Stream<Arguments> tasksFindSequenceDataProvider() {
         return Stream.of(
                 // findTasks, idsTasksDeleteFromHistory, expectedHistoryManagerIds
@@ -432,6 +553,444 @@ abstract class TaskManagerTest<T extends TaskManager> {
                 .toArray());
     }
 
+    @Test
+    void addTaskIntersectingSeveralTasks() {
+        final LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        final Task task5 = appManager.addTask(Task.builder("Task5")
+                .startTime(startTime)
+                .duration(Duration.ofHours(2))
+                .build());
+        final Story story6 = appManager.addStory(Story.builder("Story6", 3L)
+                .startTime(startTime.plusHours(3))
+                .duration(Duration.ofHours(2))
+                .build());
+        appManager.addTask(Task.builder("Task7")
+                .startTime(startTime.plusHours(6))
+                .duration(Duration.ofHours(2))
+                .build());
+
+        final ManagerIntersectionTaskIntervalsException exception = assertThrows(
+                ManagerIntersectionTaskIntervalsException.class,
+                () -> appManager.addTask(Task.builder("Task")
+                        .startTime(startTime.plusHours(1))
+                        .duration(Duration.ofHours(3))
+                        .build()));
+        assertEquals(List.of(task5, story6), exception.getIntersectedTasks());
+        assertEquals(4, appManager.findAllTasks().size());
+    }
+
+    @Test
+    void updateTaskDoesNotIntersectItself() {
+        final LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        final Task task5 = appManager.addTask(Task.builder("Task5")
+                .startTime(startTime)
+                .duration(Duration.ofHours(2))
+                .build());
+        appManager.addTask(Task.builder("Task6")
+                .startTime(startTime.plusHours(4))
+                .duration(Duration.ofHours(2))
+                .build());
+
+        appManager.updateTask(task5.getId(), Task.builder("Task5")
+                .startTime(startTime.plusHours(1))
+                .duration(Duration.ofHours(2))
+                .build());
+        assertEquals(startTime.plusHours(1), appManager.findTask(task5.getId()).getStartTime());
+        assertThrows(ManagerIntersectionTaskIntervalsException.class,
+                () -> appManager.updateTask(task5.getId(), Task.builder("Task5")
+                        .startTime(startTime.plusHours(2))
+                        .duration(Duration.ofHours(3))
+                        .build()));
+
+        final InMemoryTaskManager inMemoryTaskManager = (InMemoryTaskManager) appManager;
+        assertArrayEquals(new long[]{5L, 6L, 1L, 2L}, inMemoryTaskManager.getPrioritizedTasks().stream()
+                .mapToLong(AbstractTask::getId)
+                .toArray());
+    }
+
+    @Test
+    void findFreeSlot() {
+        final LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        appManager.addTasks(List.of(
+                Task.builder("Task5").startTime(startTime).duration(Duration.ofHours(2)).build(),
+                Task.builder("Task6").startTime(startTime.plusHours(3)).duration(Duration.ofHours(1)).build(),
+                Task.builder("Task7").startTime(startTime.plusHours(5)).duration(Duration.ofHours(1)).build()));
+        appManager.addStory(Story.builder("Story8", 3L)
+                .startTime(startTime.plusHours(8))
+                .duration(Duration.ofHours(1))
+                .build());
+        final InMemoryTaskManager inMemoryTaskManager = (InMemoryTaskManager) appManager;
+
+        assertEquals(startTime.minusHours(1),
+                inMemoryTaskManager.findFreeSlot(Duration.ofHours(1), startTime.minusHours(1)));
+        assertEquals(startTime.plusHours(2),
+                inMemoryTaskManager.findFreeSlot(Duration.ofHours(1), startTime));
+        assertEquals(startTime.plusHours(6),
+                inMemoryTaskManager.findFreeSlot(Duration.ofHours(2), startTime));
+        assertEquals(startTime.plusHours(9),
+                inMemoryTaskManager.findFreeSlot(Duration.ofHours(3), startTime.minusHours(1)));
+        assertEquals(startTime.plusHours(4).plusMinutes(30),
+                inMemoryTaskManager.findFreeSlot(Duration.ofMinutes(30), startTime.plusHours(4).plusMinutes(30)));
+
+        appManager.deleteTask(6);
+        assertEquals(startTime.plusHours(2),
+                inMemoryTaskManager.findFreeSlot(Duration.ofHours(3), startTime));
+    }
+
+    @Test
+    void getPrioritizedTasksInTimeRange() {
+        final LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        appManager.addTasks(List.of(
+                Task.builder("Task5").startTime(startTime).duration(Duration.ofHours(1)).build(),
+                Task.builder("Task6").startTime(startTime.plusDays(1)).duration(Duration.ofHours(1)).build(),
+                Task.builder("Task7").startTime(startTime.plusDays(2)).duration(Duration.ofHours(1)).build()));
+        appManager.addStory(Story.builder("Story8", 3L)
+                .startTime(startTime.plusDays(3))
+                .duration(Duration.ofHours(1))
+                .build());
+        final InMemoryTaskManager inMemoryTaskManager = (InMemoryTaskManager) appManager;
+
+        assertArrayEquals(new long[]{6L, 7L}, inMemoryTaskManager
+                .getPrioritizedTasks(startTime.plusDays(1), startTime.plusDays(3), Integer.MAX_VALUE).stream()
+                .mapToLong(AbstractTask::getId)
+                .toArray());
+        assertArrayEquals(new long[]{6L, 7L, 8L}, inMemoryTaskManager
+                .getPrioritizedTasks(startTime.plusHours(1), null, Integer.MAX_VALUE).stream()
+                .mapToLong(AbstractTask::getId)
+                .toArray());
+        assertArrayEquals(new long[]{5L, 6L}, inMemoryTaskManager
+                .getPrioritizedTasks(null, startTime.plusDays(2), Integer.MAX_VALUE).stream()
+                .mapToLong(AbstractTask::getId)
+                .toArray());
+        assertArrayEquals(new long[]{5L, 6L, 7L}, inMemoryTaskManager
+                .getPrioritizedTasks(null, null, 3).stream()
+                .mapToLong(AbstractTask::getId)
+                .toArray());
+        assertEquals(inMemoryTaskManager.getPrioritizedTasks(),
+                inMemoryTaskManager.getPrioritizedTasks(null, null, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void counts() {
+        appManager.addStory(Story.createStory(0, "Story5", "", 3L, StateTask.DONE));
+        TaskCounts counts = appManager.counts();
+        assertEquals(5, counts.getTotal());
+        assertEquals(appManager.size(), counts.getTotal());
+        assertEquals(1, counts.get(TypeTask.STORY));
+        assertEquals(1, counts.get(TypeTask.EPIC, StateTask.DONE));
+        assertEquals(2, counts.get(StateTask.DONE));
+
+        appManager.updateTask(1, Task.createTask(1, "Task1", "", StateTask.IN_PROGRESS));
+        appManager.updateStory(5, Story.createStory(5, "Story5", "", 4L, StateTask.IN_PROGRESS));
+        counts = appManager.counts();
+        assertEquals(1, counts.get(TypeTask.TASK, StateTask.IN_PROGRESS));
+        assertEquals(1, counts.get(TypeTask.EPIC, StateTask.NEW));
+        assertEquals(1, counts.get(TypeTask.EPIC, StateTask.IN_PROGRESS));
+        assertEquals(3, counts.get(StateTask.IN_PROGRESS));
+        assertEquals(0, counts.get(StateTask.DONE));
+
+        appManager.deleteEpic(4);
+        appManager.deleteTask(2);
+        counts = appManager.counts();
+        assertEquals(2, counts.getTotal());
+        assertEquals(appManager.size(), counts.getTotal());
+        assertEquals(0, counts.get(TypeTask.STORY));
+        assertEquals(1, counts.get(TypeTask.TASK, StateTask.IN_PROGRESS));
+        assertEquals(1, counts.get(TypeTask.EPIC, StateTask.NEW));
+    }
+
+    @Test
+    void findAllByState() {
+        appManager.addStory(Story.createStory(0, "Story5", "", 3L, StateTask.DONE));
+        appManager.updateTask(2, Task.createTask(2, "Task2", "", StateTask.IN_PROGRESS));
+        assertEquals(List.of(appManager.findTask(1)), List.copyOf(appManager.findAllTasks(StateTask.NEW)));
+        assertEquals(List.of(appManager.findTask(2)), List.copyOf(appManager.findAllTasks(StateTask.IN_PROGRESS)));
+        assertEquals(List.of(appManager.findEpic(3)), List.copyOf(appManager.findAllEpics(StateTask.DONE)));
+        assertEquals(List.of(appManager.findEpic(4)), List.copyOf(appManager.findAllEpics(StateTask.NEW)));
+        assertEquals(List.of(appManager.findStory(5)), List.copyOf(appManager.findAllStories(StateTask.DONE)));
+
+        appManager.updateStory(5, Story.createStory(5, "Story5", "", 4L, StateTask.IN_PROGRESS));
+        assertTrue(appManager.findAllEpics(StateTask.DONE).isEmpty());
+        assertEquals(List.of(appManager.findEpic(3)), List.copyOf(appManager.findAllEpics(StateTask.NEW)));
+        assertEquals(List.of(appManager.findEpic(4)), List.copyOf(appManager.findAllEpics(StateTask.IN_PROGRESS)));
+        assertTrue(appManager.findAllStories(StateTask.DONE).isEmpty());
+
+        appManager.deleteEpic(4);
+        appManager.deleteTask(2);
+        assertTrue(appManager.findAllEpics(StateTask.IN_PROGRESS).isEmpty());
+        assertTrue(appManager.findAllStories(StateTask.IN_PROGRESS).isEmpty());
+        assertTrue(appManager.findAllTasks(StateTask.IN_PROGRESS).isEmpty());
+        assertEquals(1, appManager.findAllTasks(StateTask.NEW).size());
+        assertThrows(NullPointerException.class, () -> appManager.findAllTasks(null));
+    }
+
+    @Test
+    void search() {
+        appManager.addStory(Story.createStory("Release notes", "Draft the release", 3L));
+        appManager.updateTask(2, Task.createTask(2, "Release checklist", ""));
+        assertEquals(List.of(appManager.findStory(5), appManager.findTask(2)), appManager.search("release", 0, 10));
+        assertEquals(List.of(appManager.findTask(2)), appManager.search("release", 1, 10));
+
+        appManager.updateEpic(4, Epic.createEpic(4, "Release train", ""));
+        assertEquals(3, appManager.search("release", 0, 10).size());
+        appManager.deleteTask(2);
+        appManager.deleteEpic(3);
+        assertEquals(List.of(appManager.findEpic(4)), appManager.search("release", 0, 10));
+        assertTrue(appManager.search("task2", 0, 10).isEmpty());
+    }
+
+    @Test
+    void query() {
+        final LocalDateTime startTime = LocalDateTime.of(2022, Month.MAY, 1, 9, 0);
+        appManager.addStory(Story.builder("Release notes", 3L).stateTask(StateTask.IN_PROGRESS)
+                .startTime(startTime.plusHours(2)).duration(Duration.ofHours(1)).build());
+        appManager.addTask(Task.builder("Release build").startTime(startTime).duration(Duration.ofHours(1)).build());
+
+        assertEquals(List.of(appManager.findTask(6), appManager.findStory(5)), appManager.query(TaskQuery.builder()
+                .text("release").orderBy(TaskQuery.Order.START_TIME).build()));
+        assertEquals(List.of(appManager.findEpic(3), appManager.findStory(5)), appManager.query(TaskQuery.builder()
+                .stateTask(StateTask.IN_PROGRESS).build()));
+        assertEquals(List.of(appManager.findStory(5)), appManager.query(TaskQuery.builder()
+                .epicId(3).from(startTime.plusHours(1)).build()));
+        assertEquals(List.of(appManager.findTask(1), appManager.findTask(2)), appManager.query(TaskQuery.builder()
+                .type(TypeTask.TASK).orderBy(TaskQuery.Order.NAME).after(6).limit(2).build()));
+    }
+
+    @Test
+    void analytics() {
+        final LocalDateTime startTime = LocalDateTime.of(2022, Month.MAY, 1, 22, 0);
+        appManager.addStory(Story.builder("Story5", 3L).stateTask(StateTask.DONE)
+                .startTime(startTime).duration(Duration.ofHours(3)).build());
+        appManager.addStory(Story.builder("Story6", 3L).duration(Duration.ofMinutes(30)).build());
+        appManager.addTask(Task.builder("Task7").startTime(startTime.plusDays(1)).duration(Duration.ofHours(2)).build());
+
+        final BoardAnalytics analytics = appManager.analytics();
+        assertEquals(5, analytics.getStates().get(StateTask.NEW));
+        assertEquals(1, analytics.getStates().get(StateTask.IN_PROGRESS));
+        assertEquals(1, analytics.getStates().get(StateTask.DONE));
+        final BoardAnalytics.EpicRollup epic = analytics.getEpics().get(0);
+        assertEquals(3, epic.getId());
+        assertEquals(2, epic.getStories());
+        assertEquals(Duration.ofMinutes(210), epic.getScheduled());
+        assertEquals(50.0, epic.getPercentComplete());
+        assertEquals(0, analytics.getEpics().get(1).getStories());
+        assertEquals(List.of(2.0, 3.0), List.copyOf(analytics.getHoursPerDay().values()));
+        assertEquals(startTime.toLocalDate(), analytics.getHoursPerDay().firstKey());
+
+        final BoardAnalytics parallel = BoardAnalytics.compute(appManager.findAllTasks(), appManager.findAllEpics(),
+                appManager.counts(), true);
+        assertEquals(analytics.getHoursPerDay(), parallel.getHoursPerDay());
+        assertEquals(Duration.ofMinutes(210), parallel.getEpics().get(0).getScheduled());
+    }
+
+    @Test
+    void findByDay() {
+        final LocalDate day = LocalDate.of(2022, Month.MAY, 1);
+        appManager.addTask(Task.builder("Task5").startTime(day.minusDays(1).atTime(20, 0))
+                .duration(Duration.ofHours(12)).build());
+        appManager.addStory(Story.builder("Story6", 3L).startTime(day.atTime(9, 0))
+                .duration(Duration.ofHours(1)).build());
+        appManager.addTask(Task.builder("Task7").startTime(day.plusDays(1).atStartOfDay()).build());
+        assertEquals(List.of(appManager.findTask(5), appManager.findStory(6)), appManager.findByDay(day));
+
+        appManager.updateTask(5, Task.builder("Task5").startTime(day.plusDays(1).atTime(8, 0)).build());
+        assertEquals(List.of(appManager.findStory(6)), appManager.findByDay(day));
+        assertEquals(List.of(appManager.findTask(7), appManager.findTask(5)), appManager.findByDay(day.plusDays(1)));
+        appManager.deleteEpic(3);
+        assertTrue(appManager.findByDay(day).isEmpty());
+    }
+
+    @Test
+    void recurringTasks() {
+        final LocalDateTime startTime = LocalDateTime.of(2022, Month.MAY, 2, 9, 0);
+        final RecurringTask standUp = appManager.addRecurringTask(RecurringTask.builder("Stand-up")
+                .startTime(startTime).duration(Duration.ofMinutes(15)).period(Duration.ofDays(1)).build());
+        assertEquals(5, standUp.getId());
+        assertEquals(List.of(standUp), appManager.findAllRecurringTasks());
+
+        assertThrows(ManagerIntersectionTaskIntervalsException.class, () -> appManager.addTask(Task.builder("Task")
+                .startTime(startTime.plusDays(30).minusMinutes(5)).duration(Duration.ofMinutes(10)).build()));
+        appManager.addTask(Task.builder("Task6").startTime(startTime.plusDays(30).plusMinutes(15))
+                .duration(Duration.ofHours(1)).build());
+        assertThrows(ManagerIntersectionTaskIntervalsException.class, () -> appManager.addRecurringTask(
+                RecurringTask.builder("Weekly").startTime(startTime.plusDays(2).plusMinutes(30)).duration(Duration.ofHours(1))
+                        .period(Duration.ofDays(7)).build()));
+        assertThrows(ManagerIntersectionTaskIntervalsException.class, () -> appManager.addRecurringTask(
+                RecurringTask.builder("Weekly").startTime(startTime.minusMinutes(30)).duration(Duration.ofHours(1))
+                        .period(Duration.ofDays(7)).build()));
+
+        final List<AbstractTask> prioritizedTasks = appManager.findByDay(startTime.plusDays(30).toLocalDate());
+        assertEquals(List.of(startTime.plusDays(30), startTime.plusDays(30).plusMinutes(15)),
+                prioritizedTasks.stream().map(AbstractTask::getStartTime).collect(Collectors.toList()));
+        assertEquals(List.of(5L, 6L), prioritizedTasks.stream().map(AbstractTask::getId).collect(Collectors.toList()));
+
+        appManager.deleteRecurringTask(5);
+        assertThrows(ManagerTaskNotFoundException.class, () -> appManager.findRecurringTask(5));
+        assertEquals(1, appManager.findByDay(startTime.plusDays(30).toLocalDate()).size());
+        assertEquals(7, appManager.addRecurringTask(RecurringTask.builder("Retro").startTime(startTime.plusDays(31))
+                .duration(Duration.ofHours(1)).period(Duration.ofDays(14)).build()).getId());
+    }
+
+    @Test
+    void dependencies() {
+        appManager.addStory(Story.builder("Story5", 3L).duration(Duration.ofMinutes(30)).build());
+        appManager.addTask(Task.builder("Task6").duration(Duration.ofMinutes(60)).build());
+        assertTrue(appManager.addDependency(5, 6));
+        assertTrue(appManager.addDependency(1, 5));
+        assertFalse(appManager.addDependency(1, 5));
+        assertThrows(ManagerDependencyCycleException.class, () -> appManager.addDependency(6, 1));
+        assertThrows(IllegalArgumentException.class, () -> appManager.addDependency(1, 3));
+        assertEquals(List.of(5L), appManager.findBlockers(1));
+        assertEquals(90, appManager.getEarliestStart(1));
+        assertEquals(List.of(6L, 5L, 1L), appManager.getCriticalPath().getIds());
+
+        appManager.updateTask(6, Task.builder("Task6").duration(Duration.ofMinutes(120)).build());
+        assertEquals(150, appManager.getEarliestStart(1));
+        assertEquals(List.of(5L), appManager.findBlockers(1));
+        appManager.deleteStory(5);
+        assertTrue(appManager.findBlockers(1).isEmpty());
+        assertEquals(0, appManager.getEarliestStart(1));
+        assertFalse(appManager.removeDependency(1, 5));
+        assertEquals(List.of(6L), appManager.getCriticalPath().getIds());
+        assertEquals(120, appManager.getCriticalPath().getDuration());
+    }
+
+    @Test
+    void commitTransaction() {
+        final List<Story> stories = appManager.inTransaction(() -> {
+            final Epic epic = appManager.addEpic(Epic.createEpic("Epic5"));
+            final List<Story> added = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                added.add(appManager.addStory(Story.createStory("Story" + i, "", epic.getId())));
+            }
+            appManager.updateTask(1, Task.createTask(1, "Task1", "", StateTask.DONE));
+            return added;
+        });
+        assertEquals(30, stories.size());
+        assertEquals(30, appManager.findAllStories(5).size());
+        assertEquals(StateTask.DONE, appManager.findTask(1).getStateTask());
+        assertEquals(3, appManager.counts().get(TypeTask.EPIC));
+        assertEquals(30, appManager.counts().get(TypeTask.STORY));
+    }
+
+    @Test
+    void rollBackTransaction() throws InterruptedException {
+        final LocalDateTime startTime = LocalDateTime.of(2022, Month.MAY, 2, 9, 0);
+        appManager.addTask(Task.builder("Task5").startTime(startTime).duration(Duration.ofHours(1)).build());
+        appManager.addStory(Story.createStory("Story6", "", 3));
+        appManager.addDependency(5, 6);
+        appManager.findTask(1);
+        final List<Long> searchIds = appManager.search("Task", 0, 10).stream()
+                .map(AbstractTask::getId).collect(Collectors.toList());
+        final BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+        final TaskEventListener listener = events::add;
+        appManager.subscribe(listener);
+        try {
+            assertThrows(ManagerIntersectionTaskIntervalsException.class, () -> appManager.inTransaction(() -> {
+                appManager.updateTask(1, Task.createTask(1, "Renamed", "", StateTask.DONE));
+                appManager.deleteTask(5);
+                appManager.addDependency(1, 6);
+                appManager.addRecurringTask(RecurringTask.builder("Stand-up").startTime(startTime.plusDays(1))
+                        .duration(Duration.ofMinutes(15)).period(Duration.ofDays(1)).build());
+                appManager.updateStory(6, Story.createStory(6, "Story6", "", 4, StateTask.IN_PROGRESS));
+                appManager.deleteEpic(3);
+                appManager.findEpic(4);
+                appManager.addTask(Task.builder("Task7").startTime(startTime).duration(Duration.ofHours(2)).build());
+                return appManager.addTask(Task.builder("Task8").startTime(startTime.plusMinutes(30)).build());
+            }));
+            assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+        } finally {
+            appManager.unsubscribe(listener);
+        }
+
+        assertEquals("Task1", appManager.findTask(1).getName());
+        assertEquals(StateTask.NEW, appManager.findTask(1).getStateTask());
+        assertEquals(startTime, appManager.findTask(5).getStartTime());
+        assertEquals(3, appManager.findStory(6).getEpicId());
+        assertEquals(1, appManager.findAllStories(3).size());
+        assertEquals(0, appManager.findAllStories(4).size());
+        assertEquals(List.of(6L), appManager.findBlockers(5));
+        assertEquals(List.of(), appManager.findBlockers(1));
+        assertEquals(List.of(), appManager.findAllRecurringTasks());
+        assertEquals(3, appManager.counts().get(TypeTask.TASK));
+        assertEquals(2, appManager.counts().get(TypeTask.EPIC));
+        assertEquals(1, appManager.counts().get(TypeTask.STORY));
+        assertEquals(searchIds, appManager.search("Task", 0, 10).stream()
+                .map(AbstractTask::getId).collect(Collectors.toList()));
+        assertEquals(List.of(5L), appManager.findByDay(startTime.toLocalDate()).stream()
+                .map(AbstractTask::getId).collect(Collectors.toList()));
+        assertThrows(ManagerTaskNotFoundException.class, () -> appManager.findTask(7));
+        assertThrows(ManagerIntersectionTaskIntervalsException.class,
+                () -> appManager.addTask(Task.builder("Task9").startTime(startTime.plusMinutes(30)).build()));
+    }
+
+    @Test
+    void publishEventsInTheOrderOfChanges() throws InterruptedException {
+        final BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+        final TaskEventListener listener = events::add;
+        appManager.subscribe(listener);
+        try {
+            appManager.addTask(Task.createTask("Task5"));
+            appManager.updateTask(5, Task.createTask(5, "Task5", "", StateTask.DONE));
+            appManager.findTask(5);
+            appManager.addStory(Story.createStory(6, "Story6", "", 3, StateTask.DONE));
+            appManager.deleteTask(5);
+            appManager.deleteEpic(3);
+
+            final List<TaskEvent> received = new ArrayList<>();
+            for (int i = 0; i < 9; i++) {
+                final TaskEvent event = events.poll(5, TimeUnit.SECONDS);
+                assertNotNull(event, "event " + i + " after " + received);
+                received.add(event);
+            }
+            assertEquals(List.of(TaskEvent.Type.CREATED, TaskEvent.Type.UPDATED, TaskEvent.Type.STATE_CHANGED,
+                            TaskEvent.Type.HISTORY_TOUCHED, TaskEvent.Type.CREATED, TaskEvent.Type.STATE_CHANGED,
+                            TaskEvent.Type.DELETED, TaskEvent.Type.DELETED, TaskEvent.Type.DELETED),
+                    received.stream().map(TaskEvent::getType).collect(Collectors.toList()));
+            assertEquals(List.of(5L, 5L, 5L, 5L, 6L, 3L, 5L, 6L, 3L),
+                    received.stream().map(TaskEvent::getId).collect(Collectors.toList()));
+            assertEquals(StateTask.NEW, received.get(5).getStateBefore());
+            assertEquals(StateTask.DONE, received.get(5).getStateAfter());
+            assertEquals(TypeTask.EPIC, received.get(5).getTypeTask());
+            for (int i = 1; i < received.size(); i++) {
+                assertEquals(received.get(i - 1).getSequence() + 1, received.get(i).getSequence());
+            }
+        } finally {
+            appManager.unsubscribe(listener);
+        }
+    }
+
+    @Test
+    void publishStoryEventsWhenEpicIsUpdated() throws InterruptedException {
+        appManager.addStory(Story.createStory("Story5", 3));
+        appManager.addStory(Story.createStory("Story6", 3));
+        final BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+        final TaskEventListener listener = events::add;
+        appManager.subscribe(listener);
+        try {
+            appManager.updateEpic(3, Epic.createEpic(3, "Epic1", "", List.of(
+                    Story.createStory(5, "Story5", "", 3, StateTask.DONE),
+                    Story.createStory(7, "Story7", "", 3, StateTask.DONE)), null, null));
+
+            final List<TaskEvent> received = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                final TaskEvent event = events.poll(5, TimeUnit.SECONDS);
+                assertNotNull(event, "event " + i + " after " + received);
+                received.add(event);
+            }
+            assertEquals(List.of(TaskEvent.Type.DELETED, TaskEvent.Type.UPDATED, TaskEvent.Type.STATE_CHANGED,
+                            TaskEvent.Type.CREATED, TaskEvent.Type.UPDATED, TaskEvent.Type.STATE_CHANGED),
+                    received.stream().map(TaskEvent::getType).collect(Collectors.toList()));
+            assertEquals(List.of(6L, 5L, 5L, 7L, 3L, 3L),
+                    received.stream().map(TaskEvent::getId).collect(Collectors.toList()));
+            assertEquals(StateTask.NEW, received.get(2).getStateBefore());
+            assertEquals(StateTask.DONE, received.get(2).getStateAfter());
+            assertEquals(8, appManager.addTask(Task.createTask("Task8")).getId());
+        } finally {
+            appManager.unsubscribe(listener);
+        }
+    }
+
     private void addTasks(T appManager, Object[][] addTasks) {
         for (Object[] addTask : addTasks) {
             final LocalDateTime startTime = (LocalDateTime) addTask[0];
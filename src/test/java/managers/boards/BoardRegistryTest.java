@@ -0,0 +1,158 @@
+package managers.boards;
+
+import managers.FileBackedTaskManager;
+import managers.InMemoryTaskManager;
+import managers.TaskManager;
+import models.tasks.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import utils.AtomicIdAllocator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardRegistryTest {
+    private static final Path BOARDS_DIRECTORY = Path.of("boards-test");
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (Files.exists(BOARDS_DIRECTORY)) {
+            try (var files = Files.list(BOARDS_DIRECTORY)) {
+                for (Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+            }
+            Files.delete(BOARDS_DIRECTORY);
+        }
+    }
+
+    @Test
+    void loadBoardsLazilyAndEvictLeastRecentlyUsed() {
+        final List<String> loadedBoards = new ArrayList<>();
+        final BoardRegistry boards = new BoardRegistry(key -> {
+            loadedBoards.add(key);
+            return new InMemoryTaskManager(new AtomicIdAllocator());
+        }, 2);
+        assertTrue(loadedBoards.isEmpty());
+
+        final TaskManager board1 = board(boards, "board1");
+        board1.addTask(Task.createTask("Task1"));
+        board(boards, "board2");
+        assertSame(board1, board(boards, "board1"));
+        assertEquals(List.of("board1", "board2"), loadedBoards);
+
+        board(boards, "board3");
+        assertEquals(Set.of("board1", "board3"), boards.getResidentBoards());
+        assertFalse(boards.isResident("board2"));
+
+        board(boards, "board2");
+        assertEquals(List.of("board1", "board2", "board3", "board2"), loadedBoards);
+        assertThrows(IllegalArgumentException.class, () -> boards.acquire("../board1"));
+    }
+
+    @Test
+    void closeEvictedBoards() throws InterruptedException {
+        final BoardRegistry boards = new BoardRegistry(key -> new InMemoryTaskManager(new AtomicIdAllocator()), 1);
+        final InMemoryTaskManager board1 = (InMemoryTaskManager) board(boards, "board1");
+        final CountDownLatch delivered = new CountDownLatch(1);
+        board1.subscribe(event -> delivered.countDown());
+        board1.addTask(Task.createTask("Task1"));
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+
+        final TaskManager board2 = board(boards, "board2");
+        assertFalse(boards.isResident("board1"));
+        assertThrows(IllegalStateException.class, () -> board1.subscribe(event -> { }));
+        assertTrue(boards.evict("board2"));
+        assertThrows(IllegalStateException.class, () -> board2.subscribe(event -> { }));
+    }
+
+    @Test
+    void keepLeasedBoards() {
+        final BoardRegistry boards = new BoardRegistry(key -> new InMemoryTaskManager(new AtomicIdAllocator()), 1);
+        final BoardRegistry.Lease lease = boards.acquire("board1");
+        board(boards, "board2");
+        assertTrue(boards.isResident("board1"));
+        assertFalse(boards.evict("board1"));
+
+        board(boards, "board3");
+        assertEquals(Set.of("board1"), boards.getResidentBoards());
+        lease.close();
+        lease.close();
+        board(boards, "board2");
+        assertEquals(Set.of("board2"), boards.getResidentBoards());
+    }
+
+    @Test
+    void loadOutsideTheLockAndOnlyOnce() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch loaded = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+        final BoardRegistry boards = new BoardRegistry(key -> {
+            if (key.equals("slow")) {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    loaded.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return new InMemoryTaskManager(new AtomicIdAllocator());
+        }, 100);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<TaskManager> first = executor.submit(() -> board(boards, "slow"));
+            loading.await();
+            final Future<TaskManager> second = executor.submit(() -> board(boards, "slow"));
+            board(boards, "fast");
+            assertFalse(first.isDone());
+            loaded.countDown();
+            assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void forgetBoardsThatFailToLoad() {
+        final AtomicInteger loads = new AtomicInteger();
+        final BoardRegistry boards = new BoardRegistry(key -> {
+            if (loads.incrementAndGet() == 1) throw new IllegalStateException("broken");
+            return new InMemoryTaskManager(new AtomicIdAllocator());
+        }, 100);
+        assertThrows(IllegalStateException.class, () -> boards.acquire("board1"));
+        assertFalse(boards.isResident("board1"));
+        assertNotNull(board(boards, "board1"));
+    }
+
+    @Test
+    void reloadFileBackedBoardAfterEvictionWithItsIds() throws IOException {
+        Files.createDirectories(BOARDS_DIRECTORY);
+        final BoardRegistry boards = BoardRegistry.fileBacked(BOARDS_DIRECTORY, 1);
+        final TaskManager board = board(boards, "board1");
+        board.addTask(Task.createTask("Task1"));
+        final long id = board.addTask(Task.createTask("Task2")).getId();
+        board.deleteTask(id - 1);
+        board(boards, "board2");
+        assertFalse(boards.isResident("board1"));
+
+        final FileBackedTaskManager board1 = (FileBackedTaskManager) board(boards, "board1");
+        assertNotSame(board, board1);
+        assertEquals(1, board1.size());
+        assertEquals("Task2", board1.findTask(id).getName());
+        assertEquals(id + 1, board1.addTask(Task.createTask("Task3")).getId());
+    }
+
+    private static TaskManager board(BoardRegistry boards, String key) {
+        try (BoardRegistry.Lease lease = boards.acquire(key)) {
+            return lease.getManager();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package managers.events;
+
+import models.tasks.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBusTest {
+
+    @Test
+    void deliverEveryEventOnceFromSeveralPublishers() throws Exception {
+        final int threads = 4;
+        final int eventsPerThread = 20_000;
+        final List<TaskEvent> received = new ArrayList<>();
+        final AtomicLong dropped = new AtomicLong();
+        final EventBus eventBus = new EventBus(1 << 17);
+        eventBus.subscribe(new TaskEventListener() {
+            @Override
+            public void onEvent(TaskEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onEventsDropped(long count) {
+                dropped.addAndGet(count);
+            }
+        });
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final Task[] tasks = new Task[eventsPerThread];
+            for (int i = 0; i < eventsPerThread; i++) {
+                tasks[i] = Task.createTask(i, Task.builder("Publisher" + t).build());
+            }
+            futures.add(executor.submit(() -> {
+                for (Task task : tasks) eventBus.publish(TaskEvent.Type.UPDATED, task);
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        executor.shutdown();
+        eventBus.close();
+
+        assertEquals(0, dropped.get());
+        assertEquals(threads * eventsPerThread, received.size());
+        final Map<String, Long> lastIds = new HashMap<>();
+        for (int i = 0; i < received.size(); i++) {
+            final TaskEvent event = received.get(i);
+            assertEquals(i, event.getSequence());
+            final Long lastId = lastIds.put(event.getTask().getName(), event.getId());
+            assertEquals(lastId == null ? 0 : lastId + 1, event.getId());
+        }
+    }
+
+    @Test
+    void dropTheOldestEventsInsteadOfWaitingForASlowListener() throws Exception {
+        final int events = 100;
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<TaskEvent> received = new ArrayList<>();
+        final AtomicLong dropped = new AtomicLong();
+        final EventBus eventBus = new EventBus(8);
+        eventBus.subscribe(new TaskEventListener() {
+            @Override
+            public void onEvent(TaskEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                received.add(event);
+            }
+
+            @Override
+            public void onEventsDropped(long count) {
+                dropped.addAndGet(count);
+            }
+        });
+        for (int i = 0; i < events; i++) {
+            eventBus.publish(TaskEvent.Type.CREATED, Task.createTask(i, Task.builder("Task").build()));
+        }
+        release.countDown();
+        eventBus.close();
+
+        assertTrue(dropped.get() > 0);
+        assertEquals(dropped.get(), eventBus.getDropped());
+        assertEquals(events, received.size() + dropped.get());
+        assertEquals(events - 1, received.get(received.size() - 1).getSequence());
+        for (int i = 1; i < received.size(); i++) {
+            assertTrue(received.get(i).getSequence() > received.get(i - 1).getSequence());
+            assertEquals(received.get(i).getSequence(), received.get(i).getId());
+        }
+    }
+
+    @Test
+    void publishNothingBeforeAnyoneSubscribes() {
+        final EventBus eventBus = new EventBus(2);
+        for (int i = 0; i < 10; i++) eventBus.publish(TaskEvent.Type.DELETED, Task.createTask("Task"));
+        eventBus.close();
+        assertEquals(0, eventBus.getDropped());
+        assertThrows(IllegalStateException.class, () -> eventBus.subscribe(event -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> new EventBus(12));
+    }
+}
@@ -0,0 +1,59 @@
+package managers.history;
+
+import models.tasks.AbstractTask;
+import models.tasks.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryHistoryManagerTest {
+    private final MutableClock clock = new MutableClock();
+    private final InMemoryHistoryManager historyManager = new InMemoryHistoryManager(clock);
+
+    @Test
+    void evictTheLeastRecentlyViewedTasks() {
+        for (long id = 1; id <= 5; id++) historyManager.add(task(id));
+        historyManager.setLimits(3, null);
+        assertEquals(List.of(3L, 4L, 5L), ids());
+
+        historyManager.add(task(3));
+        historyManager.add(task(6));
+        assertEquals(List.of(5L, 3L, 6L), ids());
+        historyManager.remove(3);
+        historyManager.add(task(7));
+        assertEquals(List.of(5L, 6L, 7L), ids());
+        assertThrows(IllegalArgumentException.class, () -> historyManager.setLimits(0, null));
+    }
+
+    @Test
+    void expireTasksNotViewedWithinTheTimeToLive() {
+        historyManager.setLimits(10, Duration.ofMinutes(10));
+        historyManager.add(task(1));
+        clock.advance(Duration.ofMinutes(4));
+        historyManager.add(task(2));
+        clock.advance(Duration.ofMinutes(4));
+        historyManager.add(task(3));
+        historyManager.add(task(1));
+        assertEquals(List.of(2L, 3L, 1L), ids());
+
+        clock.advance(Duration.ofMinutes(5));
+        assertEquals(List.of(2L, 3L, 1L), ids());
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(List.of(3L, 1L), ids());
+        clock.advance(Duration.ofMinutes(4));
+        assertTrue(historyManager.getHistory().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> historyManager.setLimits(10, Duration.ZERO));
+    }
+
+    private List<Long> ids() {
+        return historyManager.getHistory().stream().map(AbstractTask::getId).collect(Collectors.toList());
+    }
+
+    private static Task task(long id) {
+        return Task.createTask(id, Task.builder("Task" + id).build());
+    }
+}
@@ -0,0 +1,26 @@
+package managers.history;
+
+import java.time.*;
+
+class MutableClock extends Clock {
+    private Instant instant = Instant.parse("2022-05-02T09:00:00Z");
+
+    void advance(Duration duration) {
+        instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+        return instant;
+    }
+}
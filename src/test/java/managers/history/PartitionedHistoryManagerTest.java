@@ -0,0 +1,131 @@
+package managers.history;
+
+import models.tasks.AbstractTask;
+import models.tasks.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedHistoryManagerTest {
+    private final MutableClock clock = new MutableClock();
+    private final PartitionedHistoryManager historyManager = new PartitionedHistoryManager(clock);
+
+    @AfterEach
+    void resetClient() {
+        PartitionedHistoryManager.setClient(null);
+    }
+
+    @Test
+    void keepAHistoryPerClient() {
+        PartitionedHistoryManager.setClient("alice");
+        historyManager.add(task(1));
+        historyManager.add(task(2));
+        PartitionedHistoryManager.setClient("bob");
+        historyManager.add(task(2));
+        historyManager.add(task(3));
+        historyManager.add(task(2));
+        assertEquals(List.of(3L, 2L), ids());
+        PartitionedHistoryManager.setClient("alice");
+        assertEquals(List.of(1L, 2L), ids());
+        PartitionedHistoryManager.setClient(null);
+        assertTrue(historyManager.getHistory().isEmpty());
+
+        historyManager.remove(2);
+        PartitionedHistoryManager.setClient("bob");
+        assertEquals(List.of(3L), ids());
+        historyManager.clear();
+        assertTrue(historyManager.getHistory().isEmpty());
+        PartitionedHistoryManager.setClient("alice");
+        assertEquals(List.of(1L), ids());
+    }
+
+    @Test
+    void recordViewsOfSeveralClientsLikeAHistoryEach() throws Exception {
+        final int clients = 4;
+        historyManager.setLimits(20, null);
+        final ExecutorService executor = Executors.newFixedThreadPool(clients);
+        final List<Future<List<Long>>> expectedHistories = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            final String client = "client" + c;
+            final long seed = c;
+            expectedHistories.add(executor.submit(() -> {
+                PartitionedHistoryManager.setClient(client);
+                final InMemoryHistoryManager expected = new InMemoryHistoryManager(clock);
+                expected.setLimits(20, null);
+                final Random random = new Random(seed);
+                for (int i = 0; i < 20_000; i++) {
+                    final Task task = task(random.nextInt(50));
+                    historyManager.add(task);
+                    expected.add(task);
+                }
+                return expected.getHistory().stream().map(AbstractTask::getId).collect(Collectors.toList());
+            }));
+        }
+        for (int c = 0; c < clients; c++) {
+            final List<Long> expected = expectedHistories.get(c).get();
+            PartitionedHistoryManager.setClient("client" + c);
+            assertEquals(expected, ids());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void dropPartitionsOfClientsGoneQuiet() {
+        historyManager.setLimits(10, Duration.ofMinutes(10));
+        PartitionedHistoryManager.setClient("alice");
+        historyManager.add(task(1));
+        clock.advance(Duration.ofMinutes(6));
+        PartitionedHistoryManager.setClient("bob");
+        historyManager.add(task(2));
+        assertEquals(2, historyManager.partitions());
+
+        clock.advance(Duration.ofMinutes(6));
+        historyManager.add(task(3));
+        assertEquals(List.of(2L, 3L), ids());
+        assertEquals(1, historyManager.partitions());
+        PartitionedHistoryManager.setClient("alice");
+        assertTrue(historyManager.getHistory().isEmpty());
+    }
+
+    @Test
+    void dropTheLeastRecentlyViewedPartitionPastTheCap() {
+        final PartitionedHistoryManager capped = new PartitionedHistoryManager(clock, 2);
+        PartitionedHistoryManager.setClient("alice");
+        capped.add(task(1));
+        clock.advance(Duration.ofMinutes(1));
+        PartitionedHistoryManager.setClient("bob");
+        capped.add(task(2));
+        clock.advance(Duration.ofMinutes(1));
+        PartitionedHistoryManager.setClient("alice");
+        capped.add(task(3));
+        clock.advance(Duration.ofMinutes(1));
+        PartitionedHistoryManager.setClient("carol");
+        capped.add(task(4));
+
+        assertEquals(2, capped.partitions());
+        PartitionedHistoryManager.setClient("bob");
+        assertTrue(capped.getHistory().isEmpty());
+        PartitionedHistoryManager.setClient("alice");
+        assertEquals(List.of(1L, 3L), capped.getHistory().stream()
+                .map(AbstractTask::getId).collect(Collectors.toList()));
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedHistoryManager(clock, 0));
+    }
+
+    private List<Long> ids() {
+        return historyManager.getHistory().stream().map(AbstractTask::getId).collect(Collectors.toList());
+    }
+
+    private static Task task(long id) {
+        return Task.createTask(id, Task.builder("Task" + id).build());
+    }
+}
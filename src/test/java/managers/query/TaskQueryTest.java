@@ -0,0 +1,112 @@
+package managers.query;
+
+import exceptions.ManagerTaskNotFoundException;
+import managers.InMemoryTaskManager;
+import managers.search.SearchIndex;
+import models.enums.StateTask;
+import models.enums.TypeTask;
+import models.tasks.AbstractTask;
+import models.tasks.Epic;
+import models.tasks.Story;
+import models.tasks.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskQueryTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, Month.JANUARY, 1, 0, 0);
+    private static final List<String> WORDS = List.of("alpha", "beta", "gamma", "delta", "release", "bug");
+
+    @Test
+    void matchBruteForceUnderRandomQueries() {
+        final Random random = new Random(17);
+        final InMemoryTaskManager manager = new InMemoryTaskManager();
+        final List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 20; i++) epics.add(manager.addEpic(Epic.createEpic(text(random), text(random))));
+        for (int i = 0; i < 600; i++) {
+            final LocalDateTime startTime = random.nextInt(3) == 0 ? null : START.plusHours(2L * i);
+            final StateTask stateTask = StateTask.values()[random.nextInt(StateTask.values().length)];
+            if (random.nextBoolean()) {
+                manager.addTask(Task.builder(text(random)).description(text(random)).stateTask(stateTask)
+                        .startTime(startTime).duration(startTime == null ? null : Duration.ofHours(1)).build());
+            } else {
+                final long epicId = epics.get(random.nextInt(epics.size())).getId();
+                manager.addStory(Story.builder(text(random), epicId).description(text(random)).stateTask(stateTask)
+                        .startTime(startTime).duration(startTime == null ? null : Duration.ofHours(1)).build());
+            }
+        }
+
+        final List<AbstractTask> all = Stream.of(manager.findAllTasks(), manager.findAllEpics(),
+                        manager.findAllStories())
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList());
+        for (int i = 0; i < 400; i++) {
+            final TaskQuery.Builder builder = TaskQuery.builder();
+            for (TypeTask typeTask : TypeTask.values()) if (random.nextInt(3) == 0) builder.type(typeTask);
+            if (random.nextInt(3) == 0) builder.stateTask(StateTask.values()[random.nextInt(3)]);
+            if (random.nextInt(5) == 0) builder.epicId(epics.get(random.nextInt(epics.size())).getId());
+            if (random.nextInt(3) == 0) builder.from(START.plusHours(random.nextInt(1200)));
+            if (random.nextInt(3) == 0) builder.to(START.plusHours(1200L + random.nextInt(1200)));
+            if (random.nextInt(3) == 0) builder.text(WORDS.get(random.nextInt(WORDS.size())));
+            builder.orderBy(TaskQuery.Order.values()[random.nextInt(TaskQuery.Order.values().length)]);
+            if (random.nextBoolean()) builder.limit(random.nextInt(40));
+            if (random.nextInt(3) == 0) builder.after(all.get(random.nextInt(all.size())).getId());
+            final TaskQuery query = builder.build();
+            assertEquals(bruteForce(all, query, manager), manager.query(query), "query " + i);
+        }
+    }
+
+    @Test
+    void pageThroughResultsWithCursor() {
+        final InMemoryTaskManager manager = new InMemoryTaskManager();
+        for (int i = 0; i < 5; i++) {
+            manager.addTask(Task.builder("Task" + i).startTime(START.minusHours(i)).duration(Duration.ofMinutes(30))
+                    .build());
+        }
+        final TaskQuery.Builder builder = TaskQuery.builder().orderBy(TaskQuery.Order.START_TIME).limit(2);
+        final List<String> names = new ArrayList<>();
+        List<AbstractTask> page = manager.query(builder.build());
+        while (!page.isEmpty()) {
+            page.forEach(task -> names.add(task.getName()));
+            page = manager.query(builder.after(page.get(page.size() - 1).getId()).build());
+        }
+        assertEquals(List.of("Task4", "Task3", "Task2", "Task1", "Task0"), names);
+        assertThrows(ManagerTaskNotFoundException.class, () -> manager.query(TaskQuery.builder()
+                .orderBy(TaskQuery.Order.NAME).after(100).build()));
+        assertThrows(IllegalArgumentException.class, () -> TaskQuery.builder().limit(-1).build());
+    }
+
+    private static List<AbstractTask> bruteForce(List<AbstractTask> all, TaskQuery query, InMemoryTaskManager manager) {
+        final Comparator<AbstractTask> order = query.getOrder().getComparator();
+        final AbstractTask after = query.getAfter() == null ? null : all.stream()
+                .filter(task -> task.getId() == query.getAfter())
+                .findFirst()
+                .orElseThrow();
+        return all.stream()
+                .filter(task -> query.getTypes().contains(task.getTypeTask()))
+                .filter(task -> query.getStateTask() == null || query.getStateTask() == task.getStateTask())
+                .filter(query::matchesEpicAndTime)
+                .filter(task -> query.getText() == null || terms(task).containsAll(SearchIndex.tokenize(query.getText())))
+                .filter(task -> after == null || order.compare(task, after) > 0)
+                .sorted(order)
+                .limit(query.getLimit())
+                .collect(Collectors.toList());
+    }
+
+    private static Set<String> terms(AbstractTask task) {
+        final Set<String> terms = new HashSet<>(SearchIndex.tokenize(task.getName()));
+        terms.addAll(SearchIndex.tokenize(task.getDescription()));
+        return terms;
+    }
+
+    private static String text(Random random) {
+        return WORDS.get(random.nextInt(WORDS.size())) + " " + WORDS.get(random.nextInt(WORDS.size()));
+    }
+}
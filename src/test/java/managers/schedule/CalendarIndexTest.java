@@ -0,0 +1,79 @@
+package managers.schedule;
+
+import models.tasks.AbstractTask;
+import models.tasks.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalendarIndexTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, Month.MAY, 1);
+
+    @Test
+    void fileItemsUnderEveryDayTheyRun() {
+        final CalendarIndex calendar = new CalendarIndex();
+        calendar.add(task(1, FIRST_DAY.atTime(22, 0), Duration.ofHours(26)));
+        calendar.add(task(2, FIRST_DAY.atTime(9, 0), Duration.ofHours(15)));
+        calendar.add(task(3, FIRST_DAY.atTime(9, 0), null));
+        calendar.add(task(4, null, Duration.ofHours(1)));
+
+        assertEquals(List.of(1L, 2L, 3L), ids(calendar, FIRST_DAY));
+        assertEquals(List.of(1L), ids(calendar, FIRST_DAY.plusDays(1)));
+        assertTrue(ids(calendar, FIRST_DAY.plusDays(2)).isEmpty());
+        assertEquals(3, calendar.size());
+
+        calendar.add(task(1, FIRST_DAY.plusDays(2).atStartOfDay(), Duration.ofMinutes(30)));
+        assertEquals(List.of(2L, 3L), ids(calendar, FIRST_DAY));
+        assertTrue(ids(calendar, FIRST_DAY.plusDays(1)).isEmpty());
+        assertEquals(List.of(1L), ids(calendar, FIRST_DAY.plusDays(2)));
+        calendar.remove(2);
+        assertEquals(List.of(3L), ids(calendar, FIRST_DAY));
+    }
+
+    @Test
+    void answerLikeScanningEveryItem() {
+        final Random random = new Random(20);
+        final CalendarIndex calendar = new CalendarIndex();
+        final Map<Long, AbstractTask> tasks = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            final long id = random.nextInt(500);
+            if (random.nextInt(4) == 0) {
+                calendar.remove(id);
+                tasks.remove(id);
+                continue;
+            }
+            final AbstractTask task = task(id, FIRST_DAY.atStartOfDay().plusMinutes(random.nextInt(60 * 24 * 30)),
+                    Duration.ofMinutes(random.nextInt(60 * 24 * 4)));
+            calendar.add(task);
+            tasks.put(id, task);
+        }
+        for (LocalDate day = FIRST_DAY; day.isBefore(FIRST_DAY.plusDays(35)); day = day.plusDays(1)) {
+            final LocalDateTime dayStart = day.atStartOfDay();
+            final List<Long> expected = new ArrayList<>();
+            for (AbstractTask task : tasks.values()) {
+                final boolean runs = task.getStartTime().isBefore(dayStart.plusDays(1))
+                        && (task.getEndTime().isAfter(dayStart)
+                        || task.getStartTime().equals(dayStart) && task.getEndTime().equals(dayStart));
+                if (runs) expected.add(task.getId());
+            }
+            Collections.sort(expected);
+            assertEquals(expected, ids(calendar, day), day.toString());
+        }
+    }
+
+    private static AbstractTask task(long id, LocalDateTime startTime, Duration duration) {
+        return Task.createTask(id, Task.builder("Task" + id).startTime(startTime).duration(duration).build());
+    }
+
+    private static List<Long> ids(CalendarIndex calendar, LocalDate day) {
+        final List<Long> ids = new ArrayList<>();
+        calendar.onDay(day).forEach(ids::add);
+        return ids;
+    }
+}
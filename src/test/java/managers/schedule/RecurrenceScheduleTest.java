@@ -0,0 +1,134 @@
+package managers.schedule;
+
+import models.tasks.AbstractTask;
+import models.tasks.RecurringTask;
+import models.tasks.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceScheduleTest {
+    private static final LocalDateTime START = LocalDateTime.of(2022, Month.MAY, 2, 0, 0);
+    private static final LocalDateTime HORIZON = START.plusDays(120);
+
+    @Test
+    void findIntersectionsLikeExpandingOccurrences() {
+        final Random random = new Random(21);
+        for (int round = 0; round < 300; round++) {
+            final RecurringTask recurringTask = randomRecurringTask(random, 1);
+            final RecurrenceSchedule schedule = new RecurrenceSchedule();
+            schedule.add(recurringTask);
+            final LocalDateTime startTime = START.plusMinutes(random.nextInt(60 * 24 * 100) - 60 * 24);
+            final Duration duration = Duration.ofMinutes(random.nextInt(4) == 0 ? 0 : random.nextInt(60 * 30));
+            final Task task = Task.createTask(2, Task.builder("Task").startTime(startTime).duration(duration).build());
+
+            final boolean expected = expand(recurringTask).stream().anyMatch(occurrence -> IntervalTree.intersected(
+                    occurrence.getStartTime(), occurrence.getEndTime(), task.getStartTime(), task.getEndTime()));
+            final Task occurrence = schedule.findIntersection(task.getStartTime(), task.getEndTime());
+            assertEquals(expected, occurrence != null, recurringTask + " " + task);
+            if (occurrence != null) {
+                assertTrue(IntervalTree.intersected(occurrence.getStartTime(), occurrence.getEndTime(),
+                        task.getStartTime(), task.getEndTime()));
+            }
+            assertEquals(occurrence == null, RecurrenceSchedule.findIntersection(recurringTask, task) == null);
+        }
+    }
+
+    @Test
+    void findIntersectionsBetweenRecurringTasksLikeExpandingOccurrences() {
+        final Random random = new Random(2021);
+        for (int round = 0; round < 300; round++) {
+            final RecurringTask recurringTask1 = randomRecurringTask(random, 1);
+            final RecurringTask recurringTask2 = randomRecurringTask(random, 2);
+            final RecurrenceSchedule schedule = new RecurrenceSchedule();
+            schedule.add(recurringTask1);
+
+            final boolean expected = intersected(expand(recurringTask1), expand(recurringTask2));
+            final Map.Entry<Task, Task> occurrences = schedule.findIntersection(recurringTask2);
+            assertEquals(expected, occurrences != null, recurringTask1 + " " + recurringTask2);
+            if (occurrences != null) {
+                assertEquals(2, occurrences.getKey().getId());
+                assertEquals(1, occurrences.getValue().getId());
+                assertTrue(IntervalTree.intersected(occurrences.getKey().getStartTime(),
+                        occurrences.getKey().getEndTime(), occurrences.getValue().getStartTime(),
+                        occurrences.getValue().getEndTime()));
+            }
+        }
+    }
+
+    @Test
+    void mergeOccurrencesIntoTasksByStartTime() {
+        final RecurrenceSchedule schedule = new RecurrenceSchedule();
+        schedule.add(RecurringTask.createRecurringTask(1, RecurringTask.builder("Daily").startTime(START.plusHours(9))
+                .duration(Duration.ofMinutes(15)).period(Duration.ofDays(1)).build()));
+        schedule.add(RecurringTask.createRecurringTask(2, RecurringTask.builder("Weekly").startTime(START.plusHours(10))
+                .duration(Duration.ofHours(1)).period(Duration.ofDays(7)).until(START.plusDays(8)).build()));
+        final Task task = Task.createTask(3, Task.builder("Task").startTime(START.plusDays(1).plusHours(12)).build());
+
+        final List<AbstractTask> merged = schedule.merge(List.of(task), START.plusHours(9).plusMinutes(30),
+                START.plusDays(9), 5);
+        assertEquals(List.of(START.plusHours(10), START.plusDays(1).plusHours(9), START.plusDays(1).plusHours(12),
+                START.plusDays(2).plusHours(9), START.plusDays(3).plusHours(9)),
+                merged.stream().map(AbstractTask::getStartTime).collect(Collectors.toList()));
+        assertEquals(List.of(2L, 1L, 3L, 1L, 1L),
+                merged.stream().map(AbstractTask::getId).collect(Collectors.toList()));
+        assertEquals(12, schedule.merge(List.of(task), START, START.plusDays(9), Integer.MAX_VALUE).size());
+        assertEquals(List.of(task), schedule.merge(List.of(task), null, null, Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class,
+                () -> schedule.merge(List.of(task), START, null, Integer.MAX_VALUE));
+
+        assertEquals(List.of(START.plusDays(7).plusHours(9), START.plusDays(7).plusHours(10)),
+                schedule.findOccurrences(START.plusDays(7), START.plusDays(8)).stream()
+                        .map(Task::getStartTime).collect(Collectors.toList()));
+        assertEquals(1, schedule.findOccurrences(START.plusDays(14), START.plusDays(15)).size());
+    }
+
+    // Any two of the periods line up again within 70 days, well before the horizon of the expansion.
+    private static final long[] PERIOD_MINUTES = {60, 90, 120, 180, 240, 300, 360, 480, 720, 1440, 2880, 10080, 20160};
+
+    // The occurrences of a recurring task never overlap each other, so both lists are swept once,
+    // always leaving behind the occurrence that ends first.
+    private static boolean intersected(List<Task> occurrences1, List<Task> occurrences2) {
+        int i = 0;
+        int j = 0;
+        while (i < occurrences1.size() && j < occurrences2.size()) {
+            final Task occurrence1 = occurrences1.get(i);
+            final Task occurrence2 = occurrences2.get(j);
+            if (IntervalTree.intersected(occurrence1.getStartTime(), occurrence1.getEndTime(),
+                    occurrence2.getStartTime(), occurrence2.getEndTime())) return true;
+            if (occurrence1.getEndTime().isAfter(occurrence2.getEndTime())) j++;
+            else i++;
+        }
+        return false;
+    }
+
+    private static RecurringTask randomRecurringTask(Random random, long id) {
+        final Duration period = Duration.ofMinutes(PERIOD_MINUTES[random.nextInt(PERIOD_MINUTES.length)]);
+        final Duration duration = Duration.ofMinutes(1 + random.nextInt((int) period.toMinutes()));
+        final LocalDateTime startTime = START.plusMinutes(15L * random.nextInt(4 * 24 * 7));
+        final RecurringTask.Builder builder = RecurringTask.builder("Recurring" + id).startTime(startTime)
+                .duration(duration).period(period);
+        if (random.nextBoolean()) builder.until(startTime.plusMinutes(1 + random.nextInt(60 * 24 * 30)));
+        return RecurringTask.createRecurringTask(id, builder.build());
+    }
+
+    // Endless tasks are expanded up to the horizon.
+    private static List<Task> expand(RecurringTask recurringTask) {
+        final List<Task> occurrences = new ArrayList<>();
+        for (long index = 0; ; index++) {
+            final Task occurrence = recurringTask.getOccurrence(index);
+            if (!occurrence.getStartTime().isBefore(HORIZON)) break;
+            if (recurringTask.getUntil() != null && !occurrence.getStartTime().isBefore(recurringTask.getUntil())) {
+                break;
+            }
+            occurrences.add(occurrence);
+        }
+        return occurrences;
+    }
+}
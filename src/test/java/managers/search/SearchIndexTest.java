@@ -0,0 +1,45 @@
+package managers.search;
+
+import models.tasks.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    @Test
+    void rankNameMatchesAboveDescriptionMatchesAndPaginate() {
+        final SearchIndex index = new SearchIndex();
+        index.add(Task.createTask(1, "Write report", "Quarterly numbers for the board"));
+        index.add(Task.createTask(2, "Board meeting", "Prepare the report"));
+        index.add(Task.createTask(3, "Fix login", "Users can't sign in"));
+        index.add(Task.createTask(4, "Report bug", "Crash in the report screen"));
+
+        assertEquals(List.of(4L, 1L, 2L), index.search("REPORT", 0, 10));
+        assertEquals(List.of(2L, 1L), index.search("report, board", 0, 10));
+        assertEquals(List.of(1L), index.search("report", 1, 1));
+        assertEquals(List.of(), index.search("report", 3, 10));
+        assertEquals(List.of(), index.search("report missing", 0, 10));
+        assertEquals(List.of(), index.search("  ", 0, 10));
+        assertEquals(List.of(3L), index.search("can't", 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("report", -1, 10));
+    }
+
+    @Test
+    void replaceAndRemoveDocuments() {
+        final SearchIndex index = new SearchIndex();
+        index.add(Task.createTask(1, "Старая задача", ""));
+        index.add(Task.createTask(2, "Новая задача", ""));
+        index.add(Task.createTask(1, "Renamed", "задача"));
+        assertEquals(List.of(), index.search("старая", 0, 10));
+        assertEquals(List.of(2L, 1L), index.search("Задача", 0, 10));
+
+        index.remove(2);
+        index.remove(7);
+        assertEquals(1, index.size());
+        assertEquals(List.of(1L), index.search("задача", 0, 10));
+        assertEquals(List.of("fix", "bug", "12"), SearchIndex.tokenize("Fix-bug #12"));
+    }
+}
@@ -0,0 +1,113 @@
+package models.repositories.tasks;
+
+import exceptions.ManagerDependencyCycleException;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyGraphTest {
+
+    @Test
+    void refuseCycles() {
+        final DependencyGraph graph = new DependencyGraph();
+        for (long id = 1; id <= 4; id++) graph.put(id, 10);
+        assertTrue(graph.addDependency(2, 1));
+        assertTrue(graph.addDependency(3, 2));
+        assertTrue(graph.addDependency(4, 3));
+        assertThrows(ManagerDependencyCycleException.class, () -> graph.addDependency(1, 4));
+        assertThrows(ManagerDependencyCycleException.class, () -> graph.addDependency(2, 2));
+        assertThrows(IllegalArgumentException.class, () -> graph.addDependency(2, 5));
+        assertTrue(graph.getBlockers(1).isEmpty());
+        assertEquals(30, graph.getEarliestStart(4));
+
+        graph.removeDependency(3, 2);
+        assertTrue(graph.addDependency(1, 4));
+        assertEquals(List.of(3L, 4L, 1L, 2L), graph.getCriticalPath().getIds());
+        assertEquals(40, graph.getCriticalPath().getDuration());
+    }
+
+    @Test
+    void keepEarliestStartsLikeFullRecomputeUnderRandomChanges() {
+        final Random random = new Random(19);
+        final DependencyGraph graph = new DependencyGraph();
+        final Map<Long, Long> durations = new HashMap<>();
+        final Map<Long, Set<Long>> blockers = new HashMap<>();
+        long nextId = 0;
+        for (int step = 0; step < 3000; step++) {
+            final int operation = random.nextInt(10);
+            if (operation < 2 || durations.size() < 2) {
+                final long id = nextId++;
+                final long duration = random.nextInt(100);
+                graph.put(id, duration);
+                durations.put(id, duration);
+                blockers.put(id, new HashSet<>());
+                continue;
+            }
+            final List<Long> ids = new ArrayList<>(durations.keySet());
+            final long id = ids.get(random.nextInt(ids.size()));
+            final long other = ids.get(random.nextInt(ids.size()));
+            if (operation < 7) {
+                final boolean cycle = id == other || reaches(blockers, other, id);
+                if (cycle) {
+                    assertThrows(ManagerDependencyCycleException.class, () -> graph.addDependency(id, other));
+                } else {
+                    assertEquals(blockers.get(id).add(other), graph.addDependency(id, other));
+                }
+            } else if (operation == 7) {
+                assertEquals(blockers.get(id).remove(other), graph.removeDependency(id, other));
+            } else if (operation == 8) {
+                final long duration = random.nextInt(100);
+                graph.put(id, duration);
+                durations.put(id, duration);
+            } else {
+                graph.remove(id);
+                durations.remove(id);
+                blockers.remove(id);
+                for (Set<Long> itemBlockers : blockers.values()) itemBlockers.remove(id);
+            }
+        }
+
+        final Map<Long, Long> earliestStarts = new HashMap<>();
+        long finish = 0;
+        for (long id : durations.keySet()) {
+            final long earliestStart = earliestStart(id, durations, blockers, earliestStarts);
+            assertEquals(earliestStart, graph.getEarliestStart(id));
+            finish = Math.max(finish, earliestStart + durations.get(id));
+        }
+        final DependencyGraph.CriticalPath criticalPath = graph.getCriticalPath();
+        assertEquals(finish, criticalPath.getDuration());
+        final List<Long> path = criticalPath.getIds();
+        assertEquals(0, graph.getEarliestStart(path.get(0)));
+        for (int i = 1; i < path.size(); i++) {
+            assertTrue(blockers.get(path.get(i)).contains(path.get(i - 1)));
+            assertEquals(graph.getEarliestStart(path.get(i - 1)) + durations.get(path.get(i - 1)),
+                    graph.getEarliestStart(path.get(i)));
+        }
+    }
+
+    private static boolean reaches(Map<Long, Set<Long>> blockers, long from, long to) {
+        final Deque<Long> stack = new ArrayDeque<>(List.of(from));
+        final Set<Long> visited = new HashSet<>(stack);
+        while (!stack.isEmpty()) {
+            final long id = stack.pop();
+            if (id == to) return true;
+            for (long blocker : blockers.get(id)) if (visited.add(blocker)) stack.push(blocker);
+        }
+        return false;
+    }
+
+    private static long earliestStart(long id, Map<Long, Long> durations, Map<Long, Set<Long>> blockers,
+                                      Map<Long, Long> earliestStarts) {
+        final Long known = earliestStarts.get(id);
+        if (known != null) return known;
+        long earliestStart = 0;
+        for (long blocker : blockers.get(id)) {
+            earliestStart = Math.max(earliestStart,
+                    earliestStart(blocker, durations, blockers, earliestStarts) + durations.get(blocker));
+        }
+        earliestStarts.put(id, earliestStart);
+        return earliestStart;
+    }
+}
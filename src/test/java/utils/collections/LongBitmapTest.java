@@ -0,0 +1,95 @@
+package utils.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongBitmapTest {
+
+    @Test
+    void behaveLikeTreeSetUnderRandomOperations() {
+        final Random random = new Random(15);
+        final LongBitmap bitmap = new LongBitmap();
+        final TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            // Dense ids make the containers switch to bitmaps and back, sparse ones spread over many containers.
+            final long value = random.nextBoolean() ? random.nextInt(6000) : random.nextInt(1 << 24) + (1L << 40);
+            if (random.nextInt(3) == 0) assertEquals(expected.remove(value), bitmap.remove(value));
+            else assertEquals(expected.add(value), bitmap.add(value));
+            assertEquals(expected.size(), bitmap.cardinality());
+        }
+        assertEquals(new ArrayList<>(expected), toList(bitmap));
+        for (long value = 0; value < 6000; value++) assertEquals(expected.contains(value), bitmap.contains(value));
+        final long from = (1L << 40) + (1 << 23);
+        final List<Long> tail = new ArrayList<>();
+        bitmap.iterator(from).forEachRemaining((long value) -> tail.add(value));
+        assertEquals(new ArrayList<>(expected.tailSet(from)), tail);
+    }
+
+    @Test
+    void unionArrayAndBitmapContainers() {
+        final LongBitmap dense = new LongBitmap();
+        final LongBitmap sparse = new LongBitmap();
+        final TreeSet<Long> expected = new TreeSet<>();
+        for (long value = 0; value < 10_000; value += 2) {
+            dense.add(value);
+            expected.add(value);
+        }
+        for (long value = 1; value < 200_000; value += 99) {
+            sparse.add(value);
+            expected.add(value);
+        }
+        final LongBitmap result = LongBitmap.or(dense, sparse);
+        assertEquals(new ArrayList<>(expected), toList(result));
+        assertEquals(expected.size(), result.cardinality());
+        assertEquals(toList(sparse), toList(LongBitmap.or(new LongBitmap(), sparse)));
+    }
+
+    @Test
+    void intersectArrayAndBitmapContainers() {
+        final LongBitmap evens = new LongBitmap();
+        final LongBitmap multiplesOfThree = new LongBitmap();
+        for (long value = 0; value < 30_000; value++) {
+            if (value % 2 == 0) evens.add(value);
+            if (value % 3 == 0 && value < 9000) multiplesOfThree.add(value);
+        }
+        evens.add(1L << 40);
+        multiplesOfThree.add(1L << 40);
+
+        final List<Long> expected = new ArrayList<>();
+        for (long value = 0; value < 9000; value += 6) expected.add(value);
+        expected.add(1L << 40);
+        final LongBitmap result = LongBitmap.and(evens, multiplesOfThree);
+        assertEquals(expected, toList(result));
+        assertEquals(expected.size(), result.cardinality());
+        assertTrue(LongBitmap.and(evens, new LongBitmap()).isEmpty());
+    }
+
+    @Test
+    void iterateUnionWithoutBuildingIt() {
+        final Random random = new Random(17);
+        final List<LongBitmap> bitmaps = List.of(new LongBitmap(), new LongBitmap(), new LongBitmap(), new LongBitmap());
+        final TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            final long value = random.nextBoolean() ? random.nextInt(8000) : random.nextInt(1 << 20) + (1L << 40);
+            bitmaps.get(random.nextInt(3)).add(value);
+            expected.add(value);
+        }
+        for (long from : new long[]{0, 4000, (1L << 40) + (1 << 19), Long.MAX_VALUE}) {
+            final List<Long> values = new ArrayList<>();
+            LongBitmap.unionIterator(bitmaps, from).forEachRemaining((long value) -> values.add(value));
+            assertEquals(new ArrayList<>(expected.tailSet(from)), values);
+        }
+        assertFalse(LongBitmap.unionIterator(List.of(), 0).hasNext());
+    }
+
+    private static List<Long> toList(LongBitmap bitmap) {
+        final List<Long> values = new ArrayList<>();
+        for (PrimitiveIterator.OfLong iterator = bitmap.iterator(); iterator.hasNext(); ) {
+            values.add(iterator.nextLong());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,28 @@
+package utils.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashMapTest {
+
+    @Test
+    void behaveLikeJdkMapUnderRandomOperations() {
+        final Random random = new Random(12);
+        final LongHashMap<Integer> hashMap = new LongHashMap<>();
+        final Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            final long key = random.nextInt(500) * 1024L;
+            final Integer value = i;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), hashMap.remove(key));
+            } else {
+                assertEquals(expected.put(key, value), hashMap.put(key, value));
+            }
+            assertEquals(expected.size(), hashMap.size());
+        }
+        assertEquals(expected, hashMap);
+    }
+}
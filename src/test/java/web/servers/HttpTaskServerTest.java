@@ -1,21 +1,40 @@
 package web.servers;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import managers.HTTPTaskManager;
+import managers.InMemoryTaskManager;
 import managers.TaskManager;
+import managers.boards.BoardRegistry;
+import managers.query.TaskQuery;
+import models.enums.StateTask;
+import models.enums.TypeTask;
 import models.repositories.tasks.AbstractTasksRepository;
 import models.tasks.AbstractTask;
 import models.tasks.Epic;
+import models.tasks.RecurringTask;
 import models.tasks.Story;
 import models.tasks.Task;
 import org.junit.jupiter.api.*;
+import utils.AtomicIdAllocator;
 import utils.Managers;
+import web.servers.handlers.ClientFilter;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -37,7 +56,6 @@ public class HttpTaskServerTest {
     static void setUp() {
         KVServer = new KVServer(8078, "localhost", true);
         KVServer.start();
-        httpClient = HttpClient.newHttpClient();
     }
 
     @BeforeEach
@@ -49,6 +67,8 @@ public class HttpTaskServerTest {
         story = taskManager.addStory(Story.createStory("Story", epic.getId()));
         httpTaskServer = new HttpTaskServer(taskManager, 8080);
         httpTaskServer.start();
+        // A client of its own for every test: a connection kept from the server of the previous test is dead.
+        httpClient = HttpClient.newHttpClient();
         gson = new Gson();
     }
 
@@ -62,6 +82,7 @@ public class HttpTaskServerTest {
         KVServer.stop(0);
     }
 
+    private static final int BAD_REQUEST = 400;
     private static final int NOT_FOUND = 404;
     private static final int OK = 200;
 
@@ -283,8 +304,87 @@ public class HttpTaskServerTest {
                 .version(HttpClient.Version.HTTP_1_1)
                 .build();
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        assertEquals(gson.toJson(taskManager.findAllTasks()), response.body());
+        assertEquals(Map.of(1L, "Task", 4L, "NewTask"), idsToNames(response.body()));
+        assertEquals(OK, response.statusCode());
+    }
+
+    @Test
+    void shouldBeGetTasksByStateByGetRequest() throws IOException, InterruptedException {
+        taskManager.addTask(Task.builder("ActiveTask").stateTask(StateTask.IN_PROGRESS).build());
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/task/?state=IN_PROGRESS"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(taskManager.findAllTasks(StateTask.IN_PROGRESS)), response.body());
+        assertTrue(response.body().contains("ActiveTask"));
+        assertEquals(OK, response.statusCode());
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/task/?state=UNKNOWN"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(BAD_REQUEST, response.statusCode());
+    }
+
+    @Test
+    void shouldBeSearchTasksByGetRequest() throws IOException, InterruptedException {
+        taskManager.addTask(Task.createTask("Deploy release", "Roll out the new release"));
+        taskManager.addTask(Task.createTask("Release notes", ""));
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/search?q=release&limit=1"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(taskManager.search("release", 0, 1)), response.body());
+        assertTrue(response.body().contains("Deploy release"));
         assertEquals(OK, response.statusCode());
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/search"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(BAD_REQUEST, response.statusCode());
+    }
+
+    @Test
+    void shouldBeQueryTasksByGetRequest() throws IOException, InterruptedException {
+        LocalDateTime startTime = LocalDateTime.of(2021, Month.MAY, 1, 12, 0, 0);
+        taskManager.addTask(Task.builder("Late release").startTime(startTime.plusDays(1)).build());
+        taskManager.addTask(Task.builder("Early release").startTime(startTime).build());
+        taskManager.addTask(Task.builder("Hotfix").startTime(startTime.minusDays(1)).build());
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/task/?q=release&order=start_time&limit=1"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpTaskServer.GSON.toJson(taskManager.query(TaskQuery.builder().type(TypeTask.TASK).text("release")
+                .orderBy(TaskQuery.Order.START_TIME).limit(1).build())), response.body());
+        assertTrue(response.body().contains("Early release"));
+        assertEquals(OK, response.statusCode());
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/task/?order=sideways"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(BAD_REQUEST, response.statusCode());
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/task/?order=name&after=100"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(NOT_FOUND, response.statusCode());
     }
 
     @Test
@@ -296,7 +396,7 @@ public class HttpTaskServerTest {
                 .version(HttpClient.Version.HTTP_1_1)
                 .build();
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        assertEquals(gson.toJson(taskManager.findAllEpics()), response.body());
+        assertEquals(Map.of(2L, "Epic", 4L, "NewEpic"), idsToNames(response.body()));
         assertEquals(OK, response.statusCode());
     }
 
@@ -309,7 +409,7 @@ public class HttpTaskServerTest {
                 .version(HttpClient.Version.HTTP_1_1)
                 .build();
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        assertEquals(gson.toJson(taskManager.findAllStories(epic.getId())), response.body());
+        assertEquals(Map.of(3L, "Story", 4L, "NewStory"), idsToNames(response.body()));
         assertEquals(OK, response.statusCode());
     }
 
@@ -394,4 +494,302 @@ public class HttpTaskServerTest {
         assertEquals(gson.toJson(((HTTPTaskManager) taskManager).getPrioritizedTasks()), response.body());
         assertEquals(OK, response.statusCode());
     }
+
+    @Test
+    void shouldBeGetFreeSlotByGetRequest() throws IOException, InterruptedException {
+        LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        taskManager.addTask(Task.builder("TimedTask").startTime(startTime).duration(Duration.ofHours(2)).build());
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/slots?duration=60&notBefore=2020-04-01T13:00:00"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals("{\"startTime\":\"2020-04-01T14:00:00\",\"endTime\":\"2020-04-01T15:00:00\"}",
+                response.body());
+        assertEquals(OK, response.statusCode());
+    }
+
+    @Test
+    void shouldBeReturnBadRequestIfSlotDurationIsMissing() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/slots?notBefore=2020-04-01T13:00:00"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(BAD_REQUEST, response.statusCode());
+    }
+
+    @Test
+    void shouldBeHandleParallelRequestsOnWorkerPool() throws Exception {
+        httpTaskServer.stop(0);
+        taskManager = Managers.getConcurrent();
+        task = taskManager.addTask(Task.createTask("Task"));
+        httpTaskServer = new HttpTaskServer(taskManager, 8080, "localhost", 4);
+        httpTaskServer.start();
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/task?id=" + task.getId()))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        // A fresh client, so no request goes over a keep-alive connection to the stopped server.
+        HttpClient parallelClient = HttpClient.newHttpClient();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            responses.add(parallelClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(OK, response.get().statusCode());
+            assertEquals(task, gson.fromJson(response.get().body(), Task.class));
+        }
+    }
+
+    @Test
+    void shouldBeReturnHistoryOfTheCallingClient() throws Exception {
+        httpTaskServer.stop(0);
+        taskManager = Managers.getConcurrent();
+        final Task task1 = taskManager.addTask(Task.createTask("Task1"));
+        final Task task2 = taskManager.addTask(Task.createTask("Task2"));
+        httpTaskServer = new HttpTaskServer(taskManager, 8080, "localhost", 4);
+        httpTaskServer.start();
+        httpClient = HttpClient.newHttpClient();
+        for (Map.Entry<String, Task> view : List.of(Map.entry("alice", task1), Map.entry("bob", task2),
+                Map.entry("alice", task2), Map.entry("bob", task2))) {
+            final HttpRequest request = HttpRequest.newBuilder()
+                    .GET()
+                    .uri(URI.create(URL + "/tasks/task?id=" + view.getValue().getId()))
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .header(ClientFilter.CLIENT_HEADER, view.getKey())
+                    .build();
+            assertEquals(OK, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+
+        for (Map.Entry<String, String> history : List.of(
+                Map.entry("alice", List.of(task1.getId(), task2.getId()).toString()),
+                Map.entry("bob", List.of(task2.getId()).toString()),
+                Map.entry("carol", "[]"))) {
+            final HttpRequest request = HttpRequest.newBuilder()
+                    .GET()
+                    .uri(URI.create(URL + "/tasks/history"))
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .header(ClientFilter.CLIENT_HEADER, history.getKey())
+                    .build();
+            final HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(history.getValue(), response.body().replace(",", ", "));
+        }
+    }
+
+    @Test
+    void shouldBeRouteRequestsByBoardKey() throws IOException, InterruptedException {
+        httpTaskServer.stop(0);
+        BoardRegistry boards = new BoardRegistry(key -> new InMemoryTaskManager(new AtomicIdAllocator()), 100);
+        httpTaskServer = new HttpTaskServer(boards, 8080, "localhost", 0);
+        httpTaskServer.start();
+        HttpRequest request = HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(Task.createTask("BoardTask"))))
+                .uri(URI.create(URL + "/boards/team1/tasks/task"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .header("Content-Type", "application/json")
+                .build();
+        assertEquals(CREATED, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals("BoardTask", board(boards, "team1").findTask(1).getName());
+        assertEquals(0, board(boards, "team2").size());
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/boards/team1/tasks/stats"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpTaskServer.GSON.toJson(board(boards, "team1").counts()), response.body());
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/boards/team%201/tasks/task/"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        assertEquals(BAD_REQUEST, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private static Map<Long, String> idsToNames(String body) {
+        final Map<Long, String> idsToNames = new HashMap<>();
+        for (JsonElement element : JsonParser.parseString(body).getAsJsonArray()) {
+            final JsonObject task = element.getAsJsonObject();
+            idsToNames.put(task.get("id").getAsLong(), task.get("name").getAsString());
+        }
+        return idsToNames;
+    }
+
+    private static TaskManager board(BoardRegistry boards, String key) {
+        try (BoardRegistry.Lease lease = boards.acquire(key)) {
+            return lease.getManager();
+        }
+    }
+
+    @Test
+    void shouldBeGetStatsByGetRequest() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/stats"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpTaskServer.GSON.toJson(taskManager.counts()), response.body());
+        assertTrue(response.body().startsWith("{\"total\":3,"));
+        assertEquals(OK, response.statusCode());
+    }
+
+    @Test
+    void shouldBeGetAnalyticsByGetRequest() throws IOException, InterruptedException {
+        taskManager.addStory(Story.builder("DoneStory", epic.getId()).stateTask(StateTask.DONE)
+                .duration(Duration.ofHours(1)).build());
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/analytics"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpTaskServer.GSON.toJson(taskManager.analytics()), response.body());
+        assertTrue(response.body().contains("\"percentComplete\":50.0"));
+        assertEquals(OK, response.statusCode());
+    }
+
+    @Test
+    void shouldBeAddGetAndDeleteDependenciesByRequests() throws IOException, InterruptedException {
+        taskManager.updateTask(task.getId(), Task.builder("Task").duration(Duration.ofMinutes(45)).build());
+        HttpRequest addRequest = HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .uri(URI.create(URL + "/tasks/dependencies?id=" + story.getId() + "&blockedBy=" + task.getId()))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = sendOnNewConnection(addRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(CREATED, response.statusCode());
+
+        response = sendOnNewConnection(HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .uri(URI.create(URL + "/tasks/dependencies?id=" + task.getId() + "&blockedBy=" + story.getId()))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(409, response.statusCode());
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .DELETE()
+                .uri(addRequest.uri())
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        assertEquals(NO_CONTENT, sendOnNewConnection(deleteRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(NOT_FOUND, sendOnNewConnection(deleteRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(CREATED, sendOnNewConnection(addRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        response = httpClient.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/dependencies?id=" + story.getId()))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals("{\"id\":" + story.getId() + ",\"earliestStart\":45,\"blockedBy\":[" + task.getId() + "]}",
+                response.body());
+        assertEquals(OK, response.statusCode());
+
+        response = httpClient.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/critical-path"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpTaskServer.GSON.toJson(taskManager.getCriticalPath()), response.body());
+        assertEquals(List.of(task.getId(), story.getId()), taskManager.getCriticalPath().getIds());
+    }
+
+    @Test
+    void shouldBeGetTasksOfDayByGetRequest() throws IOException, InterruptedException {
+        LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 23, 0, 0);
+        taskManager.addTask(Task.builder("NightTask").startTime(startTime).duration(Duration.ofHours(2)).build());
+        taskManager.addTask(Task.builder("LaterTask").startTime(startTime.plusDays(1)).build());
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/calendar?day=2020-04-02"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpTaskServer.GSON.toJson(taskManager.findByDay(startTime.toLocalDate().plusDays(1))),
+                response.body());
+        assertTrue(response.body().contains("NightTask"));
+        assertTrue(response.body().contains("LaterTask"));
+        assertEquals(OK, response.statusCode());
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/calendar?day=tomorrow"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        assertEquals(BAD_REQUEST, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void shouldBeAddRecurringTaskAndMergeItsOccurrencesByRequests() throws IOException, InterruptedException {
+        LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 9, 0, 0);
+        HttpResponse<String> response = postRecurringTask(RecurringTask.builder("Stand-up").startTime(startTime)
+                .duration(Duration.ofMinutes(15)).period(Duration.ofDays(1)).build());
+        assertEquals(CREATED, response.statusCode());
+        RecurringTask created = taskManager.findAllRecurringTasks().get(0);
+        assertEquals(HttpTaskServer.GSON.toJson(created), response.body());
+
+        response = postRecurringTask(RecurringTask.builder("Review").startTime(startTime.plusDays(6).plusMinutes(10))
+                .duration(Duration.ofMinutes(30)).period(Duration.ofDays(7)).build());
+        assertEquals(409, response.statusCode());
+
+        response = postRecurringTask(RecurringTask.builder("Retro").startTime(startTime.plusDays(6).plusHours(1))
+                .duration(Duration.ofMinutes(30)).period(Duration.ofDays(14)).build());
+        assertEquals(CREATED, response.statusCode());
+        HttpRequest request = HttpRequest.newBuilder()
+                .DELETE()
+                .uri(URI.create(URL + "/tasks/recurring?id=" + taskManager.findAllRecurringTasks().get(1).getId()))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        assertEquals(NO_CONTENT, sendOnNewConnection(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(NOT_FOUND, sendOnNewConnection(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/?from=2020-04-10T00:00:00&to=2020-04-12T00:00:00"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpTaskServer.GSON.toJson(List.of(created.getOccurrence(9), created.getOccurrence(10))),
+                response.body());
+        assertEquals(OK, response.statusCode());
+    }
+
+    private HttpResponse<String> postRecurringTask(RecurringTask recurringTask) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString(HttpTaskServer.GSON.toJson(recurringTask)))
+                .uri(URI.create(URL + "/tasks/recurring"))
+                .header("Content-Type", "application/json")
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        return sendOnNewConnection(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // The handlers drop the connection after some answers and the client only retries GET on a new one.
+    private static <T> HttpResponse<T> sendOnNewConnection(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        return HttpClient.newHttpClient().send(request, handler);
+    }
+
+    @Test
+    void shouldBeGetPrioritizedTasksInTimeRangeByGetRequest() throws IOException, InterruptedException {
+        LocalDateTime startTime = LocalDateTime.of(2020, Month.APRIL, 1, 12, 0, 0);
+        taskManager.addTask(Task.builder("TimedTask1").startTime(startTime).duration(Duration.ofHours(1)).build());
+        taskManager.addTask(Task.builder("TimedTask2").startTime(startTime.plusDays(1)).build());
+        taskManager.addTask(Task.builder("TimedTask3").startTime(startTime.plusDays(2)).build());
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(URL + "/tasks/?from=2020-04-01T12:30:00&to=2020-04-04T00:00:00&limit=1"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpTaskServer.GSON.toJson(((HTTPTaskManager) taskManager).getPrioritizedTasks(
+                startTime.plusMinutes(30), startTime.plusDays(3), 1)), response.body());
+        assertEquals(OK, response.statusCode());
+    }
 }
@@ -15,16 +15,21 @@ import models.tasks.Task;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import utils.LeasedIdAllocator;
 import utils.Managers;
+import web.clients.KVTaskClient;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class KVServerTest {
     private static final String URL = "http://localhost:8078";
@@ -163,4 +168,41 @@ public class KVServerTest {
         assertEquals(OK, response.statusCode());
     }
 
+    @Test
+    void shouldBeLeaseDisjointBlocksOfIds() {
+        LeasedIdAllocator allocator1 = new LeasedIdAllocator(new KVTaskClient(URI.create(URL + "/")), "ids", 3);
+        LeasedIdAllocator allocator2 = new LeasedIdAllocator(new KVTaskClient(URI.create(URL + "/")), "ids", 3);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(allocator1.next());
+            ids.add(allocator2.next());
+        }
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 10L, 11L), ids);
+    }
+
+    @Test
+    void shouldBeKeepLeasesApartFromSavedValues() {
+        KVTaskClient client = new KVTaskClient(URI.create(URL + "/"));
+        assertEquals(1, client.lease("board", 5));
+        client.put("board", "[]");
+        assertEquals(6, client.lease("board", 5));
+        assertEquals("[]", client.load("board"));
+        assertThrows(IllegalStateException.class,
+                () -> new KVTaskClient(URI.create(URL + "/")).lease("board", Long.MAX_VALUE));
+        assertEquals(11, client.lease("board", 1));
+    }
+
+    @Test
+    void shouldBeGiveHttpTaskManagersDisjointIds() {
+        URI uri = URI.create(URL + "/");
+        HTTPTaskManager manager1 = new HTTPTaskManager(uri, new LeasedIdAllocator(new KVTaskClient(uri), "writers", 2));
+        HTTPTaskManager manager2 = new HTTPTaskManager(uri, new LeasedIdAllocator(new KVTaskClient(uri), "writers", 2));
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(manager1.addTask(Task.createTask("Task")).getId());
+            ids.add(manager2.addTask(Task.createTask("Task")).getId());
+        }
+        ids.add(manager1.load().addTask(Task.createTask("Task")).getId());
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), ids);
+    }
 }